@@ -1,13 +1,22 @@
 package com.openclassrooms.mddapi;
 
+import com.openclassrooms.mddapi.config.NativeRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class MddApiApplication {
 
+	// Étapes du démarrage gardées en mémoire pour la répartition du temps de démarrage (voir StartupTimeReporter)
+	private static final int STARTUP_STEPS = 10_000;
+
 	public static void main(String[] args) {
-		SpringApplication.run(MddApiApplication.class, args);
+		SpringApplication application = new SpringApplication(MddApiApplication.class);
+		application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,77 @@
+package com.openclassrooms.mddapi.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.services.ArticleJsonCache;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+
+/**
+ * Sérialise un ArticleResponse en recopiant sa représentation depuis ArticleJsonCache ;
+ * le sérialiseur standard de Jackson ne sert qu'à remplir le cache.
+ */
+class CachedArticleSerializer extends StdSerializer<ArticleResponse> implements ResolvableSerializer {
+
+    private static final JsonFactory DEFAULT_FACTORY = new JsonFactory();
+
+    private final JsonSerializer<Object> delegate;
+    private final ObjectProvider<ArticleJsonCache> cacheProvider;
+    private volatile ArticleJsonCache cache;
+
+    CachedArticleSerializer(JsonSerializer<Object> delegate, ObjectProvider<ArticleJsonCache> cacheProvider) {
+        super(ArticleResponse.class);
+        this.delegate = delegate;
+        this.cacheProvider = cacheProvider;
+    }
+
+    @Override
+    public void resolve(SerializerProvider provider) throws JsonMappingException {
+        if (delegate instanceof ResolvableSerializer resolvable) {
+            resolvable.resolve(provider);
+        }
+    }
+
+    @Override
+    public void serialize(ArticleResponse article, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        ArticleJsonCache articleJsonCache = cache();
+        // Le cache ne contient que la représentation complète
+        if (articleJsonCache == null || FieldSelection.isActive(provider.getFilterProvider(), article)) {
+            delegate.serialize(article, gen, provider);
+            return;
+        }
+        SerializableString json = articleJsonCache.get(article);
+        if (json == null) {
+            ObjectCodec codec = gen.getCodec();
+            JsonFactory factory = codec != null ? codec.getFactory() : DEFAULT_FACTORY;
+            try (ByteArrayBuilder buffer = new ByteArrayBuilder();
+                 JsonGenerator fragment = factory.createGenerator(buffer)) {
+                delegate.serialize(article, fragment, provider);
+                fragment.flush();
+                json = articleJsonCache.put(article, buffer.toByteArray());
+            }
+        }
+        gen.writeRawValue(json);
+    }
+
+    /**
+     * Cache résolu au premier usage : l'ObjectMapper est créé avant lui
+     */
+    private ArticleJsonCache cache() {
+        ArticleJsonCache current = cache;
+        if (current == null) {
+            current = cacheProvider.getIfAvailable();
+            cache = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,87 @@
+package com.openclassrooms.mddapi.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.TypeUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Convertisseur JSON des réponses MVC dont l'écriture est observée : le span « mdd.serialization » sépare
+ * le temps de sérialisation de celui du contrôleur.
+ *
+ * Avec cacheWriters, un ObjectWriter est préparé une fois par type de réponse (sérialiseur racine déjà
+ * résolu) au lieu d'être reconstruit à chaque réponse. Les réponses à vue ou filtre (MappingJacksonValue)
+ * et celles qui ne sont pas en UTF-8 passent par l'écriture standard de Spring.
+ */
+class CachingJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    // Au-delà, les types ne sont plus mis en cache (réponses génériques inattendues)
+    private static final int MAX_CACHED_WRITERS = 256;
+
+    private final ObservationRegistry observationRegistry;
+    private final boolean cacheWriters;
+    private final Map<JavaType, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    CachingJacksonHttpMessageConverter(ObjectMapper objectMapper, ObservationRegistry observationRegistry,
+                                       boolean cacheWriters) {
+        super(objectMapper);
+        this.observationRegistry = observationRegistry;
+        this.cacheWriters = cacheWriters;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Observation.createNotStarted("mdd.serialization", observationRegistry)
+                .contextualName("json.write")
+                .lowCardinalityKeyValue(LayerObservationAspect.LAYER_KEY, "serialization")
+                .lowCardinalityKeyValue("type", object != null ? object.getClass().getSimpleName() : "null")
+                .observeChecked(() -> write(object, type, outputMessage));
+    }
+
+    private void write(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!cacheWriters || object == null || object instanceof MappingJacksonValue
+                || !isUtf8(outputMessage.getHeaders().getContentType())) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        // Même choix de type que Spring : type déclaré pour les collections, type réel sinon
+        JavaType javaType = null;
+        if (type != null && TypeUtils.isAssignable(type, object.getClass())) {
+            javaType = getJavaType(type, null);
+        }
+        if (javaType == null || !javaType.isContainerType()) {
+            javaType = getObjectMapper().constructType(object.getClass());
+        }
+        writer(javaType).writeValue(StreamUtils.nonClosing(outputMessage.getBody()), object);
+    }
+
+    private ObjectWriter writer(JavaType javaType) {
+        ObjectWriter writer = writers.get(javaType);
+        if (writer == null) {
+            writer = getObjectMapper().writerFor(javaType);
+            if (writers.size() < MAX_CACHED_WRITERS) {
+                writers.put(javaType, writer);
+            }
+        }
+        return writer;
+    }
+
+    private static boolean isUtf8(MediaType contentType) {
+        Charset charset = contentType != null ? contentType.getCharset() : null;
+        return charset == null || StandardCharsets.UTF_8.equals(charset);
+    }
+}
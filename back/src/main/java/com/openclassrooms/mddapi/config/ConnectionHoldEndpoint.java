@@ -0,0 +1,41 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.ConnectionHoldReport;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Endpoint actuator /actuator/connectionholds : méthodes de service qui détiennent le plus longtemps
+ * les connexions JDBC, et connexions actuellement détenues
+ */
+@Endpoint(id = "connectionholds")
+public class ConnectionHoldEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final ConnectionHoldTracker tracker;
+
+    public ConnectionHoldEndpoint(ConnectionHoldTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    /**
+     * Rapport de détention des connexions
+     * @param limit Nombre de méthodes retournées (20 par défaut)
+     * @return Méthodes classées par durée maximale de détention, puis connexions ouvertes
+     */
+    @ReadOperation
+    public ConnectionHoldReport holds(@Nullable Integer limit) {
+        return tracker.report(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    /**
+     * Remet les statistiques à zéro
+     */
+    @DeleteOperation
+    public void reset() {
+        tracker.reset();
+    }
+}
@@ -0,0 +1,217 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.ConnectionHoldReport;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesure, par méthode de service, la durée pendant laquelle les connexions JDBC sont détenues
+ * (de l'obtention de la connexion à sa restitution au pool).
+ *
+ * La méthode est celle de la transaction en cours si elle est déjà connue, sinon le premier appel
+ * d'une classe du package services dans la pile d'appels.
+ */
+public class ConnectionHoldTracker {
+
+    private static final String SERVICES_PACKAGE = "com.openclassrooms.mddapi.services.";
+    private static final String UNKNOWN_OWNER = "(hors service)";
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Set<Hold> open = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Enveloppe un DataSource pour suivre ses connexions
+     * @param dataSource DataSource à suivre
+     * @return DataSource dont les connexions sont mesurées
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return track(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return track(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * Méthodes de service classées par durée maximale de détention, et connexions actuellement détenues
+     * @param limit Nombre maximal de méthodes retournées
+     * @return Rapport de détention des connexions
+     */
+    public ConnectionHoldReport report(int limit) {
+        List<ConnectionHoldReport.MethodStats> methods = stats.entrySet().stream()
+                .map(entry -> entry.getValue().toMethodStats(entry.getKey()))
+                .sorted(Comparator.comparingLong(ConnectionHoldReport.MethodStats::getMaxMs)
+                        .thenComparingLong(ConnectionHoldReport.MethodStats::getTotalMs)
+                        .reversed())
+                .limit(limit)
+                .toList();
+
+        long now = System.nanoTime();
+        List<ConnectionHoldReport.OpenHold> held = open.stream()
+                .sorted(Comparator.comparingLong(Hold::start))
+                .map(hold -> ConnectionHoldReport.OpenHold.builder()
+                        .method(hold.owner())
+                        .thread(hold.thread())
+                        .heldMs(TimeUnit.NANOSECONDS.toMillis(now - hold.start()))
+                        .build())
+                .toList();
+
+        return ConnectionHoldReport.builder()
+                .methods(methods)
+                .open(held)
+                .build();
+    }
+
+    /**
+     * Réinitialise les statistiques agrégées
+     */
+    public void reset() {
+        stats.clear();
+    }
+
+    private Connection track(Connection connection) {
+        Hold hold = new Hold(currentOwner(), Thread.currentThread().getName(), System.nanoTime());
+        open.add(hold);
+        AtomicBoolean closed = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(ConnectionHoldTracker.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "close" -> {
+                        if (closed.compareAndSet(false, true)) {
+                            release(hold);
+                        }
+                        yield invoke(connection, method, args);
+                    }
+                    case "createStatement", "prepareStatement", "prepareCall" -> statement(method.getReturnType(),
+                            (Statement) invoke(connection, method, args), (Connection) proxy);
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    /**
+     * Enveloppe une requête pour que Statement.getConnection() renvoie la connexion suivie : Spring la compare
+     * à celle de la transaction avant de la rendre (queryForStream), la connexion du pool serait fermée
+     */
+    private static Statement statement(Class<?> type, Statement statement, Connection connection) {
+        return (Statement) Proxy.newProxyInstance(ConnectionHoldTracker.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "getConnection" -> connection;
+                    default -> invoke(statement, method, args);
+                });
+    }
+
+    private void release(Hold hold) {
+        open.remove(hold);
+        stats.computeIfAbsent(hold.owner(), owner -> new Stats()).record(System.nanoTime() - hold.start());
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    static String currentOwner() {
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        if (transactionName != null && transactionName.startsWith(SERVICES_PACKAGE)) {
+            return transactionName.substring(SERVICES_PACKAGE.length());
+        }
+        // Connexion obtenue à l'ouverture de la transaction, avant que son nom ne soit connu
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(SERVICES_PACKAGE))
+                .findFirst()
+                .map(frame -> serviceName(frame.getClassName()) + "." + frame.getMethodName())
+                .orElse(transactionName != null ? transactionName : UNKNOWN_OWNER));
+    }
+
+    /**
+     * Nom de la classe de service, sans le package ni le suffixe des proxies CGLIB
+     */
+    private static String serviceName(String className) {
+        String name = className.substring(SERVICES_PACKAGE.length());
+        int proxySuffix = name.indexOf("$$");
+        return proxySuffix < 0 ? name : name.substring(0, proxySuffix);
+    }
+
+    /**
+     * Connexion détenue (égalité par identité : deux détentions peuvent avoir les mêmes valeurs)
+     */
+    private static final class Hold {
+        private final String owner;
+        private final String thread;
+        private final long start;
+
+        Hold(String owner, String thread, long start) {
+            this.owner = owner;
+            this.thread = thread;
+            this.start = start;
+        }
+
+        String owner() {
+            return owner;
+        }
+
+        String thread() {
+            return thread;
+        }
+
+        long start() {
+            return start;
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        ConnectionHoldReport.MethodStats toMethodStats(String method) {
+            long calls = count.sum();
+            long totalMs = TimeUnit.NANOSECONDS.toMillis(totalNanos.sum());
+            return ConnectionHoldReport.MethodStats.builder()
+                    .method(method)
+                    .count(calls)
+                    .totalMs(totalMs)
+                    .averageMs(calls == 0 ? 0 : (double) totalMs / calls)
+                    .maxMs(TimeUnit.NANOSECONDS.toMillis(maxNanos.get()))
+                    .build();
+        }
+    }
+}
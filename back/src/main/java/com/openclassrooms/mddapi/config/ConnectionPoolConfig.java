@@ -0,0 +1,119 @@
+package com.openclassrooms.mddapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Réglage des pools de connexions HikariCP.
+ *
+ * Les requêtes HTTP sont servies par un thread chacune et ne tiennent une connexion que le temps de leurs
+ * transactions : au-delà d'environ deux connexions par cœur, MySQL passe son temps à alterner entre
+ * les requêtes. La taille par défaut de chaque pool est donc min(2 × cœurs + 1, threads Tomcat), en pool
+ * fixe (minimum-idle = maximum-pool-size). Une valeur présente dans la configuration est toujours conservée.
+ */
+@Configuration
+public class ConnectionPoolConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolConfig.class);
+
+    // Cache des requêtes préparées du pilote MySQL (appliqué seulement si absent de la configuration)
+    private static final Map<String, String> MYSQL_PROPERTIES = Map.of(
+            "cachePrepStmts", "true",
+            "prepStmtCacheSize", "250",
+            "prepStmtCacheSqlLimit", "2048",
+            "useServerPrepStmts", "true",
+            "rewriteBatchedStatements", "true");
+
+    /**
+     * Applique la taille, les délais, la détection de fuites et le cache des requêtes préparées aux pools Hikari
+     */
+    @Bean
+    public static BeanPostProcessor hikariPoolCustomizer(Environment environment) {
+        return new BeanPostProcessor() {
+            // Avant l'initialisation : après la liaison des propriétés, avant l'enveloppe de suivi des connexions
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    // Préfixe des propriétés du pool (voir DataSourceRoutingConfig pour le réplica)
+                    String prefix = "replicaDataSource".equals(beanName) ? "datasource.replica" : "spring.datasource.hikari";
+                    customize(dataSource, prefix, environment);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Mesure le temps de détention des connexions du DataSource utilisé par JPA
+     */
+    @Bean
+    public ConnectionHoldTracker connectionHoldTracker() {
+        return new ConnectionHoldTracker();
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionHoldTrackingPostProcessor(ObjectProvider<ConnectionHoldTracker> tracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return tracker.getObject().wrap(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public ConnectionHoldEndpoint connectionHoldEndpoint(ConnectionHoldTracker tracker) {
+        return new ConnectionHoldEndpoint(tracker);
+    }
+
+    private static void customize(HikariDataSource dataSource, String prefix, Environment environment) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int requestThreads = environment.getProperty("server.tomcat.threads.max", Integer.class, 200);
+        int poolSize = Math.min(2 * cores + 1, requestThreads);
+
+        if (!environment.containsProperty(prefix + ".maximum-pool-size")) {
+            dataSource.setMaximumPoolSize(poolSize);
+        }
+        if (!environment.containsProperty(prefix + ".minimum-idle")) {
+            dataSource.setMinimumIdle(dataSource.getMaximumPoolSize());
+        }
+        // Une requête qui attend une connexion plus longtemps échoue plutôt que d'empiler les threads Tomcat
+        if (!environment.containsProperty(prefix + ".connection-timeout")) {
+            dataSource.setConnectionTimeout(Duration.ofSeconds(5).toMillis());
+        }
+        // Renouvelle les connexions avant le wait_timeout de MySQL et des équipements réseau
+        if (!environment.containsProperty(prefix + ".max-lifetime")) {
+            dataSource.setMaxLifetime(Duration.ofMinutes(25).toMillis());
+        }
+        if (!environment.containsProperty(prefix + ".leak-detection-threshold")) {
+            dataSource.setLeakDetectionThreshold(Duration.ofSeconds(30).toMillis());
+        }
+
+        String url = dataSource.getJdbcUrl();
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            MYSQL_PROPERTIES.forEach((key, value) -> {
+                if (!url.contains(key + "=")) {
+                    dataSource.getDataSourceProperties().putIfAbsent(key, value);
+                }
+            });
+        }
+
+        logger.info("Pool {} : {} connexions, attente max {} ms, détection de fuite après {} ms",
+                dataSource.getPoolName() != null ? dataSource.getPoolName() : prefix,
+                dataSource.getMaximumPoolSize(), dataSource.getConnectionTimeout(),
+                dataSource.getLeakDetectionThreshold());
+    }
+}
@@ -34,9 +34,16 @@ public class CorsConfig {
         config.addAllowedHeader("Accept");
         config.addAllowedHeader("Authorization");
         config.addAllowedHeader("X-Requested-With");
+        config.addAllowedHeader("Idempotency-Key");
+        // Requêtes conditionnelles (version des ressources)
+        config.addAllowedHeader("If-Match");
+        config.addAllowedHeader("If-None-Match");
         
         // Exposer les en-têtes nécessaires pour le client
         config.addExposedHeader("Authorization");
+        config.addExposedHeader("ETag");
+        config.addExposedHeader("X-Request-Id");
+        config.addExposedHeader("X-Trace-Id");
         
         // Appliquer cette configuration à tous les endpoints
         source.registerCorsConfiguration("/**", config);
@@ -0,0 +1,112 @@
+package com.openclassrooms.mddapi.config;
+
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.exceptions.InvalidRequestException;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Sélection des champs des réponses (paramètre fields=id,title,createdAt).
+ *
+ * Les DTO du paquet dto portent le filtre Jackson {@link #FILTER_ID} : sans sélection il laisse passer tous
+ * les champs, avec une sélection les autres champs ne sont pas sérialisés du tout (le contenu d'un article
+ * n'est ni lu ni encodé). La sélection s'applique à chaque objet de la réponse, éléments d'une liste compris.
+ */
+public final class FieldSelection {
+
+    public static final String PARAMETER = "fields";
+
+    static final String FILTER_ID = "fields";
+
+    // Filtres de l'ObjectMapper : le filtre n'est pas défini, tous les champs sont écrits
+    static final FilterProvider NO_FILTERS = new SimpleFilterProvider().setFailOnUnknownId(false);
+
+    private static final int MAX_FIELDS = 32;
+
+    private static final String DTO_PACKAGE = ArticleResponse.class.getPackageName();
+
+    private FieldSelection() {
+    }
+
+    /**
+     * Lit la valeur du paramètre fields
+     * @param fields Valeur du paramètre (noms séparés par des virgules), ou null
+     * @return Noms des champs demandés, ou null si aucune sélection n'est demandée
+     * @throws InvalidRequestException si un nom de champ n'est pas un identifiant valide
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!isIdentifier(name) || names.size() == MAX_FIELDS) {
+                throw new InvalidRequestException("Paramètre fields invalide: " + fields);
+            }
+            names.add(name);
+        }
+        return names.isEmpty() ? null : names;
+    }
+
+    /**
+     * Filtres à passer à l'ObjectWriter pour n'écrire que les champs demandés
+     * @param names Noms des champs conservés
+     * @return Filtres Jackson
+     */
+    public static FilterProvider filters(Set<String> names) {
+        return new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(names));
+    }
+
+    /**
+     * Indique si une sélection de champs est active pour la sérialisation en cours
+     * @param filterProvider Filtres de la sérialisation en cours
+     * @param value Objet sérialisé
+     * @return true si certains champs de l'objet peuvent être omis
+     */
+    static boolean isActive(FilterProvider filterProvider, Object value) {
+        return filterProvider != null && filterProvider != NO_FILTERS
+                && filterProvider.findPropertyFilter(FILTER_ID, value) != null;
+    }
+
+    /**
+     * Module qui associe le filtre {@link #FILTER_ID} aux DTO de réponse
+     */
+    static SimpleModule module() {
+        return new SimpleModule("field-selection") {
+            @Override
+            public void setupModule(SetupContext context) {
+                super.setupModule(context);
+                context.insertAnnotationIntrospector(new NopAnnotationIntrospector() {
+                    @Override
+                    public Object findFilterId(Annotated annotated) {
+                        return annotated instanceof AnnotatedClass annotatedClass
+                                && annotatedClass.getRawType().getPackageName().equals(DTO_PACKAGE) ? FILTER_ID : null;
+                    }
+                });
+            }
+        };
+    }
+
+    private static boolean isIdentifier(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
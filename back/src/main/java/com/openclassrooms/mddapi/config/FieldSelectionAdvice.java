@@ -0,0 +1,53 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applique le paramètre fields aux réponses des contrôleurs REST écrites par Jackson (JSON, CBOR ou Smile)
+ * et indique aux caches que la représentation dépend de l'en-tête Accept.
+ *
+ * Les réponses des gestionnaires d'exceptions ne sont pas filtrées. Sans paramètre fields, le corps n'est
+ * pas enveloppé et garde l'ObjectWriter préparé pour son type (CachingJacksonHttpMessageConverter).
+ */
+@ControllerAdvice(annotations = RestController.class)
+public class FieldSelectionAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        List<String> vary = response.getHeaders().getVary();
+        if (!vary.contains(HttpHeaders.ACCEPT)) {
+            response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (body == null || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        Set<String> fields = FieldSelection.parse(servletRequest.getServletRequest().getParameter(FieldSelection.PARAMETER));
+        if (fields == null) {
+            return body;
+        }
+        MappingJacksonValue value = body instanceof MappingJacksonValue container ? container : new MappingJacksonValue(body);
+        value.setFilters(FieldSelection.filters(fields));
+        return value;
+    }
+}
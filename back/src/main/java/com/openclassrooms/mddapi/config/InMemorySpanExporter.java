@@ -0,0 +1,203 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.TraceReport;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Exportateur OpenTelemetry qui garde les dernières traces en mémoire, pour les analyser sur /actuator/traces
+ * sans collecteur externe.
+ *
+ * Les traces sont évincées de la plus ancienne à la plus récente au-delà de maxTraces ; le nombre de spans
+ * d'une même trace est borné (traitement par lots, import en masse).
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private static final int MAX_SPANS_PER_TRACE = 1000;
+    private static final AttributeKey<String> LAYER = AttributeKey.stringKey(LayerObservationAspect.LAYER_KEY);
+
+    // Traces dans l'ordre de réception de leur premier span (protégé par this)
+    private final Map<String, List<SpanData>> traces;
+
+    /**
+     * @param maxTraces Nombre de traces conservées
+     */
+    public InMemorySpanExporter(int maxTraces) {
+        this.traces = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<SpanData>> eldest) {
+                return size() > maxTraces;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        for (SpanData span : spans) {
+            List<SpanData> trace = traces.computeIfAbsent(span.getTraceId(), traceId -> new ArrayList<>());
+            if (trace.size() < MAX_SPANS_PER_TRACE) {
+                trace.add(span);
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        traces.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Dernières traces reçues, sans leurs spans
+     * @param limit Nombre maximal de traces
+     * @return Traces de la plus récente à la plus ancienne
+     */
+    public List<TraceReport> recent(int limit) {
+        List<List<SpanData>> latest;
+        synchronized (this) {
+            latest = new ArrayList<>(traces.values());
+        }
+        List<TraceReport> reports = new ArrayList<>();
+        for (int i = latest.size() - 1; i >= 0 && reports.size() < limit; i--) {
+            reports.add(report(List.copyOf(latest.get(i)), false));
+        }
+        return reports;
+    }
+
+    /**
+     * Détail d'une trace
+     * @param traceId Identifiant de la trace
+     * @return Trace et ses spans, ou null si elle n'est plus (ou pas) en mémoire
+     */
+    public TraceReport trace(String traceId) {
+        List<SpanData> spans;
+        synchronized (this) {
+            List<SpanData> trace = traces.get(traceId);
+            spans = trace != null ? List.copyOf(trace) : null;
+        }
+        return spans != null ? report(spans, true) : null;
+    }
+
+    /**
+     * Oublie les traces gardées en mémoire
+     */
+    public synchronized void reset() {
+        traces.clear();
+    }
+
+    private static TraceReport report(List<SpanData> spans, boolean withSpans) {
+        List<SpanData> ordered = spans.stream()
+                .sorted(Comparator.comparingLong(SpanData::getStartEpochNanos))
+                .toList();
+        Set<String> ids = ordered.stream().map(SpanData::getSpanId).collect(Collectors.toSet());
+        long start = ordered.get(0).getStartEpochNanos();
+        long end = ordered.stream().mapToLong(SpanData::getEndEpochNanos).max().orElse(start);
+
+        // Temps propre : durée du span moins celle de ses enfants
+        Map<String, Long> childrenNanos = new HashMap<>();
+        Map<String, String> parents = new HashMap<>();
+        for (SpanData span : ordered) {
+            if (ids.contains(span.getParentSpanId())) {
+                parents.put(span.getSpanId(), span.getParentSpanId());
+                childrenNanos.merge(span.getParentSpanId(), duration(span), Long::sum);
+            }
+        }
+
+        Map<String, Long> layerNanos = new HashMap<>();
+        List<TraceReport.SpanNode> nodes = new ArrayList<>(ordered.size());
+        for (SpanData span : ordered) {
+            String layer = layer(span);
+            long self = Math.max(0, duration(span) - childrenNanos.getOrDefault(span.getSpanId(), 0L));
+            layerNanos.merge(layer, self, Long::sum);
+            if (withSpans) {
+                Map<String, String> attributes = new LinkedHashMap<>();
+                span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+                nodes.add(TraceReport.SpanNode.builder()
+                        .spanId(span.getSpanId())
+                        .parentSpanId(parents.get(span.getSpanId()))
+                        .depth(depth(span.getSpanId(), parents))
+                        .name(span.getName())
+                        .layer(layer)
+                        .startOffsetMs(millis(span.getStartEpochNanos() - start))
+                        .durationMs(millis(duration(span)))
+                        .selfMs(millis(self))
+                        .error(span.getStatus().getStatusCode() == StatusCode.ERROR)
+                        .attributes(attributes)
+                        .build());
+            }
+        }
+
+        Map<String, Double> layers = new LinkedHashMap<>();
+        layerNanos.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(entry -> layers.put(entry.getKey(), millis(entry.getValue())));
+
+        SpanData root = ordered.stream()
+                .filter(span -> !parents.containsKey(span.getSpanId()))
+                .findFirst()
+                .orElse(ordered.get(0));
+        return TraceReport.builder()
+                .traceId(root.getTraceId())
+                .name(root.getName())
+                .startedAt(Instant.ofEpochSecond(0, start))
+                .durationMs(millis(end - start))
+                .spanCount(ordered.size())
+                .layers(layers)
+                .spans(withSpans ? nodes : null)
+                .build();
+    }
+
+    /**
+     * Couche d'un span : attribut layer des observations de l'application (voir LayerObservationAspect),
+     * sinon déduite du span (requête HTTP, chaîne de filtres Spring Security)
+     */
+    private static String layer(SpanData span) {
+        String layer = span.getAttributes().get(LAYER);
+        if (layer != null) {
+            return layer;
+        }
+        if (span.getKind() == SpanKind.SERVER) {
+            return "http";
+        }
+        String name = span.getName();
+        return name.startsWith("security") || name.startsWith("authorize") || name.startsWith("authentication")
+                ? "security" : "other";
+    }
+
+    private static int depth(String spanId, Map<String, String> parents) {
+        int depth = 0;
+        for (String parent = parents.get(spanId); parent != null && depth < MAX_SPANS_PER_TRACE; parent = parents.get(parent)) {
+            depth++;
+        }
+        return depth;
+    }
+
+    private static long duration(SpanData span) {
+        return span.getEndEpochNanos() - span.getStartEpochNanos();
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
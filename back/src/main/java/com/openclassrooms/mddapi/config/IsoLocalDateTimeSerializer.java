@@ -0,0 +1,75 @@
+package com.openclassrooms.mddapi.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Écrit les LocalDateTime au format ISO-8601 (yyyy-MM-ddTHH:mm:ss[.fraction]) en remplissant directement
+ * un tableau de caractères, sans passer par DateTimeFormatter.
+ *
+ * La sortie est identique à celle de DateTimeFormatter.ISO_LOCAL_DATE_TIME (secondes toujours écrites,
+ * fraction sans zéros finaux). Les dates portant un @JsonFormat, les horodatages numériques et les années
+ * hors de 0..9999 restent écrits par LocalDateTimeSerializer.
+ */
+class IsoLocalDateTimeSerializer extends LocalDateTimeSerializer {
+
+    static final IsoLocalDateTimeSerializer INSTANCE = new IsoLocalDateTimeSerializer();
+
+    // yyyy-MM-ddTHH:mm:ss.nnnnnnnnn
+    private static final int MAX_LENGTH = 29;
+
+    private IsoLocalDateTimeSerializer() {
+        super();
+    }
+
+    @Override
+    public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        int year = value.getYear();
+        if (_formatter != null || useTimestamp(provider) || year < 0 || year > 9999) {
+            super.serialize(value, gen, provider);
+            return;
+        }
+        char[] buffer = new char[MAX_LENGTH];
+        buffer[0] = digit(year / 1000);
+        buffer[1] = digit(year / 100 % 10);
+        buffer[2] = digit(year / 10 % 10);
+        buffer[3] = digit(year % 10);
+        buffer[4] = '-';
+        twoDigits(buffer, 5, value.getMonthValue());
+        buffer[7] = '-';
+        twoDigits(buffer, 8, value.getDayOfMonth());
+        buffer[10] = 'T';
+        twoDigits(buffer, 11, value.getHour());
+        buffer[13] = ':';
+        twoDigits(buffer, 14, value.getMinute());
+        buffer[16] = ':';
+        twoDigits(buffer, 17, value.getSecond());
+        int length = 19;
+
+        int nano = value.getNano();
+        if (nano > 0) {
+            buffer[length++] = '.';
+            int divisor = 100_000_000;
+            // Chiffres écrits jusqu'au dernier non nul
+            while (nano > 0) {
+                buffer[length++] = digit(nano / divisor);
+                nano %= divisor;
+                divisor /= 10;
+            }
+        }
+        gen.writeString(buffer, 0, length);
+    }
+
+    private static void twoDigits(char[] buffer, int offset, int value) {
+        buffer[offset] = digit(value / 10);
+        buffer[offset + 1] = digit(value % 10);
+    }
+
+    private static char digit(int value) {
+        return (char) ('0' + value);
+    }
+}
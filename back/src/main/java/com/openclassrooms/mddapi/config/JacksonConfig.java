@@ -1,27 +1,137 @@
 package com.openclassrooms.mddapi.config;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationConfig;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.services.ArticleJsonCache;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration de Jackson pour la sérialisation/désérialisation JSON
+ *
+ * Mode performance (jackson.performance-mode.enabled, actif par défaut) :
+ * - accesseurs générés par Blackbird au lieu de la réflexion (pas dans une image native, qui ne peut pas
+ *   définir de classes à l'exécution),
+ * - dates écrites par IsoLocalDateTimeSerializer (même format ISO-8601),
+ * - champs null omis des réponses,
+ * - un ObjectWriter préparé par type de réponse (CachingJacksonHttpMessageConverter).
+ * Les réponses sont aussi disponibles en CBOR et Smile (en-tête Accept), et les DTO acceptent la
+ * sélection de champs (FieldSelection).
+ * Comparaison des deux modes : benchmarks/JacksonSerializationBenchmarkTest
  */
 @Configuration
 public class JacksonConfig {
 
+    @Value("${jackson.performance-mode.enabled:true}")
+    private boolean performanceMode;
+
     /**
      * Configure l'ObjectMapper pour la sérialisation/désérialisation
-     * Particulierèrement pour les dates, on utilise le format ISO-8601
+     * Particulierèrement pour les dates, on utilise le format ISO-8601.
+     * Les articles sont écrits depuis leur représentation en cache (ArticleJsonCache)
+     */
+    @Bean
+    public ObjectMapper objectMapper(ObjectProvider<ArticleJsonCache> articleJsonCache) {
+        return buildObjectMapper(performanceMode, articleJsonCache);
+    }
+
+    /**
+     * Convertisseur JSON des réponses MVC (remplace celui de Spring Boot), observé et,
+     * en mode performance, avec un ObjectWriter préparé par type de réponse
      */
     @Bean
-    public ObjectMapper objectMapper() {
-        return Jackson2ObjectMapperBuilder.json()
-                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
-                .modules(new JavaTimeModule())
-                .build();
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   ObservationRegistry observationRegistry) {
+        return new CachingJacksonHttpMessageConverter(objectMapper, observationRegistry, performanceMode);
+    }
+
+    /**
+     * Convertisseur CBOR (application/cbor), choisi quand l'en-tête Accept le préfère au JSON
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter mappingJackson2CborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.cbor(), performanceMode, null));
+    }
+
+    /**
+     * Convertisseur Smile (application/x-jackson-smile), choisi quand l'en-tête Accept le préfère au JSON
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter mappingJackson2SmileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(configure(Jackson2ObjectMapperBuilder.smile(), performanceMode, null));
+    }
+
+    /**
+     * Construit l'ObjectMapper JSON de l'application (aussi utilisé par les benchmarks)
+     * @param performanceMode Active Blackbird, le sérialiseur de dates rapide et l'omission des null
+     * @param articleJsonCache Cache des représentations d'articles (fournisseur vide : pas de cache)
+     * @return ObjectMapper configuré
+     */
+    public static ObjectMapper buildObjectMapper(boolean performanceMode, ObjectProvider<ArticleJsonCache> articleJsonCache) {
+        return configure(Jackson2ObjectMapperBuilder.json(), performanceMode, articleJsonCache);
+    }
+
+    /**
+     * Configuration commune aux formats JSON, CBOR et Smile. Le cache d'articles (octets JSON) n'est
+     * utilisé que pour le JSON.
+     */
+    private static <T extends ObjectMapper> T configure(Jackson2ObjectMapperBuilder builder, boolean performanceMode,
+                                                        ObjectProvider<ArticleJsonCache> articleJsonCache) {
+        List<Module> modules = new ArrayList<>();
+        modules.add(new JavaTimeModule());
+        modules.add(FieldSelection.module());
+        builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .filters(FieldSelection.NO_FILTERS);
+        if (performanceMode) {
+            // Enregistré après JavaTimeModule : son sérialiseur de LocalDateTime l'emporte
+            modules.add(new SimpleModule("iso-local-date-time")
+                    .addSerializer(LocalDateTime.class, IsoLocalDateTimeSerializer.INSTANCE));
+            if (!NativeDetector.inNativeImage()) {
+                modules.add(new BlackbirdModule());
+            }
+            builder.serializationInclusion(JsonInclude.Include.NON_NULL);
+        }
+        if (articleJsonCache != null) {
+            modules.add(articleJsonCacheModule(articleJsonCache));
+        }
+        return builder.modules(modules).build();
+    }
+
+    private static SimpleModule articleJsonCacheModule(ObjectProvider<ArticleJsonCache> articleJsonCache) {
+        SimpleModule module = new SimpleModule("article-json-cache");
+        module.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                if (beanDesc.getBeanClass() == ArticleResponse.class) {
+                    return new CachedArticleSerializer((JsonSerializer<Object>) serializer, articleJsonCache);
+                }
+                return serializer;
+            }
+        });
+        return module;
     }
 }
@@ -0,0 +1,71 @@
+package com.openclassrooms.mddapi.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Observation (span et timer) de chaque appel aux contrôleurs, aux services et aux repositories, nommée
+ * par classe et méthode (article-service.get-feed dans les spans) et marquée de sa couche (clé layer).
+ *
+ * Les spans s'imbriquent sous celui de la requête HTTP : la répartition du temps d'une requête entre
+ * les couches est visible sur /actuator/traces.
+ */
+@Aspect
+public class LayerObservationAspect {
+
+    public static final String LAYER_KEY = "layer";
+
+    private static final String APPLICATION_PACKAGE = "com.openclassrooms.mddapi.";
+
+    private final ObservationRegistry observationRegistry;
+
+    // Interface de l'application implémentée par chaque proxy de repository
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public LayerObservationAspect(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController) && execution(public * *(..))")
+    public Object observeController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return observe(joinPoint, "controller", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName());
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object observeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return observe(joinPoint, "service", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName());
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object observeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return observe(joinPoint, "repository",
+                repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(), type -> repositoryName(joinPoint.getThis())));
+    }
+
+    private Object observe(ProceedingJoinPoint joinPoint, String layer, String owner) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        return Observation.createNotStarted("mdd." + layer, observationRegistry)
+                .contextualName(owner + "." + method)
+                .lowCardinalityKeyValue(LAYER_KEY, layer)
+                .lowCardinalityKeyValue("class", owner)
+                .lowCardinalityKeyValue("method", method)
+                .observeChecked(() -> joinPoint.proceed());
+    }
+
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (type.getName().startsWith(APPLICATION_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.mddapi.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Échantillonnage des logs d'une catégorie (déclaré dans logback-spring.xml) : seul un événement sur
+ * rate, de niveau inférieur ou égal à level, est conservé pour les loggers dont le nom commence par prefix.
+ * Les WARN et ERROR (au-delà de level) ne sont jamais échantillonnés.
+ *
+ * Le filtre est évalué avant la création de l'événement : les événements écartés ne coûtent ni formatage
+ * ni place dans la file de l'appender asynchrone.
+ */
+public class LogSamplingTurboFilter extends TurboFilter {
+
+    private String prefix = "";
+    private Level level = Level.INFO;
+    private int rate = 1;
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level eventLevel, String format, Object[] params, Throwable t) {
+        // format null : appel de isXxxEnabled(), qui ne doit pas consommer l'échantillon
+        if (!isStarted() || rate <= 1 || format == null
+                || eventLevel.toInt() > level.toInt()
+                || !eventLevel.isGreaterOrEqual(logger.getEffectiveLevel())
+                || !logger.getName().startsWith(prefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setPrefix(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public void setLevel(String level) {
+        this.level = Level.toLevel(level, Level.INFO);
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+}
@@ -0,0 +1,116 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.exceptions.ErrorResponse;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.models.UserTheme;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.services.CommentWriteBehindService;
+import com.openclassrooms.mddapi.validation.StrongPasswordValidator;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.projection.TargetAware;
+import org.springframework.util.ClassUtils;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Métadonnées d'accessibilité de l'image native (profil Maven native) pour ce que le traitement AOT
+ * de Spring ne déduit pas des beans :
+ * - DTO du paquet dto et ErrorResponse, écrits en flux par Jackson, renvoyés en ResponseEntity<?> ou décrits
+ *   par springdoc, ainsi que les lignes des journaux de l'écriture différée des commentaires,
+ * - entités Hibernate et projection ArticleContent (proxy JDK de Spring Data),
+ * - proxys JDK de ConnectionHoldTracker et SlowQueryTracker autour des connexions, requêtes et résultats JDBC
+ *   (interfaces choisies à l'exécution, que native-image ne détecte pas),
+ * - implémentations de jjwt chargées par leur nom (Jwts) ou par ServiceLoader (jjwt-jackson),
+ * - classes de logback-spring.xml, validateur @StrongPassword et fichiers ehcache.xml et logback-spring.xml.
+ * Les bibliothèques couvertes par le dépôt de métadonnées GraalVM (Hibernate, Ehcache, pilote MySQL)
+ * ou par leurs propres hints (springdoc) n'ont rien à déclarer ici.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String DTO_PACKAGE = ArticleResponse.class.getPackageName();
+
+    private static final List<Class<?>> ENTITIES = List.of(Article.class, Comment.class, Theme.class, User.class, UserTheme.class);
+
+    private static final List<Class<?>> JDBC_PROXY_INTERFACES = List.of(Connection.class, Statement.class,
+            PreparedStatement.class, CallableStatement.class, ResultSet.class);
+
+    private static final List<String> JJWT_CLASSES = List.of(
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer");
+
+    private static final List<String> LOGBACK_CLASSES = List.of(
+            "ch.qos.logback.classic.AsyncAppender",
+            "ch.qos.logback.classic.encoder.JsonEncoder",
+            LogSamplingTurboFilter.class.getName());
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+        for (Class<?> dto : dtoClasses(classLoader)) {
+            bindingRegistrar.registerReflectionHints(hints.reflection(), dto);
+        }
+        bindingRegistrar.registerReflectionHints(hints.reflection(), ErrorResponse.class);
+        bindingRegistrar.registerReflectionHints(hints.reflection(), CommentWriteBehindService.PendingComment.class,
+                CommentWriteBehindService.RejectedComment.class);
+
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        hints.proxies().registerJdkProxy(AopProxyUtils.completeJdkProxyInterfaces(
+                ArticleRepository.ArticleContent.class, TargetAware.class));
+        for (Class<?> jdbcInterface : JDBC_PROXY_INTERFACES) {
+            hints.proxies().registerJdkProxy(jdbcInterface);
+        }
+
+        for (String className : JJWT_CLASSES) {
+            hints.reflection().registerType(TypeReference.of(className), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+        for (String className : LOGBACK_CLASSES) {
+            hints.reflection().registerType(TypeReference.of(className),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.reflection().registerType(StrongPasswordValidator.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        hints.resources().registerPattern("ehcache.xml");
+        hints.resources().registerPattern("logback-spring.xml");
+    }
+
+    /**
+     * Classes du paquet dto (classes imbriquées comprises), lues au traitement AOT
+     */
+    static List<Class<?>> dtoClasses(ClassLoader classLoader) {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+        scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+        return scanner.findCandidateComponents(DTO_PACKAGE).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .<Class<?>>map(className -> ClassUtils.resolveClassName(className, classLoader))
+                .toList();
+    }
+}
@@ -0,0 +1,98 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Mémorise les utilisateurs qui viennent d'écrire : pendant la fenêtre configurée, leurs lectures
+ * restent sur le primaire afin qu'ils voient immédiatement ce qu'ils ont publié, même si le réplica est en retard.
+ *
+ * L'utilisateur est marqué à la validation d'une transaction en écriture. Le suivi est local à l'instance.
+ */
+public class ReadYourWritesTracker {
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    // Ressource liée à la transaction : évite d'enregistrer plusieurs fois la synchronisation
+    private static final Object SYNCHRONIZATION_KEY = new Object();
+
+    private final long stickyNanos;
+
+    // Utilisateur -> fin de la fenêtre de lecture sur le primaire (System.nanoTime)
+    private final Map<String, Long> stickyUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration stickyWindow) {
+        this.stickyNanos = stickyWindow.toNanos();
+    }
+
+    /**
+     * Appelé quand la transaction courante obtient une connexion en écriture :
+     * l'utilisateur courant sera marqué à la validation de la transaction
+     */
+    public void registerWrite() {
+        String user = currentUser();
+        if (user == null
+                || !TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(SYNCHRONIZATION_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(SYNCHRONIZATION_KEY, user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markWrite(user);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SYNCHRONIZATION_KEY);
+            }
+        });
+    }
+
+    /**
+     * Indique si l'utilisateur courant doit lire sur le primaire
+     * @return true si l'utilisateur a écrit pendant la fenêtre configurée
+     */
+    public boolean isSticky() {
+        String user = currentUser();
+        if (user == null) {
+            return false;
+        }
+        Long until = stickyUntil.get(user);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        stickyUntil.remove(user, until);
+        return false;
+    }
+
+    /**
+     * Marque un utilisateur comme venant d'écrire
+     * @param user Nom de l'utilisateur authentifié
+     */
+    public void markWrite(String user) {
+        long now = System.nanoTime();
+        stickyUntil.put(user, now + stickyNanos);
+        if (stickyUntil.size() > CLEANUP_THRESHOLD) {
+            stickyUntil.values().removeIf(until -> until - now <= 0);
+        }
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication.getName() == null) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,122 @@
+package com.openclassrooms.mddapi.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le retard de réplication à l'aide d'une table de battements de cœur.
+ *
+ * À chaque sonde, le dernier battement visible sur le réplica est lu puis un nouveau battement est écrit sur
+ * le primaire. Tant que le réplica n'a pas appliqué le dernier battement écrit, son retard est au moins
+ * l'âge du battement qu'il voit.
+ * Le réplica n'est utilisé que si ce retard ne dépasse pas le maximum configuré ; il est écarté tant
+ * qu'aucune sonde n'a réussi et dès qu'une sonde échoue.
+ *
+ * La table replica_heartbeat est créée par les scripts de db/mysql (schema.sql, upgrade/004-replica-heartbeat.sql) :
+ * l'application n'exécute pas de DDL sur le primaire.
+ */
+public class ReplicaLagMonitor implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+    private final long intervalMillis;
+
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+    private volatile boolean replicaUsable;
+    private volatile long lagMillis = -1;
+    private long lastBeat;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, Duration maxLag, Duration interval) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLag.toMillis();
+        this.intervalMillis = interval.toMillis();
+    }
+
+    /**
+     * Indique si le réplica peut servir les lectures
+     * @return false si le retard dépasse le maximum ou si le réplica n'a pas pu être sondé
+     */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    /**
+     * Dernier retard mesuré
+     * @return Retard en millisecondes, -1 si aucune mesure n'a réussi
+     */
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Lit le battement visible sur le réplica, met à jour l'état puis écrit un nouveau battement sur le primaire
+     */
+    public synchronized void probe() {
+        try {
+            Long seen = replica.query("SELECT beat_millis FROM replica_heartbeat WHERE id = 1",
+                    rs -> rs.next() ? rs.getLong(1) : null);
+            if (seen != null && lastBeat != 0) {
+                boolean wasUsable = replicaUsable;
+                lagMillis = seen >= lastBeat ? 0 : System.currentTimeMillis() - seen;
+                replicaUsable = lagMillis <= maxLagMillis;
+                if (wasUsable && !replicaUsable) {
+                    logger.warn("Réplica en retard de {} ms, lectures redirigées vers le primaire", lagMillis);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (replicaUsable) {
+                logger.warn("Sonde du réplica en échec, lectures redirigées vers le primaire: {}", e.getMessage());
+            }
+            replicaUsable = false;
+            lagMillis = -1;
+        }
+
+        try {
+            long beat = System.currentTimeMillis();
+            if (primary.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", beat) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", beat);
+            }
+            lastBeat = beat;
+        } catch (RuntimeException e) {
+            logger.warn("Écriture du battement sur le primaire impossible (table replica_heartbeat créée par "
+                    + "db/mysql/upgrade/004-replica-heartbeat.sql ?): {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,57 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource qui envoie les transactions en lecture seule vers le réplica et tout le reste vers le primaire.
+ *
+ * Le réplica n'est utilisé que si son retard est acceptable ({@link ReplicaLagMonitor}) et si l'utilisateur
+ * courant n'a pas écrit récemment ({@link ReadYourWritesTracker}). Doit être enveloppée dans un
+ * LazyConnectionDataSourceProxy : la connexion physique n'est alors choisie qu'à la première requête,
+ * une fois le caractère lecture seule de la transaction connu.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Cible d'une connexion
+     */
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReplicaLagMonitor lagMonitor, ReadYourWritesTracker readYourWritesTracker) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    /**
+     * Détermine la cible de la connexion demandée par la transaction courante
+     * @return PRIMARY ou REPLICA
+     */
+    public Route currentRoute() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWritesTracker.registerWrite();
+            return Route.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable() || readYourWritesTracker.isSticky()) {
+            return Route.PRIMARY;
+        }
+        return Route.REPLICA;
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.mddapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Négociation du format des réponses écrites directement dans le flux de sortie (listes en flux),
+ * qui ne passent pas par les convertisseurs de Spring MVC : JSON par défaut, CBOR ou Smile si l'en-tête
+ * Accept les préfère, avec la sélection de champs du paramètre fields.
+ */
+@Component
+public class ResponseFormats {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter smileConverter;
+
+    private List<Format> formats;
+
+    /**
+     * Format retenu pour une réponse
+     * @param mediaType Type de contenu de la réponse
+     * @param writer ObjectWriter du format, avec la sélection de champs éventuelle
+     * @param plainJson true pour du JSON sans sélection de champs (représentation par défaut, déjà en cache)
+     */
+    public record Format(MediaType mediaType, ObjectWriter writer, boolean plainJson) {
+    }
+
+    @PostConstruct
+    void init() {
+        formats = List.of(
+                new Format(MediaType.APPLICATION_JSON, objectMapper.writer(), true),
+                new Format(MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper().writer(), false),
+                new Format(APPLICATION_SMILE, smileConverter.getObjectMapper().writer(), false));
+    }
+
+    /**
+     * Choisit le format de la réponse et renseigne ses en-têtes (Content-Type, Vary)
+     * @param request Requête HTTP (en-tête Accept, paramètre fields)
+     * @param response Réponse HTTP
+     * @return Format dans lequel écrire la réponse
+     */
+    public Format negotiate(HttpServletRequest request, HttpServletResponse response) {
+        Format format = select(request.getHeader(HttpHeaders.ACCEPT));
+        Set<String> fields = FieldSelection.parse(request.getParameter(FieldSelection.PARAMETER));
+        if (fields != null) {
+            format = new Format(format.mediaType(), format.writer().with(FieldSelection.filters(fields)), false);
+        }
+        response.setContentType(format.mediaType().toString());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return format;
+    }
+
+    private Format select(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return formats.get(0);
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return formats.get(0);
+        }
+        // Tri stable : à qualité égale, l'ordre du client est conservé
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                break;
+            }
+            for (Format format : formats) {
+                if (mediaType.includes(format.mediaType())) {
+                    return format;
+                }
+            }
+        }
+        return formats.get(0);
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.mddapi.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.CacheManager;
+import java.io.IOException;
+
+/**
+ * Cache de second niveau Hibernate (JCache, implémentation Ehcache) pour les entités User et Theme
+ * et leurs identifiants naturels (email, nom).
+ *
+ * Les régions et leurs limites sont déclarées dans ehcache.xml ; les statistiques Hibernate sont activées
+ * pour l'endpoint /actuator/secondlevelcache. Chaque réglage peut être remplacé dans la configuration
+ * (spring.jpa.properties.hibernate.*).
+ *
+ * Le CacheManager appartient au contexte Spring : le fournisseur JCache partagé (Caching.getCachingProvider)
+ * renverrait le même à tous les contextes d'une JVM qui lisent ehcache.xml (tests), avec des régions
+ * communes à des bases différentes.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() throws IOException {
+        // Fournisseur propre à ce contexte, fermé avec lui
+        return new EhcacheCachingProvider().getCacheManager(
+                new ClassPathResource("ehcache.xml").getURI(), getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.putIfAbsent("hibernate.cache.use_second_level_cache", "true");
+            properties.putIfAbsent("hibernate.cache.region.factory_class", "jcache");
+            properties.putIfAbsent("hibernate.javax.cache.cache_manager", secondLevelCacheManager);
+            // Une région absente d'ehcache.xml est une erreur de configuration, pas un cache créé sans limite
+            properties.putIfAbsent("hibernate.javax.cache.missing_cache_strategy", "fail");
+            properties.putIfAbsent("hibernate.generate_statistics", "true");
+            // Statistiques sans journalisation de chaque session
+            properties.putIfAbsent("hibernate.session.events.log", "false");
+        };
+    }
+
+    @Bean
+    public SecondLevelCacheEndpoint secondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        return new SecondLevelCacheEndpoint(entityManagerFactory);
+    }
+}
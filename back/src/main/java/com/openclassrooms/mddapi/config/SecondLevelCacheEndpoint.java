@@ -0,0 +1,51 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.CacheRegionReport;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Endpoint actuator /actuator/secondlevelcache : statistiques des régions du cache de second niveau
+ */
+@Endpoint(id = "secondlevelcache")
+public class SecondLevelCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SecondLevelCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Succès, échecs, insertions et taille de chaque région
+     * @return Statistiques par région, triées par nom
+     */
+    @ReadOperation
+    public List<CacheRegionReport> regions() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(region -> toReport(region, statistics.getDomainDataRegionStatistics(region)))
+                .toList();
+    }
+
+    private static CacheRegionReport toReport(String region, CacheRegionStatistics stats) {
+        long hits = stats.getHitCount();
+        long misses = stats.getMissCount();
+        return CacheRegionReport.builder()
+                .region(region)
+                .hits(hits)
+                .misses(misses)
+                .puts(stats.getPutCount())
+                .hitRatio(hits + misses == 0 ? 0 : (double) hits / (hits + misses))
+                .elementsInMemory(stats.getElementCountInMemory())
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Journal des requêtes SQL lentes, à la place de spring.jpa.show-sql qui écrit chaque requête sur la console.
+ *
+ * Les requêtes du DataSource utilisé par JPA (primaire et réplica) qui dépassent datasource.slow-query.threshold
+ * sont journalisées et les top-size plus lentes sont exposées sur /actuator/slowqueries.
+ * Leurs paramètres n'y figurent que par leur type et leur longueur, sauf avec
+ * datasource.slow-query.log-parameter-values=true (développement uniquement).
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.slow-query.enabled", havingValue = "true", matchIfMissing = true)
+public class SlowQueryConfig {
+
+    @Bean
+    public SlowQueryTracker slowQueryTracker(@Value("${datasource.slow-query.threshold:200ms}") Duration threshold,
+                                             @Value("${datasource.slow-query.top-size:20}") int topSize,
+                                             @Value("${datasource.slow-query.log-parameter-values:false}") boolean logParameterValues) {
+        return new SlowQueryTracker(threshold, topSize, logParameterValues);
+    }
+
+    @Bean
+    public static BeanPostProcessor slowQueryTrackingPostProcessor(ObjectProvider<SlowQueryTracker> tracker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource) {
+                    return tracker.getObject().wrap(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint(SlowQueryTracker tracker) {
+        return new SlowQueryEndpoint(tracker);
+    }
+}
@@ -0,0 +1,41 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.SlowQueryReport;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+/**
+ * Endpoint actuator /actuator/slowqueries : requêtes SQL les plus lentes, avec leurs paramètres,
+ * la méthode de service appelante et le nombre de lignes
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SlowQueryTracker tracker;
+
+    public SlowQueryEndpoint(SlowQueryTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    /**
+     * Rapport des requêtes lentes
+     * @param limit Nombre de requêtes retournées (20 par défaut)
+     * @return Requêtes classées de la plus lente à la plus rapide
+     */
+    @ReadOperation
+    public SlowQueryReport slowQueries(@Nullable Integer limit) {
+        return tracker.report(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    /**
+     * Oublie les requêtes lentes enregistrées
+     */
+    @DeleteOperation
+    public void reset() {
+        tracker.reset();
+    }
+}
@@ -0,0 +1,362 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.SlowQueryReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Journal des requêtes SQL lentes : chaque exécution qui dépasse le seuil est journalisée (WARN) avec ses
+ * paramètres, la méthode de service appelante et le nombre de lignes, et les plus lentes sont conservées
+ * pour l'endpoint /actuator/slowqueries.
+ *
+ * Seul le temps d'exécution est mesuré (execute*), pas le parcours du résultat. Les lignes d'un SELECT
+ * lent sont comptées pendant son parcours et l'exécution est enregistrée à la fermeture du ResultSet.
+ * Les requêtes rapides ne coûtent qu'une mesure de temps et la copie de leurs paramètres.
+ *
+ * Les paramètres ne sont rapportés que par leur type et leur longueur : les requêtes sur users portent des
+ * adresses email et des mots de passe hachés. Leurs valeurs ne sont journalisées que si logParameterValues
+ * est activé (développement), sauf pour les requêtes qui touchent une colonne password ou email.
+ */
+public class SlowQueryTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryTracker.class);
+
+    private static final int MAX_SQL_LENGTH = 2000;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    private static final Pattern SENSITIVE_COLUMN = Pattern.compile("password|email", Pattern.CASE_INSENSITIVE);
+
+    private static final Comparator<SlowQueryReport.SlowQuery> BY_DURATION =
+            Comparator.comparingLong(SlowQueryReport.SlowQuery::getDurationMs);
+
+    private final long thresholdNanos;
+    private final int topSize;
+    private final boolean logParameterValues;
+
+    // Tas des requêtes les plus lentes, la plus rapide en tête (protégé par this)
+    private final PriorityQueue<SlowQueryReport.SlowQuery> slowest;
+    private final LongAdder slowCount = new LongAdder();
+
+    /**
+     * @param threshold Durée d'exécution à partir de laquelle une requête est considérée lente
+     * @param topSize Nombre de requêtes les plus lentes conservées
+     * @param logParameterValues Rapporte la valeur des paramètres au lieu de leur type et de leur longueur
+     */
+    public SlowQueryTracker(Duration threshold, int topSize, boolean logParameterValues) {
+        this.thresholdNanos = threshold.toNanos();
+        this.topSize = Math.max(1, topSize);
+        this.logParameterValues = logParameterValues;
+        this.slowest = new PriorityQueue<>(this.topSize + 1, BY_DURATION);
+    }
+
+    /**
+     * Enveloppe un DataSource pour mesurer ses requêtes
+     * @param dataSource DataSource à suivre
+     * @return DataSource dont les requêtes lentes sont journalisées
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new DelegatingDataSource(dataSource) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return track(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return track(super.getConnection(username, password));
+            }
+        };
+    }
+
+    /**
+     * Requêtes les plus lentes, de la plus lente à la plus rapide
+     * @param limit Nombre maximal de requêtes retournées
+     * @return Rapport des requêtes lentes
+     */
+    public synchronized SlowQueryReport report(int limit) {
+        return SlowQueryReport.builder()
+                .thresholdMs(TimeUnit.NANOSECONDS.toMillis(thresholdNanos))
+                .slowCount(slowCount.sum())
+                .slowest(slowest.stream()
+                        .sorted(BY_DURATION.reversed())
+                        .limit(limit)
+                        .toList())
+                .build();
+    }
+
+    /**
+     * Oublie les requêtes lentes enregistrées
+     */
+    public synchronized void reset() {
+        slowest.clear();
+        slowCount.reset();
+    }
+
+    private synchronized void record(SlowQueryReport.SlowQuery query) {
+        slowCount.increment();
+        slowest.add(query);
+        if (slowest.size() > topSize) {
+            slowest.poll();
+        }
+    }
+
+    private Connection track(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(SlowQueryTracker.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "prepareStatement" -> statement(PreparedStatement.class,
+                            (Statement) invoke(connection, method, args), (Connection) proxy, (String) args[0]);
+                    case "prepareCall" -> statement(CallableStatement.class,
+                            (Statement) invoke(connection, method, args), (Connection) proxy, (String) args[0]);
+                    case "createStatement" -> statement(Statement.class, (Statement) invoke(connection, method, args),
+                            (Connection) proxy, null);
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    private Statement statement(Class<? extends Statement> type, Statement statement, Connection connection, String sql) {
+        return (Statement) Proxy.newProxyInstance(SlowQueryTracker.class.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, connection, sql, type != Statement.class));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength) + "…";
+    }
+
+    private static String format(Object value, boolean withValue) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof byte[] bytes) {
+            return "<" + bytes.length + " octets>";
+        }
+        if (value instanceof InputStream || value instanceof Reader) {
+            return "<" + value.getClass().getSimpleName() + ">";
+        }
+        if (!withValue) {
+            return value instanceof CharSequence text
+                    ? "<" + text.length() + " caractères>"
+                    : "<" + value.getClass().getSimpleName() + ">";
+        }
+        String text = truncate(value.toString(), MAX_PARAMETER_LENGTH);
+        return value instanceof CharSequence ? "'" + text + "'" : text;
+    }
+
+    /**
+     * Intercepte les paramètres et les exécutions d'une requête
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        // Connexion suivie qui a créé la requête : Spring la compare à celle de la transaction avant de la rendre
+        private final Connection connection;
+        private final String sql;
+        private final boolean prepared;
+
+        private Object[] parameters;
+        private int batchSize;
+        // Exécution lente dont le résultat est en cours de parcours
+        private Execution pending;
+
+        StatementHandler(Statement target, Connection connection, String sql, boolean prepared) {
+            this.target = target;
+            this.connection = connection;
+            this.sql = sql;
+            this.prepared = prepared;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return connection;
+                default:
+                    break;
+            }
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+
+            Object result = SlowQueryTracker.invoke(target, method, args);
+            if (prepared && name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                bind(index, "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                parameters = null;
+            } else if ("addBatch".equals(name)) {
+                batchSize++;
+            } else if ("clearBatch".equals(name)) {
+                batchSize = 0;
+            } else if ("close".equals(name) && pending != null) {
+                pending.finish();
+            }
+            return result;
+        }
+
+        private void bind(int index, Object value) {
+            if (parameters == null) {
+                parameters = new Object[Math.max(index, 8)];
+            } else if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = value;
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            Object result = SlowQueryTracker.invoke(target, method, args);
+            long elapsed = System.nanoTime() - start;
+
+            String name = method.getName();
+            int batch = batchSize;
+            if (name.endsWith("Batch")) {
+                batchSize = 0;
+            }
+            if (elapsed < thresholdNanos) {
+                return result;
+            }
+
+            String executedSql = sql != null ? sql : (args != null && args.length > 0 ? (String) args[0] : null);
+            Execution execution = new Execution(executedSql, formattedParameters(executedSql), ConnectionHoldTracker.currentOwner(),
+                    elapsed, batch);
+            switch (name) {
+                case "executeQuery" -> {
+                    // Lignes comptées pendant le parcours, enregistrement à la fermeture
+                    pending = execution;
+                    return execution.countRows((ResultSet) result);
+                }
+                case "executeUpdate", "executeLargeUpdate" -> execution.finish(((Number) result).longValue());
+                case "executeBatch" -> execution.finish(Arrays.stream((int[]) result).asLongStream().sum());
+                case "executeLargeBatch" -> execution.finish(Arrays.stream((long[]) result).sum());
+                default -> execution.finish(Boolean.FALSE.equals(result) ? target.getLargeUpdateCount() : -1);
+            }
+            return result;
+        }
+
+        private List<String> formattedParameters(String executedSql) {
+            if (parameters == null) {
+                return List.of();
+            }
+            boolean withValues = logParameterValues
+                    && (executedSql == null || !SENSITIVE_COLUMN.matcher(executedSql).find());
+            List<String> formatted = new ArrayList<>(parameters.length);
+            int last = parameters.length;
+            while (last > 0 && parameters[last - 1] == null) {
+                last--;
+            }
+            for (int i = 0; i < last; i++) {
+                formatted.add(format(parameters[i], withValues));
+            }
+            return formatted;
+        }
+    }
+
+    /**
+     * Exécution lente, enregistrée une seule fois avec son nombre de lignes
+     */
+    private final class Execution {
+        private final String sql;
+        private final List<String> parameters;
+        private final String owner;
+        private final String thread = Thread.currentThread().getName();
+        private final long elapsedNanos;
+        private final int batchSize;
+        private final Instant executedAt = Instant.now();
+
+        private long rows;
+        private boolean finished;
+
+        Execution(String sql, List<String> parameters, String owner, long elapsedNanos, int batchSize) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.owner = owner;
+            this.elapsedNanos = elapsedNanos;
+            this.batchSize = batchSize;
+        }
+
+        ResultSet countRows(ResultSet resultSet) {
+            return (ResultSet) Proxy.newProxyInstance(SlowQueryTracker.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "next" -> {
+                            Object hasRow = SlowQueryTracker.invoke(resultSet, method, args);
+                            if (Boolean.TRUE.equals(hasRow)) {
+                                rows++;
+                            }
+                            yield hasRow;
+                        }
+                        case "close" -> {
+                            try {
+                                yield SlowQueryTracker.invoke(resultSet, method, args);
+                            } finally {
+                                finish();
+                            }
+                        }
+                        default -> SlowQueryTracker.invoke(resultSet, method, args);
+                    });
+        }
+
+        void finish(long rowCount) {
+            rows = rowCount;
+            finish();
+        }
+
+        void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            String statement = sql != null ? truncate(sql, MAX_SQL_LENGTH) : "(inconnue)";
+            record(SlowQueryReport.SlowQuery.builder()
+                    .sql(statement)
+                    .parameters(parameters)
+                    .method(owner)
+                    .thread(thread)
+                    .durationMs(durationMs)
+                    .rows(rows)
+                    .batchSize(batchSize)
+                    .executedAt(executedAt)
+                    .build());
+            logger.warn("Requête SQL lente : {} ms, {} ligne(s), {} : {} {}",
+                    durationMs, rows, owner, statement, parameters);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Mesure du temps de démarrage : répartition journalisée quand l'application est prête et exposée
+ * sur /actuator/startuptime (voir StartupTimeReporter)
+ */
+@Configuration
+public class StartupTimeConfig {
+
+    @Bean
+    public StartupTimeReporter startupTimeReporter(ConfigurableListableBeanFactory beanFactory,
+                                                   @Value("${startup.report.top-beans:10}") int topBeans) {
+        return new StartupTimeReporter(beanFactory, topBeans);
+    }
+
+    @Bean
+    public StartupTimeEndpoint startupTimeEndpoint(StartupTimeReporter reporter) {
+        return new StartupTimeEndpoint(reporter);
+    }
+}
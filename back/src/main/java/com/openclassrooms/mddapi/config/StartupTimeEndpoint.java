@@ -0,0 +1,28 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.StartupTimeReport;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Endpoint actuator /actuator/startuptime : répartition du temps de démarrage (étapes, domaines, beans
+ * les plus lents). Le détail brut des étapes est sur /actuator/startup
+ */
+@Endpoint(id = "startuptime")
+public class StartupTimeEndpoint {
+
+    private final StartupTimeReporter reporter;
+
+    public StartupTimeEndpoint(StartupTimeReporter reporter) {
+        this.reporter = reporter;
+    }
+
+    /**
+     * Répartition du temps de démarrage
+     * @return Rapport calculé quand l'application est devenue prête
+     */
+    @ReadOperation
+    public StartupTimeReport startupTime() {
+        return reporter.report();
+    }
+}
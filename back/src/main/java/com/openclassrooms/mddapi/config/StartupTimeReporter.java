@@ -0,0 +1,239 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.StartupTimeReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.util.ClassUtils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Répartition du temps de démarrage, journalisée quand l'application est prête et exposée sur
+ * /actuator/startuptime : JVM jusqu'à main, étapes de SpringApplication.run, temps d'instanciation des beans
+ * par domaine (JPA / Hibernate, springdoc, sécurité...) et beans les plus lents.
+ *
+ * Les étapes viennent du BufferingApplicationStartup installé par MddApiApplication.main. Sans lui (tests),
+ * seules la durée totale et la part de la JVM sont connues. Le temps d'un bean est son temps propre,
+ * sans celui des beans créés pendant son instanciation : la somme des domaines est le temps d'instanciation total.
+ */
+public class StartupTimeReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimeReporter.class);
+
+    private static final String INSTANTIATE = "spring.beans.instantiate";
+    private static final String REFRESH = "spring.context.refresh";
+    private static final String BEAN_DEFINITIONS = "spring.context.beans.post-process";
+    private static final String WEB_SERVER = "spring.boot.webserver.create";
+    private static final String SMART_INITIALIZE = "spring.beans.smart-initialize";
+
+    private static final String OTHER_AREA = "Autres";
+
+    // Domaine d'un bean selon le paquet de son type (premier préfixe qui correspond)
+    private static final Map<String, List<String>> AREAS = new LinkedHashMap<>();
+
+    static {
+        AREAS.put("JPA / Hibernate", List.of("org.hibernate.", "jakarta.persistence.", "org.springframework.orm.",
+                "org.springframework.data.", "org.springframework.boot.autoconfigure.orm.",
+                "org.springframework.boot.autoconfigure.data.", "org.springframework.boot.autoconfigure.jdbc.",
+                "com.zaxxer.hikari.", "com.openclassrooms.mddapi.repositories."));
+        AREAS.put("springdoc", List.of("org.springdoc.", "io.swagger."));
+        AREAS.put("Sécurité", List.of("org.springframework.security.", "org.springframework.boot.autoconfigure.security.",
+                "com.openclassrooms.mddapi.security."));
+        AREAS.put("Actuator et traces", List.of("org.springframework.boot.actuate.", "io.micrometer.", "io.opentelemetry."));
+        AREAS.put("Web et Jackson", List.of("org.springframework.web.", "org.springframework.boot.web.",
+                "org.springframework.boot.autoconfigure.web.", "org.springframework.boot.autoconfigure.jackson.",
+                "org.apache.catalina.", "org.apache.tomcat.", "com.fasterxml.jackson."));
+        AREAS.put("Application", List.of("com.openclassrooms."));
+    }
+
+    private final ConfigurableListableBeanFactory beanFactory;
+    private final int topBeans;
+
+    private volatile StartupTimeReport report;
+
+    /**
+     * @param beanFactory Fabrique des beans (type des beans instanciés)
+     * @param topBeans Nombre de beans les plus lents retenus dans le rapport
+     */
+    public StartupTimeReporter(ConfigurableListableBeanFactory beanFactory, int topBeans) {
+        this.beanFactory = beanFactory;
+        this.topBeans = Math.max(0, topBeans);
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        StartupTimeline timeline = event.getApplicationContext().getApplicationStartup()
+                instanceof BufferingApplicationStartup startup ? startup.getBufferedTimeline() : null;
+        report = report(Duration.ofMillis(runtime.getUptime()), event.getTimeTaken(), timeline,
+                runtime.getInputArguments().stream().anyMatch(argument ->
+                        argument.startsWith("-XX:SharedArchiveFile") || argument.equals("-XX:+AutoCreateSharedArchive")));
+
+        logger.info("Démarrage en {} ms (AOT {}, archive CDS {}) : {}{}", report.getTotalMs(),
+                report.isAot() ? "oui" : "non", report.isCds() ? "oui" : "non",
+                describe(report.getPhases()),
+                report.getAreas().isEmpty() ? "" : " ; instanciation des beans : " + describe(report.getAreas()));
+        if (!report.getSlowestBeans().isEmpty()) {
+            logger.info("Beans les plus lents à instancier : {}", report.getSlowestBeans().stream()
+                    .map(bean -> bean.getBean() + " " + bean.getDurationMs() + " ms")
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Dernier rapport calculé
+     * @return Répartition du temps de démarrage, ou null si l'application n'est pas encore prête
+     */
+    public StartupTimeReport report() {
+        return report;
+    }
+
+    StartupTimeReport report(Duration uptime, Duration timeTaken, StartupTimeline timeline, boolean cds) {
+        List<StartupTimeReport.Phase> phases = new ArrayList<>();
+        phases.add(phase("JVM jusqu'à main", uptime.minus(timeTaken).toMillis()));
+        List<StartupTimeReport.Phase> areas = new ArrayList<>();
+        List<StartupTimeReport.BeanTime> slowestBeans = new ArrayList<>();
+
+        if (timeline != null) {
+            List<StartupTimeline.TimelineEvent> events = timeline.getEvents();
+            Map<Long, StartupTimeline.TimelineEvent> byId = new HashMap<>();
+            Map<String, Long> durations = new HashMap<>();
+            for (StartupTimeline.TimelineEvent event : events) {
+                byId.put(event.getStartupStep().getId(), event);
+                durations.merge(event.getStartupStep().getName(), event.getDuration().toMillis(), Long::sum);
+            }
+
+            // Singletons créés directement par le rafraîchissement (hors définitions des beans et serveur web)
+            long singletons = durations.getOrDefault(SMART_INITIALIZE, 0L);
+            // Temps propre de chaque bean : durée moins celle des beans instanciés pendant sa création
+            Map<Long, Long> ownTimes = new HashMap<>();
+            for (StartupTimeline.TimelineEvent event : events) {
+                StartupStep step = event.getStartupStep();
+                if (!INSTANTIATE.equals(step.getName())) {
+                    continue;
+                }
+                ownTimes.merge(step.getId(), event.getDuration().toNanos(), Long::sum);
+                StartupTimeline.TimelineEvent parent = step.getParentId() != null ? byId.get(step.getParentId()) : null;
+                if (parent == null) {
+                    continue;
+                }
+                if (INSTANTIATE.equals(parent.getStartupStep().getName())) {
+                    ownTimes.merge(parent.getStartupStep().getId(), -event.getDuration().toNanos(), Long::sum);
+                } else if (REFRESH.equals(parent.getStartupStep().getName())) {
+                    singletons += event.getDuration().toMillis();
+                }
+            }
+
+            long refresh = durations.getOrDefault(REFRESH, 0L);
+            long beanDefinitions = durations.getOrDefault(BEAN_DEFINITIONS, 0L);
+            long webServer = durations.getOrDefault(WEB_SERVER, 0L);
+            phases.add(phase("Démarrage de SpringApplication", durations.getOrDefault("spring.boot.application.starting", 0L)));
+            phases.add(phase("Environnement (propriétés, profils)",
+                    durations.getOrDefault("spring.boot.application.environment-prepared", 0L)));
+            phases.add(phase("Préparation du contexte", durations.getOrDefault("spring.boot.application.context-prepared", 0L)
+                    + durations.getOrDefault("spring.boot.application.context-loaded", 0L)));
+            phases.add(phase("Définitions des beans (configuration, scan, conditions)", beanDefinitions));
+            phases.add(phase("Serveur web (beans de ses filtres compris)", webServer));
+            phases.add(phase("Instanciation des singletons", singletons));
+            phases.add(phase("Reste du rafraîchissement du contexte",
+                    Math.max(0, refresh - beanDefinitions - webServer - singletons)));
+            phases.add(phase("Runners", durations.getOrDefault("spring.boot.application.started", 0L)));
+
+            Map<String, Long> areaTimes = new LinkedHashMap<>();
+            List<StartupTimeReport.BeanTime> beans = new ArrayList<>();
+            for (Map.Entry<Long, Long> ownTime : ownTimes.entrySet()) {
+                String beanName = tag(byId.get(ownTime.getKey()).getStartupStep(), "beanName");
+                String type = typeOf(beanName);
+                String area = areaOf(beanName, type);
+                long nanos = Math.max(0, ownTime.getValue());
+                areaTimes.merge(area, nanos, Long::sum);
+                beans.add(StartupTimeReport.BeanTime.builder()
+                        .bean(beanName)
+                        .type(type)
+                        .area(area)
+                        .durationMs(Duration.ofNanos(nanos).toMillis())
+                        .build());
+            }
+            areaTimes.entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .forEach(entry -> areas.add(phase(entry.getKey(), Duration.ofNanos(entry.getValue()).toMillis())));
+            beans.stream()
+                    .sorted(Comparator.comparingLong(StartupTimeReport.BeanTime::getDurationMs).reversed())
+                    .limit(topBeans)
+                    .forEach(slowestBeans::add);
+        }
+
+        return StartupTimeReport.builder()
+                .totalMs(uptime.toMillis())
+                .aot(AotDetector.useGeneratedArtifacts())
+                .cds(cds)
+                .phases(phases)
+                .areas(areas)
+                .slowestBeans(slowestBeans)
+                .build();
+    }
+
+    static String areaOf(String beanName, String type) {
+        if ("entityManagerFactory".equals(beanName)) {
+            return "JPA / Hibernate";
+        }
+        if (type == null) {
+            return OTHER_AREA;
+        }
+        for (Map.Entry<String, List<String>> area : AREAS.entrySet()) {
+            for (String prefix : area.getValue()) {
+                if (type.startsWith(prefix)) {
+                    return area.getKey();
+                }
+            }
+        }
+        return OTHER_AREA;
+    }
+
+    private String typeOf(String beanName) {
+        if (beanName == null || !beanFactory.containsBean(beanName)) {
+            return null;
+        }
+        try {
+            Class<?> type = beanFactory.getType(beanName, false);
+            return type != null ? ClassUtils.getUserClass(type).getName() : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String tag(StartupStep step, String key) {
+        for (StartupStep.Tag tag : step.getTags()) {
+            if (key.equals(tag.getKey())) {
+                return tag.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static StartupTimeReport.Phase phase(String name, long durationMs) {
+        return StartupTimeReport.Phase.builder().name(name).durationMs(durationMs).build();
+    }
+
+    private static String describe(List<StartupTimeReport.Phase> phases) {
+        return phases.stream()
+                .map(phase -> phase.getName() + " " + phase.getDurationMs() + " ms")
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,72 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.TraceReport;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Endpoint actuator /actuator/traces : dernières traces gardées en mémoire et répartition de leur durée
+ * par couche ; /actuator/traces/{traceId} (identifiant renvoyé dans l'en-tête X-Trace-Id) pour le détail
+ * des spans
+ */
+@Endpoint(id = "traces")
+public class TraceEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final InMemorySpanExporter exporter;
+    private final ObjectProvider<SdkTracerProvider> tracerProvider;
+
+    public TraceEndpoint(InMemorySpanExporter exporter, ObjectProvider<SdkTracerProvider> tracerProvider) {
+        this.exporter = exporter;
+        this.tracerProvider = tracerProvider;
+    }
+
+    /**
+     * Dernières traces
+     * @param limit Nombre de traces retournées (20 par défaut)
+     * @return Traces de la plus récente à la plus ancienne, sans leurs spans
+     */
+    @ReadOperation
+    public List<TraceReport> traces(@Nullable Integer limit) {
+        flush();
+        return exporter.recent(limit != null ? limit : DEFAULT_LIMIT);
+    }
+
+    /**
+     * Détail d'une trace
+     * @param traceId Identifiant de la trace
+     * @return Trace et ses spans (404 si elle n'est pas en mémoire)
+     */
+    @ReadOperation
+    public TraceReport trace(@Selector String traceId) {
+        flush();
+        return exporter.trace(traceId);
+    }
+
+    /**
+     * Oublie les traces gardées en mémoire
+     */
+    @DeleteOperation
+    public void reset() {
+        exporter.reset();
+    }
+
+    /**
+     * Exporte les spans terminés en attente dans le BatchSpanProcessor
+     */
+    private void flush() {
+        SdkTracerProvider provider = tracerProvider.getIfAvailable();
+        if (provider != null) {
+            provider.forceFlush().join(1, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.mddapi.config;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Renvoie l'identifiant de la trace de la requête dans l'en-tête X-Trace-Id, pour retrouver ses logs
+ * (traceId dans le MDC) et son détail sur /actuator/traces/{traceId}.
+ *
+ * Placé juste après le filtre d'observation HTTP de Spring Boot (HIGHEST_PRECEDENCE + 1), qui ouvre le span.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class TraceResponseHeaderFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    @Autowired
+    private ObjectProvider<Tracer> tracer;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Tracer current = tracer.getIfAvailable();
+        Span span = current != null ? current.currentSpan() : null;
+        if (span != null && !span.isNoop()) {
+            response.setHeader(TRACE_ID_HEADER, span.context().traceId());
+        }
+        filterChain.doFilter(request, response);
+    }
+}
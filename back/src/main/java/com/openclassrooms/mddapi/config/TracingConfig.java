@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Traces des requêtes (Micrometer Observation, pont OpenTelemetry) gardées en mémoire.
+ *
+ * Chaque requête HTTP a un span (filtre d'observation de Spring Boot), sous lequel s'imbriquent
+ * l'authentification JWT (AuthTokenFilter), les contrôleurs, services et repositories (LayerObservationAspect)
+ * et l'écriture JSON de la réponse (JacksonConfig). Les tracing.in-memory.max-traces dernières traces
+ * échantillonnées (management.tracing.sampling.probability) sont consultables sur /actuator/traces.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${tracing.in-memory.max-traces:200}") int maxTraces) {
+        return new InMemorySpanExporter(maxTraces);
+    }
+
+    @Bean
+    public LayerObservationAspect layerObservationAspect(ObservationRegistry observationRegistry) {
+        return new LayerObservationAspect(observationRegistry);
+    }
+
+    @Bean
+    public TraceEndpoint traceEndpoint(InMemorySpanExporter exporter, ObjectProvider<SdkTracerProvider> tracerProvider) {
+        return new TraceEndpoint(exporter, tracerProvider);
+    }
+}
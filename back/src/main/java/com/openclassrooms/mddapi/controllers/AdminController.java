@@ -0,0 +1,102 @@
+package com.openclassrooms.mddapi.controllers;
+
+import com.openclassrooms.mddapi.dto.AccountPurgeProgress;
+import com.openclassrooms.mddapi.dto.TransferReport;
+import com.openclassrooms.mddapi.services.AccountPurgeService;
+import com.openclassrooms.mddapi.services.BulkTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Contrôleur REST d'administration : export et import en masse des données.
+ * Créé à la première requête d'administration (@Lazy), avec BulkTransferService, et non au démarrage
+ */
+@Lazy
+@RestController
+@RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Administration", description = "API d'administration (export/import des données, suppressions de comptes)")
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private AccountPurgeService accountPurgeService;
+
+    /**
+     * Exporte thèmes, articles, commentaires et abonnements au format NDJSON.
+     * Les lignes sont écrites au fil de la lecture, sans charger les données en mémoire.
+     * @param response Réponse HTTP dans laquelle l'export est écrit
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    @Operation(summary = "Exporter les données", description = "Exporte thèmes, articles, commentaires et abonnements au format NDJSON")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Export NDJSON", content = @Content(mediaType = NDJSON)),
+            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content)
+    })
+    public void exportAll(HttpServletResponse response) throws IOException {
+        logger.info("Début de l'export des données");
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"mdd-export.ndjson\"");
+        bulkTransferService.exportAll(response.getOutputStream());
+    }
+
+    /**
+     * Importe un fichier NDJSON produit par l'export
+     * @param request Requête HTTP dont le corps contient le NDJSON
+     * @return Rapport de l'import
+     * @throws IOException En cas d'erreur de lecture
+     */
+    @PostMapping(value = "/import", consumes = NDJSON)
+    @Operation(summary = "Importer des données", description = "Importe par lots un flux NDJSON produit par l'export")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import terminé",
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = TransferReport.class)) }),
+            @ApiResponse(responseCode = "400", description = "Ligne invalide", content = @Content),
+            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content)
+    })
+    public ResponseEntity<TransferReport> importAll(HttpServletRequest request) throws IOException {
+        logger.info("Début de l'import des données");
+        return ResponseEntity.ok(bulkTransferService.importAll(request.getInputStream()));
+    }
+
+    /**
+     * Récupère l'avancement des purges de comptes supprimés (en cours et dernières terminées)
+     * @return Liste des purges
+     */
+    @GetMapping("/account-deletions")
+    @Operation(summary = "Suivre les suppressions de comptes", description = "Avancement des purges en arrière-plan des comptes supprimés")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Avancement des purges",
+                    content = { @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = AccountPurgeProgress.class))) }),
+            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content)
+    })
+    public ResponseEntity<List<AccountPurgeProgress>> getAccountDeletions() {
+        return ResponseEntity.ok(accountPurgeService.getProgress());
+    }
+}
@@ -1,14 +1,18 @@
 package com.openclassrooms.mddapi.controllers;
 
+import com.openclassrooms.mddapi.config.ResponseFormats;
 import com.openclassrooms.mddapi.dto.ArticleRequest;
 import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.dto.ArticleSummaryResponse;
 import com.openclassrooms.mddapi.dto.MessageResponse;
 import com.openclassrooms.mddapi.exceptions.ErrorResponse;
 import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
 import com.openclassrooms.mddapi.services.ArticleService;
+import com.openclassrooms.mddapi.services.LatestArticlesSnapshot;
 import com.openclassrooms.mddapi.services.ThemeService;
 import com.openclassrooms.mddapi.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -24,11 +28,14 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -45,6 +52,12 @@ public class ArticleController {
     @Autowired
     private ArticleService articleService;
     
+    @Autowired
+    private LatestArticlesSnapshot latestArticlesSnapshot;
+
+    @Autowired
+    private ResponseFormats responseFormats;
+
     @Autowired
     private ThemeService themeService;
     
@@ -52,17 +65,40 @@ public class ArticleController {
     private UserService userService;
 
     /**
-     * Récupère tous les articles
-     * @return Liste des articles
+     * Récupère tous les articles, ou les plus récents si une limite est donnée.
+     * Les derniers articles sont servis depuis l'instantané en mémoire ; sinon la liste est écrite
+     * au fil de la lecture en base, sans être construite en mémoire.
+     * Format négocié par l'en-tête Accept (JSON, CBOR ou Smile) et champs sélectionnés par le paramètre fields.
+     * @param limit Nombre maximal d'articles (optionnel)
+     * @param request Requête HTTP (en-tête Accept, paramètre fields)
+     * @param response Réponse HTTP dans laquelle la liste est écrite
+     * @throws IOException En cas d'erreur d'écriture
      */
-    @Operation(summary = "Récupérer tous les articles", description = "Retourne la liste de tous les articles disponibles")
+    @Operation(summary = "Récupérer tous les articles", description = "Retourne la liste de tous les articles disponibles, du plus récent au plus ancien")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des articles récupérée avec succès",
-                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleResponse.class)) })
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleSummaryResponse.class)) }),
+            @ApiResponse(responseCode = "400", description = "Limite invalide")
     })
     @GetMapping
-    public ResponseEntity<List<ArticleResponse>> getAllArticles() {
-        return ResponseEntity.ok(articleService.getAllArticles());
+    public void getAllArticles(
+            @Parameter(description = "Nombre maximal d'articles, les plus récents d'abord") @RequestParam(required = false) Integer limit,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (limit != null && limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "La limite doit être supérieure à 0");
+        }
+        ResponseFormats.Format format = responseFormats.negotiate(request, response);
+        OutputStream out = response.getOutputStream();
+        // L'instantané ne contient que la représentation JSON complète
+        if (format.plainJson() && latestArticlesSnapshot.writeTo(limit, out)) {
+            return;
+        }
+        if (limit == null) {
+            articleService.streamAllArticles(format.writer(), out);
+        } else {
+            articleService.streamLatestArticles(limit, format.writer(), out);
+        }
     }
 
     /**
@@ -79,7 +115,8 @@ public class ArticleController {
     @GetMapping("/{id}")
     public ResponseEntity<ArticleResponse> getArticleById(@PathVariable Long id) {
         try {
-            return ResponseEntity.ok(articleService.getArticleById(id));
+            ArticleResponse article = articleService.getArticleById(id);
+            return EntityTags.ok(article, EntityTags.of(article));
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
@@ -93,7 +130,7 @@ public class ArticleController {
     @Operation(summary = "Récupérer les articles d'un thème", description = "Retourne la liste des articles d'un thème spécifique")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des articles récupérée avec succès",
-                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleResponse.class)) }),
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleSummaryResponse.class)) }),
             @ApiResponse(responseCode = "404", description = "Thème non trouvé", content = @Content)
     })
     @GetMapping("/theme/{themeId}")
@@ -120,7 +157,7 @@ public class ArticleController {
         }
         
         // Le thème existe, continuer avec le service
-        List<ArticleResponse> articles = articleService.getArticlesByTheme(themeId);
+        List<ArticleSummaryResponse> articles = articleService.getArticlesByTheme(themeId);
         return ResponseEntity.ok(articles);
     }
 
@@ -132,7 +169,7 @@ public class ArticleController {
     @Operation(summary = "Récupérer les articles d'un utilisateur", description = "Retourne la liste des articles d'un utilisateur spécifique")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des articles récupérée avec succès",
-                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleResponse.class)) }),
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleSummaryResponse.class)) }),
             @ApiResponse(responseCode = "404", description = "Utilisateur non trouvé", content = @Content)
     })
     @GetMapping("/user/{userId}")
@@ -159,7 +196,7 @@ public class ArticleController {
         }
         
         // L'utilisateur existe, continuer avec le service
-        List<ArticleResponse> articles = articleService.getArticlesByUser(userId);
+        List<ArticleSummaryResponse> articles = articleService.getArticlesByUser(userId);
         return ResponseEntity.ok(articles);
     }
 
@@ -171,7 +208,7 @@ public class ArticleController {
     @Operation(summary = "Rechercher des articles par titre", description = "Retourne la liste des articles dont le titre correspond à la recherche")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des articles récupérée avec succès",
-                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleResponse.class)) })
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleSummaryResponse.class)) })
     })
     @GetMapping("/search")
     public ResponseEntity<?> searchArticlesByTitle(
@@ -180,7 +217,7 @@ public class ArticleController {
         
         logger.info("Recherche d'articles avec le titre contenant: {}", title);
         
-        List<ArticleResponse> matchingArticles = articleService.searchArticlesByTitle(title);
+        List<ArticleSummaryResponse> matchingArticles = articleService.searchArticlesByTitle(title);
         
         // Si aucun article ne correspond à la recherche, retourne 204 No Content
         if (matchingArticles == null || matchingArticles.isEmpty()) {
@@ -203,11 +240,11 @@ public class ArticleController {
                description = "Retourne la liste des articles des thèmes auxquels l'utilisateur connecté est abonné")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Liste des articles récupérée avec succès (peut être vide)",
-                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleResponse.class)) }),
+                    content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleSummaryResponse.class)) }),
             @ApiResponse(responseCode = "401", description = "Non authentifié", content = @Content),
             @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content)
     })
-    public ResponseEntity<List<ArticleResponse>> getArticlesByUserSubscriptions(HttpServletRequest request) {
+    public ResponseEntity<List<ArticleSummaryResponse>> getArticlesByUserSubscriptions(HttpServletRequest request) {
         
         // Récupérer l'utilisateur connecté
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -216,7 +253,7 @@ public class ArticleController {
         
         logger.info("Récupération des articles pour les abonnements de l'utilisateur {}", userId);
         
-        List<ArticleResponse> articles = articleService.getArticlesByUserSubscriptions(userId);
+        List<ArticleSummaryResponse> articles = articleService.getArticlesByUserSubscriptions(userId);
         
         // Même si la liste est vide, on renvoie un 200 OK
         if (articles.isEmpty()) {
@@ -247,32 +284,18 @@ public class ArticleController {
             @Valid @RequestBody ArticleRequest articleRequest,
             @AuthenticationPrincipal UserDetailsImpl userDetails,
             HttpServletRequest request) {
-        logger.debug("Début de création d'article");
-        
         // Vérifier l'authentification
         if (userDetails == null) {
             logger.error("userDetails est NULL - l'utilisateur n'est pas correctement authentifié");
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Utilisateur non authentifié");
-        } else {
-            logger.info("Utilisateur authentifié: ID={}, Username={}", userDetails.getId(), userDetails.getUsername());
-            logger.info("Autorités/Rôles de l'utilisateur: {}", userDetails.getAuthorities());
-        }
-        
-        // Vérifier les données de la requête
-        if (logger.isDebugEnabled()) {
-            logger.debug("Données de la requête d'article reçues");
         }
-        logger.info("  - Titre: {}", articleRequest.getTitle());
-        logger.info("  - Contenu: {} (longueur: {})", 
-            (articleRequest.getContent() != null ? articleRequest.getContent().substring(0, Math.min(30, articleRequest.getContent().length())) + "..." : "null"),
-            (articleRequest.getContent() != null ? articleRequest.getContent().length() : 0));
-        logger.info("  - ThemeId: {}", articleRequest.getThemeId());
+        // Le titre et le contenu ne sont pas journalisés ; l'utilisateur est dans le MDC (userId)
+        logger.debug("Création d'un article dans le thème {}", articleRequest.getThemeId());
         
         // Vérification préalable de l'existence du thème pour éviter l'exception EntityNotFoundException
         boolean themeExists = themeService.existsById(articleRequest.getThemeId());
         if (!themeExists) {
-            logger.error("Le thème avec l'ID {} n'existe pas", articleRequest.getThemeId());
-            logger.info("========== FIN DE CRÉATION D'ARTICLE (ÉCHEC) ==========");
+            logger.warn("Le thème avec l'ID {} n'existe pas", articleRequest.getThemeId());
             
             ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.NOT_FOUND.value(),
@@ -286,10 +309,8 @@ public class ArticleController {
         }
         
         try {
-            logger.info("Appel du service pour créer l'article...");
             ArticleResponse createdArticle = articleService.createArticle(articleRequest, userDetails.getId());
-            logger.info("Article créé avec succès! ID={}", createdArticle.getId());
-            logger.info("Article créé avec succès: ID={}", createdArticle.getId());
+            logger.info("Article créé: ID={}", createdArticle.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(createdArticle);
         } catch (EntityNotFoundException e) {
             logger.error("Erreur lors de la création de l'article (EntityNotFound): {}", e.getMessage());
@@ -304,6 +325,7 @@ public class ArticleController {
      * Met à jour un article existant
      * @param id Identifiant de l'article à mettre à jour
      * @param articleRequest DTO contenant les données mises à jour
+     * @param ifMatch ETag de l'article lu par le client (facultatif) : la modification est refusée s'il a changé depuis
      * @param userDetails Détails de l'utilisateur authentifié
      * @return Article mis à jour
      */
@@ -313,16 +335,20 @@ public class ArticleController {
                     content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ArticleResponse.class)) }),
             @ApiResponse(responseCode = "404", description = "Article non trouvé", content = @Content),
             @ApiResponse(responseCode = "400", description = "Données invalides", content = @Content),
-            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Article modifié depuis sa lecture", content = @Content)
     })
     @PutMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ArticleResponse> updateArticle(
             @PathVariable Long id,
             @Valid @RequestBody ArticleRequest articleRequest,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
         try {
-            return ResponseEntity.ok(articleService.updateArticle(id, articleRequest, userDetails.getId()));
+            ArticleResponse article = articleService.updateArticle(id, articleRequest, userDetails.getId(), expectedVersion);
+            return EntityTags.ok(article, EntityTags.of(article));
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         } catch (IllegalStateException e) {
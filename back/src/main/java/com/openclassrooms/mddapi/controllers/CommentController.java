@@ -1,11 +1,15 @@
 package com.openclassrooms.mddapi.controllers;
 
+import com.openclassrooms.mddapi.config.ResponseFormats;
 import com.openclassrooms.mddapi.dto.CommentRequest;
 import com.openclassrooms.mddapi.dto.CommentResponse;
 import com.openclassrooms.mddapi.dto.MessageResponse;
 import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
 import com.openclassrooms.mddapi.services.CommentService;
+import com.openclassrooms.mddapi.services.CommentWriteBehindService;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,6 +19,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -28,6 +33,12 @@ public class CommentController {
     @Autowired
     private CommentService commentService;
 
+    @Autowired
+    private CommentWriteBehindService commentWriteBehindService;
+
+    @Autowired
+    private ResponseFormats responseFormats;
+
     /**
      * Récupère tous les commentaires d'un article
      * @param articleId Identifiant de l'article
@@ -39,14 +50,20 @@ public class CommentController {
     }
 
     /**
-     * Récupère tous les commentaires d'un utilisateur
+     * Récupère tous les commentaires d'un utilisateur.
+     * La liste est écrite au fil de la lecture en base, sans être construite en mémoire, dans le format
+     * négocié par l'en-tête Accept et avec les champs du paramètre fields.
      * @param userId Identifiant de l'utilisateur
-     * @return Liste des commentaires de l'utilisateur
+     * @param request Requête HTTP (en-tête Accept, paramètre fields)
+     * @param response Réponse HTTP dans laquelle la liste est écrite
+     * @throws IOException En cas d'erreur d'écriture
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<CommentResponse>> getCommentsByUser(@PathVariable Long userId) {
+    public void getCommentsByUser(@PathVariable Long userId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
         try {
-            return ResponseEntity.ok(commentService.getCommentsByUser(userId));
+            ResponseFormats.Format format = responseFormats.negotiate(request, response);
+            commentService.streamCommentsByUser(userId, format.writer(), response.getOutputStream());
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
@@ -60,24 +77,34 @@ public class CommentController {
     @GetMapping("/{id}")
     public ResponseEntity<CommentResponse> getCommentById(@PathVariable Long id) {
         try {
-            return ResponseEntity.ok(commentService.getCommentById(id));
+            CommentResponse comment = commentService.getCommentById(id);
+            return EntityTags.ok(comment, EntityTags.of(comment));
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
     }
 
     /**
-     * Crée un nouveau commentaire
+     * Crée un nouveau commentaire.
+     * En mode d'écriture différée, le commentaire est accepté (202) avec son identifiant
+     * puis écrit en base en arrière-plan.
      * @param commentRequest DTO contenant les données du commentaire à créer
+     * @param idempotencyKey Clé d'idempotence optionnelle pour rejouer la requête sans doublon
      * @param userDetails Détails de l'utilisateur authentifié
-     * @return Commentaire créé
+     * @return Commentaire créé ou accepté
      */
     @PostMapping
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<CommentResponse> createComment(
             @Valid @RequestBody CommentRequest commentRequest,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
         try {
+            if (commentWriteBehindService.isEnabled()) {
+                CommentResponse acceptedComment = commentWriteBehindService.enqueue(
+                        commentRequest, userDetails.getId(), userDetails.getUsername(), idempotencyKey);
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedComment);
+            }
             CommentResponse createdComment = commentService.createComment(commentRequest, userDetails.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(createdComment);
         } catch (EntityNotFoundException e) {
@@ -89,6 +116,7 @@ public class CommentController {
      * Met à jour un commentaire existant
      * @param id Identifiant du commentaire à mettre à jour
      * @param commentRequest DTO contenant les données mises à jour
+     * @param ifMatch ETag du commentaire lu par le client (facultatif) : la modification est refusée s'il a changé depuis
      * @param userDetails Détails de l'utilisateur authentifié
      * @return Commentaire mis à jour
      */
@@ -97,9 +125,12 @@ public class CommentController {
     public ResponseEntity<CommentResponse> updateComment(
             @PathVariable Long id,
             @Valid @RequestBody CommentRequest commentRequest,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
         try {
-            return ResponseEntity.ok(commentService.updateComment(id, commentRequest, userDetails.getId()));
+            CommentResponse comment = commentService.updateComment(id, commentRequest, userDetails.getId(), expectedVersion);
+            return EntityTags.ok(comment, EntityTags.of(comment));
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         } catch (IllegalStateException e) {
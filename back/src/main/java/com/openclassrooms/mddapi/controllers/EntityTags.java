@@ -0,0 +1,132 @@
+package com.openclassrooms.mddapi.controllers;
+
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.dto.CommentResponse;
+import com.openclassrooms.mddapi.dto.ThemeResponse;
+import com.openclassrooms.mddapi.dto.UserResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * ETags des ressources versionnées et lecture de l'en-tête If-Match.
+ *
+ * L'ETag commence par la version de l'entité (W/"3-1f2e3d4c") : c'est elle que If-Match compare lors d'une
+ * modification. Le suffixe est une empreinte des champs calculés qui changent sans nouvelle version
+ * (compteurs, noms de l'auteur ou du thème), pour que If-None-Match ne renvoie pas une représentation périmée.
+ * Les ETags sont faibles : le même est envoyé pour les représentations JSON, CBOR et Smile de la ressource.
+ */
+final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    static String of(ArticleResponse article) {
+        return tag(article.getVersion(),
+                Objects.hash(article.getCommentCount(), article.getAuthorUsername(), article.getThemeName()));
+    }
+
+    static String of(CommentResponse comment) {
+        return tag(comment.getVersion(), Objects.hash(comment.getAuthorUsername(), comment.getArticleTitle()));
+    }
+
+    static String of(ThemeResponse theme) {
+        return tag(theme.getVersion(), Objects.hash(theme.getArticleCount(), theme.isSubscribed()));
+    }
+
+    static String of(UserResponse user) {
+        return tag(user.getVersion(), Objects.hash(user.getArticleCount(), user.getCommentCount()));
+    }
+
+    /**
+     * Réponse 200 portant l'ETag de la ressource : pour un GET, Spring répond 304 si l'en-tête
+     * If-None-Match correspond
+     * @param body Ressource renvoyée
+     * @param etag ETag de la ressource, ou null si elle n'a pas de version
+     * @return Réponse HTTP
+     */
+    static <T> ResponseEntity<T> ok(T body, String etag) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (etag != null) {
+            builder.eTag(etag);
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * Version attendue par une modification conditionnelle. L'en-tête peut lister plusieurs ETags :
+     * tous doivent être valides, la version retenue est celle du premier (celui lu par le client)
+     * @param ifMatch Valeur de l'en-tête If-Match
+     * @return Version du premier ETag, ou null si l'en-tête est absent ou contient "*" (modification inconditionnelle)
+     * @throws ResponseStatusException 400 si l'en-tête contient autre chose que des ETags émis par l'API
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        List<String> tags = entityTags(ifMatch);
+        if (tags.contains("*")) {
+            return null;
+        }
+        // Chaque ETag doit être valide, même si seul le premier est comparé
+        List<Long> versions = tags.stream().map(EntityTags::version).toList();
+        return versions.get(0);
+    }
+
+    /**
+     * Découpe une liste d'ETags (W/"3-1f2e", "4-5a6b", ou *) en valeurs sans guillemets ni préfixe W/
+     */
+    private static List<String> entityTags(String header) {
+        List<String> tags = new ArrayList<>();
+        int position = 0;
+        while (position < header.length()) {
+            char c = header.charAt(position);
+            if (c == ',' || Character.isWhitespace(c)) {
+                position++;
+                continue;
+            }
+            if (c == '*') {
+                tags.add("*");
+                position++;
+                continue;
+            }
+            if (header.startsWith("W/", position)) {
+                position += 2;
+            }
+            int end = header.indexOf('"', position + 1);
+            if (position >= header.length() || header.charAt(position) != '"' || end < 0) {
+                throw invalidIfMatch();
+            }
+            tags.add(header.substring(position + 1, end));
+            position = end + 1;
+        }
+        if (tags.isEmpty()) {
+            throw invalidIfMatch();
+        }
+        return tags;
+    }
+
+    private static Long version(String tag) {
+        int separator = tag.indexOf('-');
+        try {
+            return Long.parseLong(separator < 0 ? tag : tag.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw invalidIfMatch();
+        }
+    }
+
+    private static ResponseStatusException invalidIfMatch() {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST, "En-tête If-Match invalide");
+    }
+
+    private static String tag(Long version, int hash) {
+        if (version == null) {
+            return null;
+        }
+        return "W/\"" + version + "-" + Integer.toHexString(hash) + "\"";
+    }
+}
@@ -2,6 +2,7 @@ package com.openclassrooms.mddapi.controllers;
 
 import com.openclassrooms.mddapi.dto.ThemeRequest;
 import com.openclassrooms.mddapi.dto.ThemeResponse;
+import com.openclassrooms.mddapi.dto.ThemeSubscriptionBatchRequest;
 import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
 import com.openclassrooms.mddapi.services.ThemeService;
 import com.openclassrooms.mddapi.services.UserThemeService;
@@ -12,6 +13,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -19,6 +21,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -84,6 +88,69 @@ public class ThemeController {
         }
     }
 
+    @PostMapping("/subscriptions/batch")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Mettre à jour plusieurs abonnements",
+              description = "Ajoute et retire en une seule transaction les abonnements de l'utilisateur connecté et retourne les IDs des thèmes suivis")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Abonnements mis à jour, liste des IDs des thèmes suivis"),
+            @ApiResponse(responseCode = "400", description = "Données invalides",
+                         content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Thème non trouvé",
+                         content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Non autorisé",
+                         content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<?> updateSubscriptions(
+            @Parameter(description = "Thèmes à ajouter et à retirer") @Valid @RequestBody ThemeSubscriptionBatchRequest batchRequest,
+            HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        Long userId = userDetails.getId();
+
+        logger.info("Mise à jour groupée des abonnements de l'utilisateur {}: {} ajout(s), {} retrait(s)",
+                   userId, batchRequest.getSubscribe().size(), batchRequest.getUnsubscribe().size());
+
+        try {
+            List<Long> subscribedThemeIds;
+            try {
+                subscribedThemeIds = userThemeService.updateSubscriptions(
+                        userId, batchRequest.getSubscribe(), batchRequest.getUnsubscribe());
+            } catch (DataIntegrityViolationException e) {
+                // Abonnement ajouté entre-temps par une requête concurrente (clé unique user_id, theme_id) :
+                // la mise à jour est rejouée une fois, les abonnements désormais existants sont ignorés
+                logger.info("Mise à jour groupée concurrente des abonnements de l'utilisateur {}, nouvel essai", userId);
+                subscribedThemeIds = userThemeService.updateSubscriptions(
+                        userId, batchRequest.getSubscribe(), batchRequest.getUnsubscribe());
+            }
+            return ResponseEntity.ok(subscribedThemeIds);
+        } catch (EntityNotFoundException e) {
+            logger.warn("Mise à jour groupée refusée: {}", e.getMessage());
+
+            ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                e.getMessage(),
+                request.getRequestURI()
+            );
+
+            return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(errorResponse);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Mise à jour groupée refusée: {}", e.getMessage());
+
+            ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.BAD_REQUEST.value(),
+                e.getMessage(),
+                request.getRequestURI()
+            );
+
+            return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(errorResponse);
+        }
+    }
+
     @GetMapping
     @Operation(summary = "Récupérer tous les thèmes", description = "Retourne la liste de tous les thèmes disponibles")
     @ApiResponses(value = {
@@ -152,7 +219,7 @@ public class ThemeController {
             theme.setSubscribed(userThemeService.isUserSubscribedToTheme(userId, id));
         }
         
-        return new ResponseEntity<>(theme, HttpStatus.OK);
+        return EntityTags.ok(theme, EntityTags.of(theme));
     }
 
     @PostMapping
@@ -182,11 +249,14 @@ public class ThemeController {
                     content = { @Content(mediaType = "application/json", schema = @Schema(implementation = ThemeResponse.class)) }),
             @ApiResponse(responseCode = "404", description = "Thème non trouvé", content = @Content),
             @ApiResponse(responseCode = "400", description = "Données invalides", content = @Content),
-            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content)
+            @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Thème modifié depuis sa lecture", content = @Content)
     })
     public ResponseEntity<?> updateTheme(
             @Parameter(description = "ID du thème à mettre à jour") @PathVariable Long id,
             @Parameter(description = "Nouvelles données du thème") @Valid @RequestBody ThemeRequest themeRequest,
+            @Parameter(description = "ETag du thème lu par le client : la modification est refusée s'il a changé depuis")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             HttpServletRequest request) {
         
         logger.info("Mise à jour du thème avec l'ID: {}", id);
@@ -208,9 +278,13 @@ public class ThemeController {
                 .body(errorResponse);
         }
         
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
         try {
-            ThemeResponse updatedTheme = themeService.updateTheme(id, themeRequest);
-            return new ResponseEntity<>(updatedTheme, HttpStatus.OK);
+            ThemeResponse updatedTheme = themeService.updateTheme(id, themeRequest, expectedVersion);
+            return EntityTags.ok(updatedTheme, EntityTags.of(updatedTheme));
+        } catch (OptimisticLockingFailureException e) {
+            // Conflit de version : réponse 409 du gestionnaire global
+            throw e;
         } catch (Exception e) {
             logger.error("Erreur lors de la mise à jour du thème: {}", e.getMessage());
             
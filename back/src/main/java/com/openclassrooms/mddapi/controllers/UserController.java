@@ -1,5 +1,6 @@
 package com.openclassrooms.mddapi.controllers;
 
+import com.openclassrooms.mddapi.config.ResponseFormats;
 import com.openclassrooms.mddapi.dto.MessageResponse;
 import com.openclassrooms.mddapi.dto.UserRequest;
 import com.openclassrooms.mddapi.dto.UserResponse;
@@ -13,17 +14,22 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.io.IOException;
 
 /**
  * Contrôleur REST pour la gestion des utilisateurs
@@ -34,12 +40,21 @@ import java.util.List;
 @Tag(name = "Utilisateurs", description = "API de gestion des utilisateurs")
 public class UserController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ResponseFormats responseFormats;
+
     /**
-     * Récupère tous les utilisateurs
-     * @return Liste de tous les utilisateurs
+     * Récupère tous les utilisateurs.
+     * La liste est écrite au fil de la lecture en base, sans être construite en mémoire, dans le format
+     * négocié par l'en-tête Accept et avec les champs du paramètre fields.
+     * @param request Requête HTTP (en-tête Accept, paramètre fields)
+     * @param response Réponse HTTP dans laquelle la liste est écrite
+     * @throws IOException En cas d'erreur d'écriture
      */
     @GetMapping
     @Operation(summary = "Récupérer tous les utilisateurs", description = "Retourne la liste de tous les utilisateurs enregistrés")
@@ -47,8 +62,9 @@ public class UserController {
             @ApiResponse(responseCode = "200", description = "Liste des utilisateurs récupérée avec succès",
                     content = { @Content(mediaType = "application/json", schema = @Schema(implementation = UserResponse.class)) })
     })
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        return ResponseEntity.ok(userService.getAllUsers());
+    public void getAllUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ResponseFormats.Format format = responseFormats.negotiate(request, response);
+        userService.streamAllUsers(format.writer(), response.getOutputStream());
     }
 
     /**
@@ -66,7 +82,8 @@ public class UserController {
     public ResponseEntity<UserResponse> getUserById(
             @Parameter(description = "ID de l'utilisateur à récupérer") @PathVariable Long id) {
         try {
-            return ResponseEntity.ok(userService.getUserById(id));
+            UserResponse user = userService.getUserById(id);
+            return EntityTags.ok(user, EntityTags.of(user));
         } catch (EntityNotFoundException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         }
@@ -97,6 +114,7 @@ public class UserController {
      * Met à jour les informations d'un utilisateur
      * @param id Identifiant de l'utilisateur à mettre à jour
      * @param userRequest DTO contenant les données mises à jour
+     * @param ifMatch ETag du compte lu par le client (facultatif) : la modification est refusée s'il a changé depuis
      * @param userDetails Détails de l'utilisateur authentifié
      * @return Utilisateur mis à jour
      */
@@ -109,33 +127,32 @@ public class UserController {
             @ApiResponse(responseCode = "404", description = "Utilisateur non trouvé", content = @Content),
             @ApiResponse(responseCode = "400", description = "Données invalides", content = @Content),
             @ApiResponse(responseCode = "403", description = "Accès refusé", content = @Content),
+            @ApiResponse(responseCode = "409", description = "Compte modifié depuis sa lecture", content = @Content),
             @ApiResponse(responseCode = "500", description = "Erreur interne du serveur", content = @Content)
     })
     public ResponseEntity<UserResponse> updateUser(
             @Parameter(description = "ID de l'utilisateur à mettre à jour") @PathVariable Long id,
             @Parameter(description = "Nouvelles données de l'utilisateur") @Valid @RequestBody UserRequest userRequest,
+            @Parameter(description = "ETag du compte lu par le client : la modification est refusée s'il a changé depuis")
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
             @AuthenticationPrincipal UserDetailsImpl userDetails) {
+        Long expectedVersion = EntityTags.expectedVersion(ifMatch);
         try {
-            System.out.println("UserController: Traitement de la requête updateUser - ID: " + id);
-            System.out.println("UserRequest données: " + userRequest);
-            
-            UserResponse response = userService.updateUser(id, userRequest, userDetails.getId());
-            System.out.println("UserController: Mise à jour réussie pour l'utilisateur ID " + id);
-            return ResponseEntity.ok(response);
+            UserResponse response = userService.updateUser(id, userRequest, userDetails.getId(), expectedVersion);
+            return EntityTags.ok(response, EntityTags.of(response));
         } catch (EntityNotFoundException e) {
-            System.out.println("UserController: EntityNotFoundException lors de la mise à jour - " + e.getMessage());
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
         } catch (AccessDeniedException e) {
-            System.out.println("UserController: AccessDeniedException lors de la mise à jour - " + e.getMessage());
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, e.getMessage());
         } catch (IllegalArgumentException e) {
             // Notre gestionnaire global d'exceptions se chargera de transformer ce message d'erreur
             // en réponse conviviale avec le bon code HTTP
-            System.out.println("UserController: IllegalArgumentException lors de la mise à jour - " + e.getMessage());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            // Conflit de version : réponse 409 du gestionnaire global
+            throw e;
         } catch (Exception e) {
-            System.out.println("UserController: Exception inattendue lors de la mise à jour - " + e.getClass().getName() + ": " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Erreur inattendue lors de la mise à jour de l'utilisateur {}", id, e);
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Une erreur est survenue lors de la mise à jour du profil.");
         }
     }
@@ -0,0 +1,34 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO décrivant l'avancement de la purge d'un compte supprimé
+ */
+@Data
+@Builder(toBuilder = true)
+public class AccountPurgeProgress {
+
+    /**
+     * Étapes de la purge d'un compte
+     */
+    public enum Status {
+        PENDING,
+        RUNNING,
+        DONE,
+        FAILED
+    }
+
+    private Long userId;
+    private Status status;
+    private long subscriptionsDeleted;
+    private long commentsDeleted;
+    private long articlesDeleted;
+    private LocalDateTime requestedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
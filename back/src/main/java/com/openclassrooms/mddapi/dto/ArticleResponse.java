@@ -9,7 +9,7 @@ import java.time.LocalDateTime;
  * DTO pour la réponse contenant les données d'un article
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class ArticleResponse {
     private Long id;
     private String title;
@@ -20,4 +20,5 @@ public class ArticleResponse {
     private Long themeId;
     private String themeName;
     private int commentCount;
+    private Long version;
 }
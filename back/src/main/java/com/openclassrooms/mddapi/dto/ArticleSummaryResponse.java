@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO pour la réponse contenant le résumé d'un article (listes) : extrait à la place du contenu
+ */
+@Data
+@Builder(toBuilder = true)
+public class ArticleSummaryResponse {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private LocalDateTime createdAt;
+    private Long authorId;
+    private String authorUsername;
+    private Long themeId;
+    private String themeName;
+    private int commentCount;
+    private Long version;
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO décrivant l'utilisation d'une région du cache de second niveau
+ */
+@Data
+@Builder
+public class CacheRegionReport {
+    private String region;
+    private long hits;
+    private long misses;
+    private long puts;
+    private double hitRatio;
+    private long elementsInMemory;
+}
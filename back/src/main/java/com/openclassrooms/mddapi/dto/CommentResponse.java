@@ -18,4 +18,5 @@ public class CommentResponse {
     private String authorUsername;
     private Long articleId;
     private String articleTitle;
+    private Long version;
 }
@@ -0,0 +1,41 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO décrivant le temps de détention des connexions JDBC par méthode de service
+ */
+@Data
+@Builder
+public class ConnectionHoldReport {
+
+    /**
+     * Connexions rendues, agrégées par méthode de service
+     */
+    @Data
+    @Builder
+    public static class MethodStats {
+        private String method;
+        private long count;
+        private long totalMs;
+        private double averageMs;
+        private long maxMs;
+    }
+
+    /**
+     * Connexion actuellement détenue
+     */
+    @Data
+    @Builder
+    public static class OpenHold {
+        private String method;
+        private String thread;
+        private long heldMs;
+    }
+
+    private List<MethodStats> methods;
+    private List<OpenHold> open;
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO décrivant les requêtes SQL les plus lentes depuis le démarrage (ou la dernière remise à zéro)
+ */
+@Data
+@Builder
+public class SlowQueryReport {
+
+    /**
+     * Exécution d'une requête au-delà du seuil
+     */
+    @Data
+    @Builder
+    public static class SlowQuery {
+        private String sql;
+        private List<String> parameters;
+        private String method;
+        private String thread;
+        private long durationMs;
+        // -1 si le nombre de lignes n'est pas connu (résultat non parcouru)
+        private long rows;
+        private int batchSize;
+        private Instant executedAt;
+    }
+
+    private long thresholdMs;
+    private long slowCount;
+    private List<SlowQuery> slowest;
+}
@@ -0,0 +1,44 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO décrivant la répartition du temps de démarrage de l'application
+ */
+@Data
+@Builder
+public class StartupTimeReport {
+
+    /**
+     * Durée d'une étape du démarrage, ou temps d'instanciation cumulé d'un domaine
+     */
+    @Data
+    @Builder
+    public static class Phase {
+        private String name;
+        private long durationMs;
+    }
+
+    /**
+     * Temps d'instanciation propre d'un bean (sans celui des beans dont il dépend)
+     */
+    @Data
+    @Builder
+    public static class BeanTime {
+        private String bean;
+        private String type;
+        private String area;
+        private long durationMs;
+    }
+
+    // Du lancement de la JVM à l'application prête
+    private long totalMs;
+    private boolean aot;
+    private boolean cds;
+    private List<Phase> phases;
+    private List<Phase> areas;
+    private List<BeanTime> slowestBeans;
+}
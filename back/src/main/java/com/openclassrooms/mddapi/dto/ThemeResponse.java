@@ -14,6 +14,7 @@ public class ThemeResponse {
     private String description;
     private Integer articleCount;
     private boolean isSubscribed;
+    private Long version;
     
     public void setSubscribed(boolean subscribed) {
         this.isSubscribed = subscribed;
@@ -0,0 +1,23 @@
+package com.openclassrooms.mddapi.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * DTO pour la mise à jour groupée des abonnements de l'utilisateur connecté
+ */
+@Data
+public class ThemeSubscriptionBatchRequest {
+
+    @NotNull(message = "La liste des thèmes à ajouter ne peut pas être nulle")
+    @Size(max = 100, message = "Au plus 100 thèmes peuvent être ajoutés en une fois")
+    private Set<Long> subscribe = new HashSet<>();
+
+    @NotNull(message = "La liste des thèmes à retirer ne peut pas être nulle")
+    @Size(max = 100, message = "Au plus 100 thèmes peuvent être retirés en une fois")
+    private Set<Long> unsubscribe = new HashSet<>();
+}
@@ -0,0 +1,48 @@
+package com.openclassrooms.mddapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO décrivant une trace gardée en mémoire : durée totale, temps propre de chaque couche
+ * (http, security, controller, service, repository, serialization) et, pour le détail, ses spans
+ */
+@Data
+@Builder
+public class TraceReport {
+
+    /**
+     * Span de la trace, dans l'ordre de démarrage
+     */
+    @Data
+    @Builder
+    public static class SpanNode {
+        private String spanId;
+        private String parentSpanId;
+        private int depth;
+        private String name;
+        private String layer;
+        private double startOffsetMs;
+        private double durationMs;
+        // Durée moins celle des spans enfants
+        private double selfMs;
+        private boolean error;
+        private Map<String, String> attributes;
+    }
+
+    private String traceId;
+    private String name;
+    private Instant startedAt;
+    private double durationMs;
+    private int spanCount;
+    // Temps propre cumulé par couche, de la plus coûteuse à la moins coûteuse
+    private Map<String, Double> layers;
+    // Absent de la liste des traces, présent dans le détail
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<SpanNode> spans;
+}
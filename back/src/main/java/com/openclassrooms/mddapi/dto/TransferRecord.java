@@ -0,0 +1,27 @@
+package com.openclassrooms.mddapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne NDJSON de l'export/import en masse.
+ * Le champ type indique la nature de l'enregistrement (theme, article, comment, subscription) ;
+ * seuls les champs correspondants sont renseignés.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransferRecord {
+    private String type;
+    private Long id;
+    private String name;
+    private String description;
+    private String title;
+    private String content;
+    private LocalDateTime createdAt;
+    private Long authorId;
+    private Long themeId;
+    private Long articleId;
+    private Long userId;
+}
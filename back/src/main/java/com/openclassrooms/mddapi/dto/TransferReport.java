@@ -0,0 +1,18 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * DTO pour le rapport d'un export ou d'un import en masse
+ */
+@Data
+@Builder
+public class TransferReport {
+    private long themes;
+    private long articles;
+    private long comments;
+    private long subscriptions;
+    private long durationMs;
+    private long recordsPerSecond;
+}
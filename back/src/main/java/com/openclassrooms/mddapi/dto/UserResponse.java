@@ -19,4 +19,5 @@ public class UserResponse {
     private LocalDateTime updatedAt;
     private Integer articleCount;
     private Integer commentCount;
+    private Long version;
 }
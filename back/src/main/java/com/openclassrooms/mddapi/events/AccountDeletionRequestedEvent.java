@@ -0,0 +1,8 @@
+package com.openclassrooms.mddapi.events;
+
+/**
+ * Publié lorsqu'un utilisateur demande la suppression de son compte (le compte vient d'être marqué supprimé)
+ * @param userId Identifiant de l'utilisateur
+ */
+public record AccountDeletionRequestedEvent(Long userId) {
+}
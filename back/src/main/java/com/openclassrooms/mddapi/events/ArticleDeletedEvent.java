@@ -0,0 +1,8 @@
+package com.openclassrooms.mddapi.events;
+
+/**
+ * Publié lorsqu'un article a été supprimé
+ * @param articleId Identifiant de l'article
+ */
+public record ArticleDeletedEvent(Long articleId) {
+}
@@ -0,0 +1,11 @@
+package com.openclassrooms.mddapi.events;
+
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+
+/**
+ * Publié lorsqu'un article a été créé ou modifié
+ * @param article Article tel qu'il est enregistré
+ * @param created true pour une création, false pour une modification
+ */
+public record ArticleSavedEvent(ArticleResponse article, boolean created) {
+}
@@ -0,0 +1,8 @@
+package com.openclassrooms.mddapi.events;
+
+/**
+ * Publié après une modification en masse des articles ou des données affichées avec eux
+ * (import, purge d'un compte, renommage d'un thème ou d'un utilisateur)
+ */
+public record ArticlesBulkChangedEvent() {
+}
@@ -0,0 +1,10 @@
+package com.openclassrooms.mddapi.events;
+
+/**
+ * Publié lorsque le nombre de commentaires d'un article a changé : commentaires ajoutés, supprimés,
+ * ou déplacés vers un autre article (un événement pour chacun des deux articles)
+ * @param articleId Identifiant de l'article
+ * @param count Nombre de commentaires ajoutés, négatif pour des commentaires retirés
+ */
+public record CommentsAddedEvent(Long articleId, int count) {
+}
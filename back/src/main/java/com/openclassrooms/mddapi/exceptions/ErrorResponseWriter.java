@@ -0,0 +1,134 @@
+package com.openclassrooms.mddapi.exceptions;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Écrit une ErrorResponse JSON directement dans la réponse, hors de Spring MVC (filtres de sécurité).
+ *
+ * Le corps est assemblé à partir de fragments déjà encodés : le début {"status":...,"message":"..."
+ * est gardé par statut et message, l'horodatage est formaté une fois par seconde et seul le chemin est
+ * échappé à chaque appel. Le JSON produit est celui de Jackson pour ErrorResponse (mêmes champs, même ordre,
+ * même format de date).
+ */
+@Component
+public class ErrorResponseWriter {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss");
+
+    // Les messages d'exception peuvent varier : au-delà, le début du corps est encodé à chaque appel
+    private static final int MAX_CACHED_PREFIXES = 64;
+
+    private static final byte[] PATH_FIELD = "\",\"path\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] TIMESTAMP_FIELD = "\",\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final Map<Prefix, byte[]> prefixes = new ConcurrentHashMap<>();
+    private volatile Timestamp timestamp = new Timestamp(Long.MIN_VALUE, null);
+
+    /**
+     * Écrit la réponse d'erreur
+     * @param response Réponse HTTP, pas encore engagée
+     * @param status Code d'état HTTP
+     * @param message Message d'erreur
+     * @param path Chemin de la requête
+     * @throws IOException En cas d'erreur lors de l'écriture de la réponse
+     */
+    public void write(HttpServletResponse response, int status, String message, String path) throws IOException {
+        byte[] prefix = prefix(status, message);
+        byte[] escapedPath = escape(path);
+        byte[] formattedTimestamp = timestamp();
+
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(prefix.length + PATH_FIELD.length + escapedPath.length + TIMESTAMP_FIELD.length
+                + formattedTimestamp.length + END.length);
+        ServletOutputStream out = response.getOutputStream();
+        out.write(prefix);
+        out.write(PATH_FIELD);
+        out.write(escapedPath);
+        out.write(TIMESTAMP_FIELD);
+        out.write(formattedTimestamp);
+        out.write(END);
+        out.flush();
+    }
+
+    private byte[] prefix(int status, String message) {
+        Prefix key = new Prefix(status, message);
+        byte[] prefix = prefixes.get(key);
+        if (prefix == null) {
+            prefix = ("{\"status\":" + status + ",\"message\":\"" + escapeToString(message)).getBytes(StandardCharsets.UTF_8);
+            if (prefixes.size() < MAX_CACHED_PREFIXES) {
+                prefixes.putIfAbsent(key, prefix);
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Horodatage de la seconde courante, formaté une seule fois par seconde
+     */
+    private byte[] timestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        Timestamp current = timestamp;
+        if (current.second() != second) {
+            current = new Timestamp(second, LocalDateTime.now().format(TIMESTAMP_FORMAT).getBytes(StandardCharsets.UTF_8));
+            timestamp = current;
+        }
+        return current.bytes();
+    }
+
+    private static byte[] escape(String value) {
+        if (value == null) {
+            return new byte[0];
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c >= 0x7f || c == '"' || c == '\\') {
+                return escapeToString(value).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        // ASCII sans caractère à échapper (cas des URI de requête)
+        return value.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static String escapeToString(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private record Prefix(int status, String message) {
+    }
+
+    private record Timestamp(long second, byte[] bytes) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.openclassrooms.mddapi.exceptions;
+
+/**
+ * Action refusée à l'utilisateur connecté (modification ou suppression par un autre que l'auteur),
+ * convertie en 403 par GlobalExceptionHandler.
+ *
+ * Condition métier attendue : la pile d'appels n'est pas capturée. Sous-classe d'IllegalStateException
+ * pour les blocs catch existants.
+ */
+public class ForbiddenException extends IllegalStateException {
+
+    public ForbiddenException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
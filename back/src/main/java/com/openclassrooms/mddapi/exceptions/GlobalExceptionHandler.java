@@ -5,6 +5,7 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -17,8 +18,7 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +30,9 @@ public class GlobalExceptionHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(GlobalExceptionHandler.class);
 
+    // Identifiants masqués dans les logs (« l'id : 42 », « id=42 »)
+    private static final Pattern ID_PATTERN = Pattern.compile("(id|ID|Id)\\s*[=:]\\s*\\d+");
+
     /**
      * Gère les exceptions EntityNotFoundException et les transforme en réponses HTTP 404 (Not Found)
      * au lieu de les laisser être potentiellement interceptées par Spring Security comme des 401.
@@ -42,8 +45,10 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleEntityNotFoundException(
             EntityNotFoundException ex, WebRequest request) {
         
-        logger.warn("Entité non trouvée: {}", ex.getMessage().replaceAll("(id|ID|Id)\\s*[=:]\\s*\\d+", "[ID masqué]"));
-        // Ne pas logger les stack traces en production
+        if (logger.isWarnEnabled()) {
+            logger.warn("Entité non trouvée: {}", maskIds(ex.getMessage()));
+        }
+        // Ne pas logger les stack traces en production (NotFoundException n'en capture pas)
         
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.NOT_FOUND.value(),
@@ -114,6 +119,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
     
+    /**
+     * Gère les conflits de version (en-tête If-Match périmé ou modification concurrente)
+     * et les transforme en réponses HTTP 409 (Conflict)
+     *
+     * @param ex L'exception OptimisticLockingFailureException lancée
+     * @param request La requête Web
+     * @return Une réponse avec le statut HTTP 409 et un message d'erreur
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        
+        logger.warn("Conflit de version: {}", request.getDescription(false));
+        
+        // Le message des exceptions levées par Hibernate décrit l'entité et sa requête : il n'est pas renvoyé
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "La ressource a été modifiée entre-temps. Rechargez-la avant de la modifier à nouveau.",
+                request.getDescription(false)
+        );
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+    
     /**
      * Gestionnaire pour toutes les exceptions non spécifiquement traitées
      * Cela inclut les exceptions ResponseStatusException lancées par les contrôleurs
@@ -185,13 +214,14 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler({NoHandlerFoundException.class, NoResourceFoundException.class})
     public ResponseEntity<ErrorResponse> handleNotFound(Exception ex, WebRequest request) {
-        logger.error("Ressource non trouvée: {}", request.getDescription(false));
+        String path = request.getDescription(false);
+        logger.error("Ressource non trouvée: {}", path);
         logger.debug("Détails de l'exception:", ex);
         
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.NOT_FOUND.value(),
-                "La ressource demandée n'existe pas: " + request.getDescription(false),
-                request.getDescription(false)
+                "La ressource demandée n'existe pas: " + path,
+                path
         );
         
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
@@ -240,23 +270,21 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleValidationExceptions(
             MethodArgumentNotValidException ex, WebRequest request) {
         
-        Map<String, String> errors = new HashMap<>();
-        
-        ex.getBindingResult().getAllErrors().forEach(error -> {
-            String fieldName = ((FieldError) error).getField();
-            String errorMessage = error.getDefaultMessage();
-            errors.put(fieldName, errorMessage);
-        });
-        
-        String errorMessage = errors.entrySet().stream()
-                .map(entry -> entry.getKey() + ": " + entry.getValue())
-                .collect(Collectors.joining(", "));
+        // Message construit directement, dans l'ordre des erreurs (plusieurs contraintes d'un même champ comprises)
+        StringBuilder errorMessage = new StringBuilder("Validation échouée: ");
+        int start = errorMessage.length();
+        for (FieldError error : ex.getBindingResult().getFieldErrors()) {
+            if (errorMessage.length() > start) {
+                errorMessage.append(", ");
+            }
+            errorMessage.append(error.getField()).append(": ").append(error.getDefaultMessage());
+        }
         
         logger.warn("Validation des données utilisateur échouée");
         
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.BAD_REQUEST.value(),
-                "Validation échouée: " + errorMessage,
+                errorMessage.toString(),
                 request.getDescription(false)
         );
         
@@ -285,5 +313,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Masque les identifiants d'un message avant de le journaliser
+     */
+    private static String maskIds(String message) {
+        return message != null ? ID_PATTERN.matcher(message).replaceAll("[ID masqué]") : null;
+    }
+
     // La méthode handleGlobalException a été fusionnée avec celle du haut du fichier
 }
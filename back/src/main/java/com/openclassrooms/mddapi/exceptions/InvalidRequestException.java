@@ -0,0 +1,20 @@
+package com.openclassrooms.mddapi.exceptions;
+
+/**
+ * Donnée refusée par une règle métier (nom d'utilisateur ou email déjà utilisé, ajout et retrait
+ * simultanés d'un thème), convertie en 400 par GlobalExceptionHandler.
+ *
+ * Condition métier attendue : la pile d'appels n'est pas capturée. Sous-classe d'IllegalArgumentException
+ * pour les blocs catch existants.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.mddapi.exceptions;
+
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Entité demandée absente (thème, article, utilisateur...), convertie en 404 par GlobalExceptionHandler.
+ *
+ * Levée pour des cas courants (identifiant inconnu, lien périmé, robots d'indexation) : la pile d'appels
+ * n'est pas capturée. Sous-classe d'EntityNotFoundException pour les blocs catch existants.
+ */
+public class NotFoundException extends EntityNotFoundException {
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -7,15 +7,16 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * Exception personnalisée pour les ressources non trouvées
  * L'annotation @ResponseStatus garantit que cette exception sera
  * toujours convertie en réponse HTTP 404 par Spring
+ * (sans pile d'appels, voir NotFoundException)
  */
 @ResponseStatus(HttpStatus.NOT_FOUND)
-public class ResourceNotFoundException extends RuntimeException {
+public class ResourceNotFoundException extends NotFoundException {
 
     public ResourceNotFoundException(String message) {
         super(message);
     }
 
     public ResourceNotFoundException(String resourceName, String fieldName, Object fieldValue) {
-        super(String.format("%s introuvable avec %s : '%s'", resourceName, fieldName, fieldValue));
+        super(resourceName + " introuvable avec " + fieldName + " : '" + fieldValue + "'");
     }
 }
@@ -1,36 +1,117 @@
 package com.openclassrooms.mddapi.models;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.regex.Pattern;
 
 @Entity
 @Getter
 @Setter
-@ToString(exclude = {"author", "theme", "comments"})  // Évite les boucles infinies avec les relations
+@ToString(exclude = {"author", "theme", "comments", "content"})  // Évite les boucles infinies et le chargement du contenu
 @EqualsAndHashCode(of = "id")  // Se base uniquement sur l'ID pour les comparaisons
 @Table(name = "articles")
+// Associations chargées pour construire un résumé (listes), et contenu en plus pour le détail
+@NamedEntityGraph(name = Article.WITH_AUTHOR_AND_THEME, attributeNodes = {
+        @NamedAttributeNode("author"),
+        @NamedAttributeNode("theme")
+})
+@NamedEntityGraph(name = Article.DETAIL, attributeNodes = {
+        @NamedAttributeNode("author"),
+        @NamedAttributeNode("theme"),
+        @NamedAttributeNode("content")
+})
 public class Article {
+    public static final String WITH_AUTHOR_AND_THEME = "Article.withAuthorAndTheme";
+    public static final String DETAIL = "Article.detail";
+
+    /**
+     * Longueur maximale de l'extrait (points de suspension compris)
+     */
+    public static final int EXCERPT_LENGTH = 200;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "article_id")
+    @TableGenerator(name = "article_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "articles", allocationSize = 50)
     private Long id;
 
     private String title;
+
+    // Chargé à la première lecture (entités enrichies, voir pom.xml) : seul le détail d'un article le lit
+    // LONGTEXT explicite : sans longueur, @Lob donne un TINYTEXT (255 octets) sur MySQL
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(columnDefinition = "LONGTEXT")
+    @Setter(AccessLevel.NONE)
     private String content;
+
+    // Calculé à l'écriture du contenu : les listes affichent l'extrait sans lire le contenu
+    @Column(length = EXCERPT_LENGTH)
+    @Setter(AccessLevel.NONE)
+    private String excerpt;
+
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    @ManyToOne
+    // Calculé dans la requête de chargement : évite de charger la collection comments pour la compter
+    @Formula("(SELECT COUNT(*) FROM comments c WHERE c.article_id = id)")
+    @Setter(AccessLevel.NONE)
+    private int commentCount;
+
+    // Incrémentée à chaque modification (verrouillage optimiste) ; 0 pour les lignes insérées en SQL
+    @Version
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "theme_id")
     private Theme theme;
 
     @OneToMany(mappedBy = "article", cascade = CascadeType.ALL)
     private List<Comment> comments;
+
+    /**
+     * Modifie le contenu et recalcule l'extrait
+     * @param content Contenu de l'article
+     */
+    public void setContent(String content) {
+        this.content = content;
+        this.excerpt = excerptOf(content);
+    }
+
+    /**
+     * Extrait d'un contenu : espaces regroupés, coupé au dernier mot entier qui tient dans
+     * {@link #EXCERPT_LENGTH} caractères et terminé par des points de suspension s'il est tronqué
+     * @param content Contenu de l'article
+     * @return Extrait, ou null si le contenu est null
+     */
+    public static String excerptOf(String content) {
+        if (content == null) {
+            return null;
+        }
+        String text = WHITESPACE.matcher(content).replaceAll(" ").trim();
+        if (text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+        int end = text.lastIndexOf(' ', EXCERPT_LENGTH - 1);
+        // Pas d'espace dans la seconde moitié : mot trop long, coupé au milieu
+        if (end < EXCERPT_LENGTH / 2) {
+            end = Character.isHighSurrogate(text.charAt(EXCERPT_LENGTH - 2)) ? EXCERPT_LENGTH - 2 : EXCERPT_LENGTH - 1;
+        }
+        return text.substring(0, end).stripTrailing() + "…";
+    }
 }
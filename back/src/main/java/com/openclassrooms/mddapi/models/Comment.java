@@ -1,10 +1,12 @@
 package com.openclassrooms.mddapi.models;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 
 @Entity
@@ -13,19 +15,36 @@ import java.time.LocalDateTime;
 @ToString(exclude = {"author", "article"})  // Évite les boucles infinies avec les relations
 @EqualsAndHashCode(of = "id")  // Se base uniquement sur l'ID pour les comparaisons
 @Table(name = "comments")
+// Associations chargées pour construire un CommentResponse (listes et détail)
+@NamedEntityGraph(name = Comment.WITH_AUTHOR_AND_ARTICLE, attributeNodes = {
+        @NamedAttributeNode("author"),
+        @NamedAttributeNode("article")
+})
 public class Comment {
+    public static final String WITH_AUTHOR_AND_ARTICLE = "Comment.withAuthorAndArticle";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "comment_id")
+    @TableGenerator(name = "comment_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "comments", allocationSize = 50)
     private Long id;
 
+    // Même limite que la validation de CommentRequest : un commentaire accepté n'est jamais tronqué ni refusé
+    @Column(length = 500)
     private String content;
     private LocalDateTime createdAt = LocalDateTime.now();
 
-    @ManyToOne
+    // Incrémentée à chaque modification (verrouillage optimiste) ; 0 pour les lignes insérées en SQL
+    @Version
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "article_id")
     private Article article;
 }
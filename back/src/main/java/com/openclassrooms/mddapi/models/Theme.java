@@ -1,7 +1,13 @@
 package com.openclassrooms.mddapi.models;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.EqualsAndHashCode;
@@ -13,17 +19,33 @@ import java.util.List;
 @Setter
 @ToString(exclude = {"articles", "userThemes"})  // Évite les boucles infinies avec les relations
 @EqualsAndHashCode(of = "id")  // Se base uniquement sur l'ID pour les comparaisons
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Theme.CACHE_REGION)
+@NaturalIdCache(region = Theme.NATURAL_ID_CACHE_REGION)
 public class Theme {
+    // Régions du cache de second niveau (configurées dans ehcache.xml)
+    public static final String CACHE_REGION = "themes";
+    public static final String NATURAL_ID_CACHE_REGION = "themes-natural-id";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "theme_id")
+    @TableGenerator(name = "theme_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "themes", allocationSize = 50)
     private Long id;
     
+    // Identifiant naturel : les recherches par nom passent par le cache de second niveau
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     private String name;
     
     @Column(columnDefinition = "TEXT")
     private String description;
 
+    // Incrémentée à chaque modification (verrouillage optimiste) ; 0 pour les lignes insérées en SQL
+    @Version
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @OneToMany(mappedBy = "theme", cascade = CascadeType.ALL)
     private List<Article> articles;
     
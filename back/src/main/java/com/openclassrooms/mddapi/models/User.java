@@ -1,7 +1,13 @@
 package com.openclassrooms.mddapi.models;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import lombok.Setter;
 import lombok.ToString;
 import lombok.EqualsAndHashCode;
@@ -14,18 +20,39 @@ import java.util.List;
 @ToString(exclude = {"articles", "comments"})  // Évite les boucles infinies avec les relations
 @EqualsAndHashCode(of = "id")  // Se base uniquement sur l'ID pour les comparaisons
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = User.CACHE_REGION)
+@NaturalIdCache(region = User.NATURAL_ID_CACHE_REGION)
 public class User {
+    // Régions du cache de second niveau (configurées dans ehcache.xml)
+    public static final String CACHE_REGION = "users";
+    public static final String NATURAL_ID_CACHE_REGION = "users-natural-id";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_id")
+    @TableGenerator(name = "user_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "users", allocationSize = 50)
     private Long id;
 
     private String username;
+
+    // Identifiant naturel : les recherches par email passent par le cache de second niveau
+    @NaturalId(mutable = true)
     private String email;
     private String password;
     
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Renseigné à la demande de suppression du compte : le compte est inutilisable et ses données
+    // sont purgées en arrière-plan (AccountPurgeService) avant la suppression de la ligne
+    private LocalDateTime deletedAt;
+
+    // Incrémentée à chaque modification (verrouillage optimiste) ; 0 pour les lignes insérées en SQL
+    @Version
+    @ColumnDefault("0")
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @OneToMany(mappedBy = "author", cascade = CascadeType.ALL)
     private List<Article> articles;
 
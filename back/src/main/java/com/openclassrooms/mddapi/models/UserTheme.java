@@ -5,17 +5,23 @@ import lombok.Data;
 
 @Entity
 @Data
-@Table(name = "user_theme")
+// Un seul abonnement par utilisateur et par thème, y compris entre deux mises à jour groupées concurrentes
+@Table(name = "user_theme", uniqueConstraints = @UniqueConstraint(name = UserTheme.USER_THEME_UNIQUE_KEY,
+        columnNames = {"user_id", "theme_id"}))
 public class UserTheme {
+    public static final String USER_THEME_UNIQUE_KEY = "UK_user_theme_user_id_theme_id";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "user_theme_id")
+    @TableGenerator(name = "user_theme_id", table = "id_generators", pkColumnName = "sequence_name",
+            valueColumnName = "next_val", pkColumnValue = "user_theme", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "theme_id")
     private Theme theme;
 }
@@ -3,21 +3,130 @@ package com.openclassrooms.mddapi.repositories;
 import com.openclassrooms.mddapi.models.Article;
 import com.openclassrooms.mddapi.models.Theme;
 import com.openclassrooms.mddapi.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
+    // Les associations sont LAZY : les lectures qui construisent un ArticleResponse passent par l'entity graph,
+    // les modifications et suppressions vérifient l'auteur dans la requête elle-même (WHERE ... AND author_id = ?).
+    // Le contenu est LAZY lui aussi : les listes (résumés) ne le sélectionnent pas, seul le détail le lit.
+
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
     List<Article> findByAuthor(User author);
+
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
     List<Article> findByTheme(Theme theme);
+
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
     List<Article> findByTitleContainingIgnoreCase(String title);
-    
-    @Query("SELECT a FROM Article a ORDER BY a.createdAt DESC")
-    List<Article> findAllOrderByCreatedAtDesc();
-    
+
+    @EntityGraph(Article.DETAIL)
+    Optional<Article> findDetailById(Long id);
+
+    long countByAuthorId(Long authorId);
+
+    @Query("SELECT a.author.id FROM Article a WHERE a.id = :id")
+    Optional<Long> findAuthorIdById(Long id);
+
+    /**
+     * Met à jour un article si l'utilisateur en est l'auteur et, si elle est précisée, si la version correspond
+     * @param version Version attendue de l'article, ou null pour ne pas la vérifier
+     * @return Nombre de lignes modifiées (0 si l'article n'existe pas, appartient à un autre utilisateur
+     * ou a changé de version)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Article a SET a.title = :title, a.content = :content, a.excerpt = :excerpt, a.theme = :theme, "
+            + "a.version = a.version + 1 "
+            + "WHERE a.id = :id AND a.author.id = :authorId AND (:version IS NULL OR a.version = :version)")
+    int updateByIdAndAuthorId(Long id, Long authorId, Long version, String title, String content, String excerpt,
+                              Theme theme);
+
+    /**
+     * Supprime un article si l'utilisateur en est l'auteur (ses commentaires doivent avoir été supprimés avant)
+     * @return Nombre de lignes supprimées (0 si l'article n'existe pas ou appartient à un autre utilisateur)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Article a WHERE a.id = :id AND a.author.id = :authorId")
+    int deleteByIdAndAuthorId(Long id, Long authorId);
+
+    @Query("SELECT a.id FROM Article a WHERE a.author.id = :authorId")
+    List<Long> findIdsByAuthorId(Long authorId, Pageable pageable);
+
+    /**
+     * Supprime des articles par identifiants (leurs commentaires doivent avoir été supprimés avant)
+     */
+    @Modifying
+    @Query("DELETE FROM Article a WHERE a.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    long countByThemeId(Long themeId);
+
+    /**
+     * Articles les plus récents (auteur et thème chargés), à départager par identifiant à date égale
+     */
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
+    @Query("SELECT a FROM Article a ORDER BY a.createdAt DESC, a.id DESC")
+    List<Article> findLatest(Pageable pageable);
+
+    /**
+     * Parcourt tous les articles (auteur et thème chargés) sans les charger tous en mémoire.
+     * Le flux doit être consommé dans une transaction puis fermé.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
+    @Query("SELECT a FROM Article a ORDER BY a.createdAt DESC, a.id DESC")
+    Stream<Article> streamAllOrderByCreatedAtDesc();
+
+    /**
+     * Comme {@link #streamAllOrderByCreatedAtDesc()}, limité à une page d'articles
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
+    @Query("SELECT a FROM Article a ORDER BY a.createdAt DESC, a.id DESC")
+    Stream<Article> streamLatest(Pageable pageable);
+
+    @EntityGraph(Article.WITH_AUTHOR_AND_THEME)
     @Query("SELECT a FROM Article a WHERE a.theme.id IN :themeIds")
     List<Article> findByThemeIdIn(List<Long> themeIds);
-}
\ No newline at end of file
+
+    /**
+     * Contenus des articles écrits avant le calcul de l'extrait (extrait absent, contenu présent)
+     */
+    @Query("SELECT a.id AS id, a.content AS content FROM Article a "
+            + "WHERE a.excerpt IS NULL AND a.content IS NOT NULL ORDER BY a.id")
+    List<ArticleContent> findContentsWithoutExcerpt(Pageable pageable);
+
+    /**
+     * Renseigne l'extrait d'un article sans changer sa version (le contenu n'est pas modifié)
+     */
+    @Modifying
+    @Query("UPDATE Article a SET a.excerpt = :excerpt WHERE a.id = :id")
+    int updateExcerpt(Long id, String excerpt);
+
+    /**
+     * Identifiant et contenu d'un article
+     */
+    interface ArticleContent {
+        Long getId();
+        String getContent();
+    }
+}
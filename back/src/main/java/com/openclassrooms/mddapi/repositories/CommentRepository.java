@@ -3,17 +3,93 @@ package com.openclassrooms.mddapi.repositories;
 import com.openclassrooms.mddapi.models.Article;
 import com.openclassrooms.mddapi.models.Comment;
 import com.openclassrooms.mddapi.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
+    // Les associations sont LAZY : les lectures qui construisent un CommentResponse passent par l'entity graph,
+    // les modifications et suppressions vérifient l'auteur dans la requête elle-même (WHERE ... AND author_id = ?).
+
     List<Comment> findByArticle(Article article);
+
+    @EntityGraph(Comment.WITH_AUTHOR_AND_ARTICLE)
     List<Comment> findByAuthor(User author);
-    
+
+    @EntityGraph(Comment.WITH_AUTHOR_AND_ARTICLE)
+    Optional<Comment> findDetailById(Long id);
+
+    long countByAuthorId(Long authorId);
+
+    @Query("SELECT c.author.id FROM Comment c WHERE c.id = :id")
+    Optional<Long> findAuthorIdById(Long id);
+
+    @Query("SELECT c.article.id FROM Comment c WHERE c.id = :id AND c.author.id = :authorId")
+    Optional<Long> findArticleIdByIdAndAuthorId(Long id, Long authorId);
+
+    /**
+     * Met à jour un commentaire si l'utilisateur en est l'auteur et, si elle est précisée, si la version correspond
+     * @param version Version attendue du commentaire, ou null pour ne pas la vérifier
+     * @return Nombre de lignes modifiées (0 si le commentaire n'existe pas, appartient à un autre utilisateur
+     * ou a changé de version)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Comment c SET c.content = :content, c.article = :article, c.version = c.version + 1 "
+            + "WHERE c.id = :id AND c.author.id = :authorId AND (:version IS NULL OR c.version = :version)")
+    int updateByIdAndAuthorId(Long id, Long authorId, Long version, String content, Article article);
+
+    /**
+     * Supprime un commentaire si l'utilisateur en est l'auteur
+     * @return Nombre de lignes supprimées (0 si le commentaire n'existe pas ou appartient à un autre utilisateur)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Comment c WHERE c.id = :id AND c.author.id = :authorId")
+    int deleteByIdAndAuthorId(Long id, Long authorId);
+
+    /**
+     * Supprime en une seule requête tous les commentaires d'un article, si l'utilisateur est l'auteur de l'article
+     * @return Nombre de commentaires supprimés
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Comment c WHERE c.article.id IN "
+            + "(SELECT a.id FROM Article a WHERE a.id = :articleId AND a.author.id = :authorId)")
+    int deleteByArticleIdAndArticleAuthorId(Long articleId, Long authorId);
+
+    @Query("SELECT c.id FROM Comment c WHERE c.author.id = :authorId")
+    List<Long> findIdsByAuthorId(Long authorId, Pageable pageable);
+
+    @Query("SELECT c.id FROM Comment c WHERE c.article.author.id = :authorId")
+    List<Long> findIdsByArticleAuthorId(Long authorId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    @EntityGraph(Comment.WITH_AUTHOR_AND_ARTICLE)
     @Query("SELECT c FROM Comment c WHERE c.article.id = :articleId ORDER BY c.createdAt DESC")
     List<Comment> findByArticleIdOrderByCreatedAtDesc(Long articleId);
-} 
\ No newline at end of file
+
+    /**
+     * Parcourt les commentaires d'un utilisateur (auteur et article chargés) sans les charger tous en mémoire.
+     * Le flux doit être consommé dans une transaction puis fermé.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(Comment.WITH_AUTHOR_AND_ARTICLE)
+    @Query("SELECT c FROM Comment c WHERE c.author.id = :authorId")
+    Stream<Comment> streamByAuthorId(Long authorId);
+}
\ No newline at end of file
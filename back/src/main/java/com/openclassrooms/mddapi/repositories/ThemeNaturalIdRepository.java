@@ -0,0 +1,12 @@
+package com.openclassrooms.mddapi.repositories;
+
+import com.openclassrooms.mddapi.models.Theme;
+
+import java.util.Optional;
+
+/**
+ * Recherche des thèmes par identifiant naturel (nom), servie par le cache de second niveau
+ */
+public interface ThemeNaturalIdRepository {
+    Optional<Theme> findByName(String name);
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.mddapi.repositories;
+
+import com.openclassrooms.mddapi.models.Theme;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class ThemeNaturalIdRepositoryImpl implements ThemeNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Charge un thème par son nom via le cache des identifiants naturels.
+     * La comparaison de MySQL ignorant la casse, un nom qui ne correspond pas exactement
+     * est recherché par requête comme auparavant.
+     */
+    @Override
+    public Optional<Theme> findByName(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Theme.class)
+                .loadOptional(name)
+                .filter(theme -> name.equals(theme.getName()))
+                .or(() -> entityManager.createQuery("SELECT t FROM Theme t WHERE t.name = :name", Theme.class)
+                        .setParameter("name", name)
+                        .getResultStream()
+                        .findFirst());
+    }
+}
@@ -2,14 +2,31 @@ package com.openclassrooms.mddapi.repositories;
 
 import com.openclassrooms.mddapi.models.Theme;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface ThemeRepository extends JpaRepository<Theme, Long> {
-    Optional<Theme> findByName(String name);
+public interface ThemeRepository extends JpaRepository<Theme, Long>, ThemeNaturalIdRepository {
     List<Theme> findByNameContainingIgnoreCase(String name);
     Boolean existsByName(String name);
+
+    @Query("SELECT t.id FROM Theme t WHERE t.id IN :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    /**
+     * Récupère tous les thèmes avec leur nombre d'articles, en une seule requête
+     */
+    @Query("SELECT t AS theme, (SELECT COUNT(a) FROM Article a WHERE a.theme = t) AS articleCount FROM Theme t")
+    List<ThemeWithArticleCount> findAllWithArticleCount();
+
+    /**
+     * Thème accompagné de son nombre d'articles
+     */
+    interface ThemeWithArticleCount {
+        Theme getTheme();
+        long getArticleCount();
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.openclassrooms.mddapi.repositories;
+
+import com.openclassrooms.mddapi.models.User;
+
+import java.util.Optional;
+
+/**
+ * Recherche des utilisateurs par identifiant naturel (email), servie par le cache de second niveau
+ */
+public interface UserNaturalIdRepository {
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.mddapi.repositories;
+
+import com.openclassrooms.mddapi.models.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Transactional(readOnly = true)
+public class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Charge un utilisateur par son email via le cache des identifiants naturels.
+     * La comparaison de MySQL ignorant la casse, un email qui ne correspond pas exactement
+     * est recherché par requête comme auparavant.
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email)
+                .filter(user -> email.equals(user.getEmail()))
+                .or(() -> entityManager.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class)
+                        .setParameter("email", email)
+                        .getResultStream()
+                        .findFirst());
+    }
+}
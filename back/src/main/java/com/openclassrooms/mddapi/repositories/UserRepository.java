@@ -1,15 +1,70 @@
 package com.openclassrooms.mddapi.repositories;
 
 import com.openclassrooms.mddapi.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmail(String email);
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
     Boolean existsByEmail(String email);
     Optional<User> findByUsername(String username);
     Boolean existsByUsername(String username);
+
+    /**
+     * Marque un compte comme supprimé (tombstone)
+     * @return Nombre de lignes modifiées (0 si le compte n'existe pas ou est déjà supprimé)
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.deletedAt = :deletedAt, u.version = u.version + 1 WHERE u.id = :id AND u.deletedAt IS NULL")
+    int markDeleted(Long id, LocalDateTime deletedAt);
+
+    /**
+     * Compte non marqué comme supprimé, lu en base (et non dans le cache de second niveau)
+     */
+    @Query("SELECT u FROM User u WHERE u.id = :id AND u.deletedAt IS NULL")
+    Optional<User> findActiveById(Long id);
+
+    @Query("SELECT u.id FROM User u WHERE u.deletedAt IS NOT NULL ORDER BY u.deletedAt")
+    List<Long> findDeletedIds();
+
+    /**
+     * Supprime définitivement un compte marqué comme supprimé (ses données doivent avoir été purgées)
+     * @return Nombre de lignes supprimées
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id AND u.deletedAt IS NOT NULL")
+    int deleteMarkedById(Long id);
+
+    /**
+     * Parcourt tous les utilisateurs, avec leurs nombres d'articles et de commentaires calculés dans la même requête,
+     * sans les charger tous en mémoire. Le flux doit être consommé dans une transaction puis fermé.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u AS user, "
+            + "(SELECT COUNT(a) FROM Article a WHERE a.author = u) AS articleCount, "
+            + "(SELECT COUNT(c) FROM Comment c WHERE c.author = u) AS commentCount "
+            + "FROM User u WHERE u.deletedAt IS NULL")
+    Stream<UserWithCounts> streamAllWithCounts();
+
+    /**
+     * Utilisateur accompagné de ses compteurs
+     */
+    interface UserWithCounts {
+        User getUser();
+        long getArticleCount();
+        long getCommentCount();
+    }
 } 
\ No newline at end of file
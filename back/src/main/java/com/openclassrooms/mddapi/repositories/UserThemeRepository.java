@@ -3,9 +3,13 @@ package com.openclassrooms.mddapi.repositories;
 import com.openclassrooms.mddapi.models.Theme;
 import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.models.UserTheme;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +19,18 @@ public interface UserThemeRepository extends JpaRepository<UserTheme, Long> {
     List<UserTheme> findByTheme(Theme theme);
     Optional<UserTheme> findByUserAndTheme(User user, Theme theme);
     void deleteByUserAndTheme(User user, Theme theme);
+
+    @Query("SELECT ut.theme.id FROM UserTheme ut WHERE ut.user.id = :userId")
+    List<Long> findThemeIdsByUserId(Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserTheme ut WHERE ut.user.id = :userId AND ut.theme.id IN :themeIds")
+    int deleteByUserIdAndThemeIdIn(Long userId, Collection<Long> themeIds);
+
+    @Query("SELECT ut.id FROM UserTheme ut WHERE ut.user.id = :userId")
+    List<Long> findIdsByUserId(Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM UserTheme ut WHERE ut.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
 } 
\ No newline at end of file
@@ -1,7 +1,9 @@
 package com.openclassrooms.mddapi.security;
 
+import com.openclassrooms.mddapi.exceptions.ErrorResponseWriter;
 import com.openclassrooms.mddapi.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.mddapi.security.jwt.AuthTokenFilter;
+import com.openclassrooms.mddapi.security.jwt.MissingTokenFilter;
 import com.openclassrooms.mddapi.security.services.UserDetailsServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -17,7 +19,14 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.web.filter.CorsFilter;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Configuration principale de la sécurité de l'application.
@@ -28,6 +37,7 @@ import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointR
  * - La gestion des sessions (stateless)
  * - Les headers de sécurité HTTP
  * - L'accès aux endpoints Actuator
+ * - Le rejet immédiat des requêtes sans token vers les routes protégées (MissingTokenFilter)
  * 
  * @EnableWebSecurity active la sécurité web de Spring Security
  * @EnableMethodSecurity permet l'utilisation des annotations de sécurité comme @PreAuthorize
@@ -36,12 +46,28 @@ import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointR
 @EnableWebSecurity
 @EnableMethodSecurity
 public class WebSecurityConfig {
+
+    // Routes accessibles sans authentification (en plus des endpoints actuator health et info)
+    private static final String[] PUBLIC_PATHS = {
+            "/api/auth/login",
+            "/api/auth/register",
+            "/api/test/public",
+            // Swagger UI et OpenAPI
+            "/swagger-ui/**",
+            "/swagger-ui.html",
+            "/v3/api-docs/**",
+            "/api-docs/**"
+    };
+
     @Autowired
     UserDetailsServiceImpl userDetailsService;
 
     @Autowired
     private AuthEntryPointJwt unauthorizedHandler;
 
+    @Autowired
+    private ErrorResponseWriter errorResponseWriter;
+
     /**
      * Crée et configure le filtre d'authentification JWT.
      * Ce filtre intercepte les requêtes pour vérifier la présence et la validité des tokens JWT.
@@ -105,6 +131,7 @@ public class WebSecurityConfig {
      */
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        RequestMatcher publicRoutes = publicRoutes();
         http.csrf(csrf -> csrf.disable())
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -116,22 +143,30 @@ public class WebSecurityConfig {
                 .contentSecurityPolicy(csp -> csp.policyDirectives("default-src 'self'")) // CSP
             )
             .authorizeHttpRequests(auth -> 
-                auth.requestMatchers("/api/auth/login").permitAll()
-                    .requestMatchers("/api/auth/register").permitAll()
-                    .requestMatchers("/api/test/public").permitAll()
-                    .requestMatchers(EndpointRequest.to("health", "info")).permitAll()
+                auth.requestMatchers(publicRoutes).permitAll()
                     .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
-                    // Autoriser l'accès à Swagger UI et OpenAPI sans authentification
-                    .requestMatchers("/swagger-ui/**").permitAll()
-                    .requestMatchers("/swagger-ui.html").permitAll()
-                    .requestMatchers("/v3/api-docs/**").permitAll()
-                    .requestMatchers("/api-docs/**").permitAll()
                     .anyRequest().authenticated()
             );
         
         http.authenticationProvider(authenticationProvider());
+        // Après le CorsFilter pour que la réponse 401 porte les en-têtes CORS
+        http.addFilterAfter(new MissingTokenFilter(publicRoutes, errorResponseWriter), CorsFilter.class);
         http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Routes accessibles sans authentification, partagées par les règles d'autorisation et MissingTokenFilter
+     * 
+     * @return Les chemins publics et les endpoints actuator health et info
+     */
+    private static RequestMatcher publicRoutes() {
+        List<RequestMatcher> matchers = new ArrayList<>();
+        for (String path : PUBLIC_PATHS) {
+            matchers.add(new AntPathRequestMatcher(path));
+        }
+        matchers.add(EndpointRequest.to("health", "info"));
+        return new OrRequestMatcher(matchers);
+    }
+}
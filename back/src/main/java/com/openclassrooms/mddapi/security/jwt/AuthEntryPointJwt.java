@@ -1,7 +1,8 @@
 package com.openclassrooms.mddapi.security.jwt;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.openclassrooms.mddapi.exceptions.ErrorResponse;
+import com.openclassrooms.mddapi.exceptions.ErrorResponseWriter;
+import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
@@ -10,9 +11,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
-import org.springframework.web.context.request.RequestAttributes;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.io.IOException;
 
@@ -25,14 +23,19 @@ import java.io.IOException;
  * 
  * Elle gère la création d'une réponse d'erreur formatée en JSON avec le code
  * d'état HTTP approprié (401 Unauthorized ou 404 Not Found dans certains cas spéciaux).
+ * Le corps est écrit par ErrorResponseWriter, sans passer par l'ObjectMapper.
  */
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
-    
+
+    private static final String NOT_FOUND_MESSAGE = "Ressource non trouvée";
+    private static final String UNAUTHORIZED_PREFIX = "Non autorisé: ";
+    private static final int MAX_CAUSE_DEPTH = 10;
+
     @Autowired
-    private ObjectMapper objectMapper;
+    private ErrorResponseWriter errorResponseWriter;
 
     /**
      * Méthode appelée lorsqu'une exception d'authentification est levée.
@@ -58,38 +61,35 @@ public class AuthEntryPointJwt implements AuthenticationEntryPoint {
         }
         
         // Vérifier si l'erreur provient d'une ressource non trouvée (qui ne devrait pas être 401)
-        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
-        if (requestAttributes instanceof ServletRequestAttributes) {
-            Object originalException = request.getAttribute("jakarta.servlet.error.exception");
-            if (originalException != null && originalException.toString().contains("EntityNotFoundException")) {
-                // C'est une erreur 404 déguisée, pas une erreur d'authentification
-                sendErrorResponse(response, HttpServletResponse.SC_NOT_FOUND, "Ressource non trouvée");
-                return;
-            }
+        if (isEntityNotFound(request.getAttribute(RequestDispatcher.ERROR_EXCEPTION))) {
+            // C'est une erreur 404 déguisée, pas une erreur d'authentification
+            errorResponseWriter.write(response, HttpServletResponse.SC_NOT_FOUND, NOT_FOUND_MESSAGE, path(request));
+            return;
         }
         
         // C'est une véritable erreur d'authentification
-        sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED, "Non autorisé: " + authException.getMessage());
+        errorResponseWriter.write(response, HttpServletResponse.SC_UNAUTHORIZED,
+                UNAUTHORIZED_PREFIX + authException.getMessage(), path(request));
     }
-    
+
     /**
-     * Envoie une réponse d'erreur formatée en JSON au client.
-     * 
-     * @param response La réponse HTTP à envoyer au client
-     * @param status Le code d'état HTTP à utiliser (401, 404, etc.)
-     * @param message Le message d'erreur à inclure dans la réponse
-     * @throws IOException En cas d'erreur lors de l'écriture de la réponse
+     * Chemin demandé par le client : celui d'origine si la requête a été transférée (forward)
      */
-    private void sendErrorResponse(HttpServletResponse response, int status, String message) throws IOException {
-        response.setStatus(status);
-        response.setContentType("application/json");
-        
-        ErrorResponse errorResponse = new ErrorResponse(
-                status,
-                message,
-                RequestContextHolder.currentRequestAttributes().getAttribute("jakarta.servlet.forward.request_uri", 0).toString()
-        );
-        
-        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    private static String path(HttpServletRequest request) {
+        Object forwardUri = request.getAttribute(RequestDispatcher.FORWARD_REQUEST_URI);
+        return forwardUri instanceof String uri ? uri : request.getRequestURI();
+    }
+
+    /**
+     * Exception de la requête en erreur (ou l'une de ses causes) de type EntityNotFoundException
+     */
+    private static boolean isEntityNotFound(Object exception) {
+        Throwable t = exception instanceof Throwable throwable ? throwable : null;
+        for (int depth = 0; t != null && depth < MAX_CAUSE_DEPTH; t = t.getCause(), depth++) {
+            if (t instanceof EntityNotFoundException) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
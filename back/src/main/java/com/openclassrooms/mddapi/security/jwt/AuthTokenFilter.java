@@ -1,12 +1,17 @@
 package com.openclassrooms.mddapi.security.jwt;
 
+import com.openclassrooms.mddapi.config.LayerObservationAspect;
+import com.openclassrooms.mddapi.config.RequestLogContextFilter;
 import com.openclassrooms.mddapi.security.services.UserDetailsServiceImpl;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -27,6 +32,7 @@ import java.io.IOException;
  * le contexte de sécurité Spring Security.
  * 
  * Le filtre utilise JwtUtils pour valider le token et extraire les informations utilisateur.
+ * La validation et le chargement de l'utilisateur sont observés (span « mdd.security.jwt »).
  */
 public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
@@ -35,6 +41,9 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
     /**
@@ -51,10 +60,26 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
+        String jwt = parseJwt(request);
+        if (jwt != null) {
+            Observation.createNotStarted("mdd.security.jwt", observationRegistry)
+                    .contextualName("AuthTokenFilter.authenticate")
+                    .lowCardinalityKeyValue(LayerObservationAspect.LAYER_KEY, "security")
+                    .observe(() -> authenticate(jwt, request));
+        }
+        
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Valide le token et configure le contexte de sécurité avec l'utilisateur qu'il désigne
+     * 
+     * @param jwt Le token extrait de l'en-tête Authorization
+     * @param request La requête HTTP entrante
+     */
+    private void authenticate(String jwt, HttpServletRequest request) {
         try {
-            String jwt = parseJwt(request);
-            
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
+            if (jwtUtils.validateJwtToken(jwt)) {
                 // Récupérer l'ID de l'utilisateur à partir du token
                 Long userId = jwtUtils.getUserIdFromJwtToken(jwt);
                 String username = jwtUtils.getUserNameFromJwtToken(jwt);
@@ -75,6 +100,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                // Logs de la suite de la requête (retiré par RequestLogContextFilter)
+                MDC.put(RequestLogContextFilter.USER_ID, String.valueOf(userId));
             }
         } catch (Exception e) {
             // Log minimal, sans exposer trop de détails
@@ -84,8 +111,6 @@ public class AuthTokenFilter extends OncePerRequestFilter {
                 logger.debug("Cause: {}", e.getClass().getSimpleName());
             }
         }
-        
-        filterChain.doFilter(request, response);
     }
 
     /**
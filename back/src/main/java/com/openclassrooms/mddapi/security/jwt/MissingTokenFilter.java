@@ -0,0 +1,64 @@
+package com.openclassrooms.mddapi.security.jwt;
+
+import com.openclassrooms.mddapi.exceptions.ErrorResponseWriter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejette en 401, dès le début de la chaîne de sécurité, les requêtes sans token Bearer vers une route
+ * protégée (robots, sondes, sessions expirées côté client).
+ *
+ * Sans ce filtre, une telle requête traverse toute la chaîne (contexte de sécurité, authentification anonyme,
+ * cache de requête, autorisation) avant d'aboutir à AuthEntryPointJwt. Les routes publiques, les requêtes
+ * préliminaires CORS (OPTIONS) et les requêtes qui présentent un token, même invalide, suivent le chemin
+ * habituel. La réponse est identique à celle d'AuthEntryPointJwt.
+ *
+ * Placé après le CorsFilter (configuré dans WebSecurityConfig) : le front lit ainsi le statut 401.
+ */
+public class MissingTokenFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MissingTokenFilter.class);
+
+    // Message de l'InsufficientAuthenticationException levée par Spring Security pour un utilisateur anonyme
+    private static final String MESSAGE = "Non autorisé: Full authentication is required to access this resource";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final RequestMatcher publicRoutes;
+    private final ErrorResponseWriter errorResponseWriter;
+
+    /**
+     * @param publicRoutes Routes accessibles sans authentification
+     * @param errorResponseWriter Écriture de la réponse d'erreur
+     */
+    public MissingTokenFilter(RequestMatcher publicRoutes, ErrorResponseWriter errorResponseWriter) {
+        this.publicRoutes = publicRoutes;
+        this.errorResponseWriter = errorResponseWriter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if ((authorization == null || !authorization.startsWith(BEARER_PREFIX))
+                && !HttpMethod.OPTIONS.matches(request.getMethod())
+                && !publicRoutes.matches(request)) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Requête sans token rejetée: {}", request.getRequestURI());
+            }
+            errorResponseWriter.write(response, HttpServletResponse.SC_UNAUTHORIZED, MESSAGE, request.getRequestURI());
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
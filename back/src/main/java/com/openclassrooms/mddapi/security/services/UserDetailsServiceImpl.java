@@ -15,7 +15,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     UserRepository userRepository;
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // Essayer de trouver l'utilisateur par email d'abord (car login utilise email)
         User user = userRepository.findByEmail(username)
@@ -26,6 +26,11 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                                     "Utilisateur non trouvé avec l'email ou le nom d'utilisateur: " + username));
                 });
 
+        // Un compte supprimé (en attente de purge) ne peut plus se connecter
+        if (user.getDeletedAt() != null) {
+            throw new UsernameNotFoundException("Utilisateur non trouvé avec l'email ou le nom d'utilisateur: " + username);
+        }
+
         return UserDetailsImpl.build(user);
     }
     
@@ -36,9 +41,11 @@ public class UserDetailsServiceImpl implements UserDetailsService {
      * @return Les détails de l'utilisateur
      * @throws UsernameNotFoundException Si aucun utilisateur n'est trouvé avec cet ID
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
+        // Les tokens d'un compte supprimé (en attente de purge) ne sont plus acceptés
         User user = userRepository.findById(id)
+                .filter(candidate -> candidate.getDeletedAt() == null)
                 .orElseThrow(() -> new UsernameNotFoundException("Utilisateur non trouvé avec l'ID: " + id));
         
         return UserDetailsImpl.build(user);
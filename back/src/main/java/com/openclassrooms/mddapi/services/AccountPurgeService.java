@@ -0,0 +1,327 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.dto.AccountPurgeProgress;
+import com.openclassrooms.mddapi.events.AccountDeletionRequestedEvent;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Purge en arrière-plan des comptes supprimés.
+ *
+ * La suppression d'un compte se contente de le marquer supprimé (users.deleted_at) : il ne permet plus
+ * de se connecter et n'apparaît plus dans les listes. Un unique thread supprime ensuite ses abonnements,
+ * ses commentaires, les commentaires de ses articles puis ses articles, par lots de
+ * accounts.purge.batch-size lignes, chaque lot dans sa propre transaction courte, avant de supprimer
+ * la ligne du compte. Les comptes marqués mais pas encore purgés sont repris au démarrage.
+ */
+@Service
+public class AccountPurgeService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountPurgeService.class);
+
+    private static final int PROGRESS_HISTORY_LIMIT = 1_000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @Value("${accounts.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${accounts.purge.pause-ms:20}")
+    private long pauseMs;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserThemeRepository userThemeRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Avancement des purges en cours et des dernières purges terminées (LRU borné)
+    private final Map<Long, AccountPurgeProgress> progress = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, AccountPurgeProgress> eldest) {
+                    return size() > PROGRESS_HISTORY_LIMIT;
+                }
+            });
+
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+
+    private TransactionTemplate transactionTemplate;
+    private Counter subscriptionsCounter;
+    private Counter commentsCounter;
+    private Counter articlesCounter;
+    private Counter failuresCounter;
+    private Timer purgeTimer;
+    private Thread purgeThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        subscriptionsCounter = rowsCounter("subscriptions");
+        commentsCounter = rowsCounter("comments");
+        articlesCounter = rowsCounter("articles");
+        failuresCounter = Counter.builder("mdd.accounts.purge.failures")
+                .description("Purges de comptes en échec")
+                .register(meterRegistry);
+        purgeTimer = Timer.builder("mdd.accounts.purge.duration")
+                .description("Durée de la purge d'un compte")
+                .register(meterRegistry);
+        Gauge.builder("mdd.accounts.purge.pending", queue, Collection::size)
+                .description("Comptes supprimés en attente de purge")
+                .register(meterRegistry);
+    }
+
+    private Counter rowsCounter(String type) {
+        return Counter.builder("mdd.accounts.purge.rows")
+                .description("Lignes supprimées par la purge des comptes")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Planifie la purge d'un compte une fois sa suppression validée en base
+     * @param event Demande de suppression du compte
+     */
+    @TransactionalEventListener
+    public void onAccountDeletionRequested(AccountDeletionRequestedEvent event) {
+        schedule(event.userId());
+    }
+
+    /**
+     * Avancement des purges en cours et des dernières purges terminées
+     * @return Liste des purges, de la plus ancienne à la plus récente
+     */
+    public List<AccountPurgeProgress> getProgress() {
+        synchronized (progress) {
+            return new ArrayList<>(progress.values());
+        }
+    }
+
+    /**
+     * Nombre de comptes en attente de purge
+     * @return Taille de la file
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    private void schedule(Long userId) {
+        progress.put(userId, AccountPurgeProgress.builder()
+                .userId(userId)
+                .status(AccountPurgeProgress.Status.PENDING)
+                .requestedAt(LocalDateTime.now())
+                .build());
+        queue.add(userId);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        // Reprise des comptes marqués supprimés dont la purge n'a pas été terminée
+        List<Long> pending = userRepository.findDeletedIds();
+        pending.forEach(this::schedule);
+        if (!pending.isEmpty()) {
+            logger.info("{} compte(s) supprimé(s) en attente de purge", pending.size());
+        }
+
+        purgeThread = new Thread(this::purgeLoop, "account-purge");
+        purgeThread.setDaemon(true);
+        purgeThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // La purge en cours s'arrête à la fin du lot courant, elle reprendra au prochain démarrage
+        running = false;
+        try {
+            purgeThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void purgeLoop() {
+        while (running) {
+            try {
+                Long userId = queue.poll(1, TimeUnit.SECONDS);
+                if (userId != null) {
+                    purgeTimer.record(() -> purgeWithRetry(userId));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Purge un compte ; recommence si un contenu a été créé pendant la purge (la suppression du compte
+     * échoue alors sur une clé étrangère)
+     */
+    private void purgeWithRetry(Long userId) {
+        update(userId, p -> p.toBuilder()
+                .status(AccountPurgeProgress.Status.RUNNING)
+                .startedAt(LocalDateTime.now())
+                .build());
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                if (purge(userId)) {
+                    update(userId, p -> p.toBuilder()
+                            .status(AccountPurgeProgress.Status.DONE)
+                            .finishedAt(LocalDateTime.now())
+                            .build());
+                    logger.info("Compte {} purgé", userId);
+                }
+                return;
+            } catch (InterruptedException e) {
+                // Arrêt de l'application : le compte reste marqué et sera repris au démarrage
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataIntegrityViolationException e) {
+                logger.warn("Contenu ajouté pendant la purge du compte {} (tentative {}/{})", userId, attempt, MAX_ATTEMPTS);
+            } catch (DataAccessException e) {
+                fail(userId, e);
+                return;
+            }
+        }
+        fail(userId, new IllegalStateException("Purge interrompue après " + MAX_ATTEMPTS + " tentatives"));
+    }
+
+    private void fail(Long userId, Exception e) {
+        failuresCounter.increment();
+        logger.error("Échec de la purge du compte {}: {}", userId, e.getMessage());
+        update(userId, p -> p.toBuilder()
+                .status(AccountPurgeProgress.Status.FAILED)
+                .finishedAt(LocalDateTime.now())
+                .error(e.getMessage())
+                .build());
+    }
+
+    /**
+     * Supprime les données du compte par lots, puis le compte lui-même
+     * @return false si l'arrêt de l'application a interrompu la purge
+     */
+    private boolean purge(Long userId) throws InterruptedException {
+        Pageable batch = PageRequest.ofSize(batchSize);
+
+        if (!purgeInBatches(() -> userThemeRepository.findIdsByUserId(userId, batch),
+                userThemeRepository::deleteByIdIn, subscriptionsCounter, userId,
+                (p, n) -> p.toBuilder().subscriptionsDeleted(p.getSubscriptionsDeleted() + n).build())) {
+            return false;
+        }
+        // Commentaires de l'utilisateur, puis commentaires des autres utilisateurs sur ses articles
+        if (!purgeInBatches(() -> commentRepository.findIdsByAuthorId(userId, batch),
+                commentRepository::deleteByIdIn, commentsCounter, userId,
+                (p, n) -> p.toBuilder().commentsDeleted(p.getCommentsDeleted() + n).build())) {
+            return false;
+        }
+        if (!purgeInBatches(() -> commentRepository.findIdsByArticleAuthorId(userId, batch),
+                commentRepository::deleteByIdIn, commentsCounter, userId,
+                (p, n) -> p.toBuilder().commentsDeleted(p.getCommentsDeleted() + n).build())) {
+            return false;
+        }
+        boolean articlesPurged = purgeInBatches(() -> articleRepository.findIdsByAuthorId(userId, batch),
+                articleRepository::deleteByIdIn, articlesCounter, userId,
+                (p, n) -> p.toBuilder().articlesDeleted(p.getArticlesDeleted() + n).build());
+        // Articles et commentaires supprimés en masse
+        eventPublisher.publishEvent(new ArticlesBulkChangedEvent());
+        if (!articlesPurged) {
+            return false;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> userRepository.deleteMarkedById(userId));
+        return true;
+    }
+
+    /**
+     * Sélectionne puis supprime des lots d'identifiants jusqu'à épuisement, un lot par transaction
+     * @return false si l'arrêt de l'application a interrompu la purge
+     */
+    private boolean purgeInBatches(Supplier<List<Long>> nextIds, ToIntFunction<List<Long>> delete, Counter counter,
+                                   Long userId, BiFunction<AccountPurgeProgress, Integer, AccountPurgeProgress> progressUpdate)
+            throws InterruptedException {
+        while (running) {
+            Integer deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = nextIds.get();
+                return ids.isEmpty() ? 0 : delete.applyAsInt(ids);
+            });
+            if (deleted == null || deleted == 0) {
+                return true;
+            }
+            counter.increment(deleted);
+            update(userId, p -> progressUpdate.apply(p, deleted));
+            // Laisse passer les autres transactions entre deux lots
+            Thread.sleep(pauseMs);
+        }
+        return false;
+    }
+
+    private void update(Long userId, Function<AccountPurgeProgress, AccountPurgeProgress> change) {
+        progress.computeIfPresent(userId, (id, current) -> change.apply(current));
+    }
+}
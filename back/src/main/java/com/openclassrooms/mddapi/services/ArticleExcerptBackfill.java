@@ -0,0 +1,39 @@
+package com.openclassrooms.mddapi.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Calcule au démarrage l'extrait des articles écrits avant son introduction (colonne excerpt vide),
+ * par lots de articles.excerpt-backfill.batch-size articles, chacun dans sa propre transaction.
+ * Les articles écrits ensuite reçoivent leur extrait à l'écriture (Article.setContent).
+ */
+@Component
+public class ArticleExcerptBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleExcerptBackfill.class);
+
+    @Value("${articles.excerpt-backfill.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long total = 0;
+        int completed;
+        do {
+            completed = articleService.backfillExcerpts(batchSize);
+            total += completed;
+        } while (completed == batchSize);
+        if (total > 0) {
+            logger.info("Extrait calculé pour {} article(s) existant(s)", total);
+        }
+    }
+}
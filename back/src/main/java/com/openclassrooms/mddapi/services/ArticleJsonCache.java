@@ -0,0 +1,266 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.events.ArticleDeletedEvent;
+import com.openclassrooms.mddapi.events.ArticleSavedEvent;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
+import com.openclassrooms.mddapi.events.CommentsAddedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache des représentations JSON (octets UTF-8) des articles, utilisé par la sérialisation de
+ * ArticleResponse (voir JacksonConfig) : les réponses recopient les octets en cache dans leur tampon
+ * de sortie au lieu de sérialiser à nouveau chaque article.
+ *
+ * Une entrée par article, valable pour une version de l'article : le titre et le contenu ne changent
+ * qu'avec elle. Les autres champs, qui peuvent changer sans nouvelle version (nombre de commentaires,
+ * noms de l'auteur et du thème), sont comparés à chaque lecture ; une différence remplace l'entrée.
+ * Les événements des articles retirent en plus les entrées devenues inutiles.
+ */
+@Component
+public class ArticleJsonCache {
+
+    @Value("${articles.json-cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter misses;
+
+    @PostConstruct
+    void init() {
+        hits = requestsCounter("hit");
+        misses = requestsCounter("miss");
+        Gauge.builder("mdd.articles.json-cache.size", entries, Map::size)
+                .description("Articles dont la représentation JSON est en cache")
+                .register(meterRegistry);
+    }
+
+    private Counter requestsCounter(String result) {
+        return Counter.builder("mdd.articles.json-cache.requests")
+                .description("Sérialisations d'articles, servies ou non depuis le cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Représentation JSON en cache d'un article
+     * @param article Article à sérialiser
+     * @return Octets UTF-8 de l'objet JSON, ou null si le cache n'a pas cette version de l'article
+     */
+    public SerializableString get(ArticleResponse article) {
+        Entry entry = article.getId() != null ? entries.get(article.getId()) : null;
+        if (entry == null || !entry.matches(article)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.json();
+    }
+
+    /**
+     * Met en cache la représentation JSON d'un article
+     * @param article Article sérialisé
+     * @param json Octets UTF-8 de l'objet JSON
+     * @return Représentation à écrire dans la réponse
+     */
+    public SerializableString put(ArticleResponse article, byte[] json) {
+        Utf8Json value = new Utf8Json(json);
+        // Sans version (article pas encore enregistré), la représentation n'est pas réutilisable
+        if (article.getId() == null || article.getVersion() == null) {
+            return value;
+        }
+        if (entries.size() >= maxEntries) {
+            evictSome();
+        }
+        entries.put(article.getId(), new Entry(article, value));
+        return value;
+    }
+
+    /**
+     * Nombre d'articles en cache
+     * @return Taille du cache
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    // Avant l'instantané des derniers articles (LatestArticlesSnapshot), qui sérialise à nouveau l'article
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleSaved(ArticleSavedEvent event) {
+        if (!event.created()) {
+            entries.remove(event.article().getId());
+        }
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleDeleted(ArticleDeletedEvent event) {
+        entries.remove(event.articleId());
+    }
+
+    // Commentaires ajoutés, supprimés ou déplacés : le nombre de commentaires de l'article a changé
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsAdded(CommentsAddedEvent event) {
+        entries.remove(event.articleId());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlesBulkChanged(ArticlesBulkChangedEvent event) {
+        entries.clear();
+    }
+
+    /**
+     * Libère environ un dixième du cache (entrées quelconques : le cache se remplit à nouveau à la lecture)
+     */
+    private void evictSome() {
+        int toRemove = Math.max(1, maxEntries / 10);
+        Iterator<Long> iterator = entries.keySet().iterator();
+        while (toRemove-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Représentation en cache et champs qui peuvent changer sans nouvelle version de l'article
+     */
+    private record Entry(Long version, int commentCount, LocalDateTime createdAt, Long authorId, String authorUsername,
+                         Long themeId, String themeName, Utf8Json json) {
+
+        Entry(ArticleResponse article, Utf8Json json) {
+            this(article.getVersion(), article.getCommentCount(), article.getCreatedAt(), article.getAuthorId(),
+                    article.getAuthorUsername(), article.getThemeId(), article.getThemeName(), json);
+        }
+
+        boolean matches(ArticleResponse article) {
+            return version.equals(article.getVersion())
+                    && commentCount == article.getCommentCount()
+                    && Objects.equals(createdAt, article.getCreatedAt())
+                    && Objects.equals(authorId, article.getAuthorId())
+                    && Objects.equals(authorUsername, article.getAuthorUsername())
+                    && Objects.equals(themeId, article.getThemeId())
+                    && Objects.equals(themeName, article.getThemeName());
+        }
+    }
+
+    /**
+     * Fragment JSON déjà encodé en UTF-8, écrit tel quel par JsonGenerator.writeRawValue.
+     * Seules les opérations « sans guillemets » ont un sens pour une valeur brute.
+     */
+    private static final class Utf8Json implements SerializableString {
+        private final byte[] utf8;
+
+        Utf8Json(byte[] utf8) {
+            this.utf8 = utf8;
+        }
+
+        @Override
+        public String getValue() {
+            // Générateurs à base de Writer uniquement (writeValueAsString...)
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return utf8;
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + utf8.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(utf8, 0, buffer, offset, utf8.length);
+            return utf8.length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            // -1 : le générateur se rabat sur getValue()
+            return -1;
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(utf8);
+            return utf8.length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (buffer.remaining() < utf8.length) {
+                return -1;
+            }
+            buffer.put(utf8);
+            return utf8.length;
+        }
+
+        @Override
+        public char[] asQuotedChars() {
+            throw new UnsupportedOperationException("Valeur JSON brute");
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            throw new UnsupportedOperationException("Valeur JSON brute");
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            throw new UnsupportedOperationException("Valeur JSON brute");
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            throw new UnsupportedOperationException("Valeur JSON brute");
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) {
+            throw new UnsupportedOperationException("Valeur JSON brute");
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) {
+            throw new UnsupportedOperationException("Valeur JSON brute");
+        }
+
+        @Override
+        public String toString() {
+            return getValue();
+        }
+    }
+}
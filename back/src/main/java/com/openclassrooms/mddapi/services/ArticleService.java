@@ -1,24 +1,36 @@
 package com.openclassrooms.mddapi.services;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.openclassrooms.mddapi.dto.ArticleRequest;
 import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.dto.ArticleSummaryResponse;
+import com.openclassrooms.mddapi.events.ArticleDeletedEvent;
+import com.openclassrooms.mddapi.events.ArticleSavedEvent;
 import com.openclassrooms.mddapi.models.Article;
 import com.openclassrooms.mddapi.models.Theme;
 import com.openclassrooms.mddapi.models.User;
-import com.openclassrooms.mddapi.models.UserTheme;
 import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
 import com.openclassrooms.mddapi.repositories.ThemeRepository;
 import com.openclassrooms.mddapi.repositories.UserRepository;
 import com.openclassrooms.mddapi.repositories.UserThemeRepository;
 import jakarta.persistence.EntityNotFoundException;
 import com.openclassrooms.mddapi.exceptions.ResourceNotFoundException;
+import com.openclassrooms.mddapi.exceptions.NotFoundException;
+import com.openclassrooms.mddapi.exceptions.ForbiddenException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -33,105 +45,151 @@ public class ArticleService {
     @Autowired
     private ThemeRepository themeRepository;
 
+    @Autowired
+    private CommentRepository commentRepository;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private UserThemeRepository userThemeRepository;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Écrit les résumés de tous les articles, par ordre décroissant de date de création, dans le format négocié,
+     * sans les charger tous en mémoire
+     * @param writer ObjectWriter du format de la réponse (voir ResponseFormats)
+     * @param out Flux de sortie de la réponse
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    @Transactional(readOnly = true)
+    public void streamAllArticles(ObjectWriter writer, OutputStream out) throws IOException {
+        jsonStreamWriter.writeArray(articleRepository.streamAllOrderByCreatedAtDesc(), this::mapToArticleSummary, writer, out);
+    }
+
     /**
-     * Récupère tous les articles par ordre décroissant de date de création
-     * @return Liste des articles transformés en DTO de réponse
+     * Écrit les résumés des articles les plus récents dans le format négocié
+     * @param limit Nombre maximal d'articles
+     * @param writer ObjectWriter du format de la réponse (voir ResponseFormats)
+     * @param out Flux de sortie de la réponse
+     * @throws IOException En cas d'erreur d'écriture
      */
-    public List<ArticleResponse> getAllArticles() {
-        return articleRepository.findAllOrderByCreatedAtDesc()
+    @Transactional(readOnly = true)
+    public void streamLatestArticles(int limit, ObjectWriter writer, OutputStream out) throws IOException {
+        jsonStreamWriter.writeArray(articleRepository.streamLatest(PageRequest.ofSize(limit)), this::mapToArticleSummary,
+                writer, out);
+    }
+
+    /**
+     * Récupère les articles les plus récents
+     * @param limit Nombre maximal d'articles
+     * @return Résumés des articles, du plus récent au plus ancien
+     */
+    @Transactional(readOnly = true)
+    public List<ArticleSummaryResponse> getLatestArticles(int limit) {
+        return articleRepository.findLatest(PageRequest.ofSize(limit))
                 .stream()
-                .map(this::mapToArticleResponse)
+                .map(this::mapToArticleSummary)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Récupère le résumé d'un article
+     * @param id Identifiant de l'article
+     * @return Résumé de l'article, vide s'il n'existe pas
+     */
+    @Transactional(readOnly = true)
+    public Optional<ArticleSummaryResponse> findArticleSummary(Long id) {
+        return articleRepository.findDetailById(id).map(this::mapToArticleSummary);
+    }
+
     /**
      * Récupère un article par son identifiant
      * @param id Identifiant de l'article
      * @return DTO de réponse contenant les données de l'article
      * @throws EntityNotFoundException si l'article n'existe pas
      */
+    @Transactional(readOnly = true)
     public ArticleResponse getArticleById(Long id) {
-        Article article = articleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Article non trouvé avec l'id : " + id));
+        Article article = articleRepository.findDetailById(id)
+                .orElseThrow(() -> new NotFoundException("Article non trouvé avec l'id : " + id));
         return mapToArticleResponse(article);
     }
 
     /**
      * Récupère les articles d'un thème spécifique
      * @param themeId Identifiant du thème
-     * @return Liste des articles du thème transformés en DTO de réponse
+     * @return Résumés des articles du thème
      */
-    public List<ArticleResponse> getArticlesByTheme(Long themeId) {
+    @Transactional(readOnly = true)
+    public List<ArticleSummaryResponse> getArticlesByTheme(Long themeId) {
         Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + themeId));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + themeId));
         
         return articleRepository.findByTheme(theme)
                 .stream()
-                .map(this::mapToArticleResponse)
+                .map(this::mapToArticleSummary)
                 .collect(Collectors.toList());
     }
 
     /**
      * Récupère les articles d'un utilisateur spécifique
      * @param userId Identifiant de l'utilisateur
-     * @return Liste des articles de l'utilisateur transformés en DTO de réponse
+     * @return Résumés des articles de l'utilisateur
      */
-    public List<ArticleResponse> getArticlesByUser(Long userId) {
+    @Transactional(readOnly = true)
+    public List<ArticleSummaryResponse> getArticlesByUser(Long userId) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + userId));
         
         return articleRepository.findByAuthor(user)
                 .stream()
-                .map(this::mapToArticleResponse)
+                .map(this::mapToArticleSummary)
                 .collect(Collectors.toList());
     }
 
     /**
      * Recherche des articles par titre
      * @param title Titre à rechercher
-     * @return Liste des articles correspondants transformés en DTO de réponse
+     * @return Résumés des articles correspondants
      */
-    public List<ArticleResponse> searchArticlesByTitle(String title) {
+    @Transactional(readOnly = true)
+    public List<ArticleSummaryResponse> searchArticlesByTitle(String title) {
         return articleRepository.findByTitleContainingIgnoreCase(title)
                 .stream()
-                .map(this::mapToArticleResponse)
+                .map(this::mapToArticleSummary)
                 .collect(Collectors.toList());
     }
 
     /**
      * Récupère les articles des thèmes auxquels l'utilisateur est abonné
      * @param userId ID de l'utilisateur
-     * @return Liste des articles des thèmes auxquels l'utilisateur est abonné
+     * @return Résumés des articles des thèmes auxquels l'utilisateur est abonné
      */
-    public List<ArticleResponse> getArticlesByUserSubscriptions(Long userId) {
+    @Transactional(readOnly = true)
+    public List<ArticleSummaryResponse> getArticlesByUserSubscriptions(Long userId) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + userId));
         
-        // Récupérer les thèmes auxquels l'utilisateur est abonné
-        List<UserTheme> userThemes = userThemeRepository.findByUser(user);
+        // Récupérer les IDs des thèmes auxquels l'utilisateur est abonné
+        List<Long> themeIds = userThemeRepository.findThemeIdsByUserId(user.getId());
         
-        if (userThemes.isEmpty()) {
+        if (themeIds.isEmpty()) {
             // Si l'utilisateur n'est abonné à aucun thème, retourner une liste vide
             return Collections.emptyList();
         }
         
-        // Extraire les IDs des thèmes
-        List<Long> themeIds = userThemes.stream()
-                .map(userTheme -> userTheme.getTheme().getId())
-                .collect(Collectors.toList());
-        
         // Récupérer tous les articles des thèmes auxquels l'utilisateur est abonné
         List<Article> articles = articleRepository.findByThemeIdIn(themeIds);
         
         return articles.stream()
-                .map(this::mapToArticleResponse)
-                .sorted(Comparator.comparing(ArticleResponse::getCreatedAt).reversed())
+                .map(this::mapToArticleSummary)
+                .sorted(Comparator.comparing(ArticleSummaryResponse::getCreatedAt).reversed())
                 .collect(Collectors.toList());
     }
 
@@ -158,8 +216,9 @@ public class ArticleService {
         article.setAuthor(author);
         article.setTheme(theme);
         
-        Article savedArticle = articleRepository.save(article);
-        return mapToArticleResponse(savedArticle);
+        ArticleResponse response = mapToArticleResponse(articleRepository.save(article));
+        eventPublisher.publishEvent(new ArticleSavedEvent(response, true));
+        return response;
     }
 
     /**
@@ -173,23 +232,40 @@ public class ArticleService {
      */
     @Transactional
     public ArticleResponse updateArticle(Long id, ArticleRequest articleRequest, Long userId) {
-        Article article = articleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Article non trouvé avec l'id : " + id));
-        
-        // Vérifier que l'utilisateur est bien l'auteur de l'article
-        if (!article.getAuthor().getId().equals(userId)) {
-            throw new IllegalStateException("Seul l'auteur peut modifier cet article");
+        return updateArticle(id, articleRequest, userId, null);
+    }
+
+    /**
+     * Met à jour un article existant, si sa version n'a pas changé depuis sa lecture par le client
+     * @param id Identifiant de l'article à mettre à jour
+     * @param articleRequest DTO contenant les données mises à jour
+     * @param userId Identifiant de l'utilisateur effectuant la mise à jour
+     * @param expectedVersion Version lue par le client (en-tête If-Match), ou null pour ne pas la vérifier
+     * @return DTO de réponse contenant les données de l'article mis à jour
+     * @throws EntityNotFoundException si l'article, le thème ou l'utilisateur n'existe pas
+     * @throws IllegalStateException si l'utilisateur n'est pas l'auteur de l'article
+     * @throws OptimisticLockingFailureException si l'article a été modifié depuis
+     */
+    @Transactional
+    public ArticleResponse updateArticle(Long id, ArticleRequest articleRequest, Long userId, Long expectedVersion) {
+        if (!themeRepository.existsById(articleRequest.getThemeId())) {
+            throw new NotFoundException("Thème non trouvé avec l'id : " + articleRequest.getThemeId());
         }
         
-        Theme theme = themeRepository.findById(articleRequest.getThemeId())
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + articleRequest.getThemeId()));
-        
-        article.setTitle(articleRequest.getTitle());
-        article.setContent(articleRequest.getContent());
-        article.setTheme(theme);
+        // La mise à jour ne s'applique que si l'utilisateur est bien l'auteur de l'article
+        // et que l'article est encore dans la version attendue
+        int updated = articleRepository.updateByIdAndAuthorId(id, userId, expectedVersion,
+                articleRequest.getTitle(), articleRequest.getContent(), Article.excerptOf(articleRequest.getContent()),
+                themeRepository.getReferenceById(articleRequest.getThemeId()));
+        if (updated == 0) {
+            throw updateFailure(id, userId);
+        }
         
-        Article updatedArticle = articleRepository.save(article);
-        return mapToArticleResponse(updatedArticle);
+        Article updatedArticle = articleRepository.findDetailById(id)
+                .orElseThrow(() -> new NotFoundException("Article non trouvé avec l'id : " + id));
+        ArticleResponse response = mapToArticleResponse(updatedArticle);
+        eventPublisher.publishEvent(new ArticleSavedEvent(response, false));
+        return response;
     }
 
     /**
@@ -201,15 +277,96 @@ public class ArticleService {
      */
     @Transactional
     public void deleteArticle(Long id, Long userId) {
-        Article article = articleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Article non trouvé avec l'id : " + id));
-        
-        // Vérifier que l'utilisateur est bien l'auteur de l'article
-        if (!article.getAuthor().getId().equals(userId)) {
-            throw new IllegalStateException("Seul l'auteur peut supprimer cet article");
+        // Deux requêtes ensemblistes, quel que soit le nombre de commentaires ;
+        // elles ne suppriment rien si l'utilisateur n'est pas l'auteur de l'article
+        commentRepository.deleteByArticleIdAndArticleAuthorId(id, userId);
+        if (articleRepository.deleteByIdAndAuthorId(id, userId) == 0) {
+            throw ownershipFailure(id, "supprimer");
         }
-        
-        articleRepository.delete(article);
+        eventPublisher.publishEvent(new ArticleDeletedEvent(id));
+    }
+
+    /**
+     * Construit l'exception à lever quand une modification ou suppression n'a touché aucune ligne
+     * @param id Identifiant de l'article
+     * @param action Action refusée ("modifier", "supprimer")
+     * @return EntityNotFoundException si l'article n'existe pas, IllegalStateException sinon
+     */
+    private RuntimeException ownershipFailure(Long id, String action) {
+        if (articleRepository.findAuthorIdById(id).isEmpty()) {
+            return new NotFoundException("Article non trouvé avec l'id : " + id);
+        }
+        return new ForbiddenException("Seul l'auteur peut " + action + " cet article");
+    }
+
+    /**
+     * Construit l'exception à lever quand une mise à jour n'a touché aucune ligne
+     * @param id Identifiant de l'article
+     * @param userId Identifiant de l'utilisateur effectuant la mise à jour
+     * @return EntityNotFoundException si l'article n'existe pas, IllegalStateException si l'utilisateur
+     * n'en est pas l'auteur, OptimisticLockingFailureException si sa version a changé
+     */
+    private RuntimeException updateFailure(Long id, Long userId) {
+        return articleRepository.findAuthorIdById(id)
+                .<RuntimeException>map(authorId -> authorId.equals(userId)
+                        ? new OptimisticLockingFailureException("L'article a été modifié depuis sa lecture")
+                        : new ForbiddenException("Seul l'auteur peut modifier cet article"))
+                .orElseGet(() -> new NotFoundException("Article non trouvé avec l'id : " + id));
+    }
+
+    /**
+     * Calcule l'extrait des articles écrits avant son introduction, par lots
+     * @param batchSize Nombre maximal d'articles traités
+     * @return Nombre d'articles complétés (inférieur à batchSize quand il n'en reste plus)
+     */
+    @Transactional
+    public int backfillExcerpts(int batchSize) {
+        List<ArticleRepository.ArticleContent> contents =
+                articleRepository.findContentsWithoutExcerpt(PageRequest.ofSize(batchSize));
+        for (ArticleRepository.ArticleContent content : contents) {
+            articleRepository.updateExcerpt(content.getId(), Article.excerptOf(content.getContent()));
+        }
+        return contents.size();
+    }
+
+    /**
+     * Résumé d'un article à partir de sa représentation complète (même extrait que celui enregistré)
+     * @param article DTO de réponse de l'article
+     * @return Résumé de l'article
+     */
+    static ArticleSummaryResponse summaryOf(ArticleResponse article) {
+        return ArticleSummaryResponse.builder()
+                .id(article.getId())
+                .title(article.getTitle())
+                .excerpt(Article.excerptOf(article.getContent()))
+                .createdAt(article.getCreatedAt())
+                .authorId(article.getAuthorId())
+                .authorUsername(article.getAuthorUsername())
+                .themeId(article.getThemeId())
+                .themeName(article.getThemeName())
+                .commentCount(article.getCommentCount())
+                .version(article.getVersion())
+                .build();
+    }
+
+    /**
+     * Transforme une entité Article en résumé, sans lire son contenu (chargé à la demande)
+     * @param article Entité Article à transformer
+     * @return Résumé de l'article
+     */
+    private ArticleSummaryResponse mapToArticleSummary(Article article) {
+        return ArticleSummaryResponse.builder()
+                .id(article.getId())
+                .title(article.getTitle())
+                .excerpt(article.getExcerpt())
+                .createdAt(article.getCreatedAt())
+                .authorId(article.getAuthor().getId())
+                .authorUsername(article.getAuthor().getUsername())
+                .themeId(article.getTheme().getId())
+                .themeName(article.getTheme().getName())
+                .commentCount(article.getCommentCount())
+                .version(article.getVersion())
+                .build();
     }
 
     /**
@@ -227,7 +384,8 @@ public class ArticleService {
                 .authorUsername(article.getAuthor().getUsername())
                 .themeId(article.getTheme().getId())
                 .themeName(article.getTheme().getName())
-                .commentCount(article.getComments() != null ? article.getComments().size() : 0)
+                .commentCount(article.getCommentCount())
+                .version(article.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,351 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.openclassrooms.mddapi.dto.TransferRecord;
+import com.openclassrooms.mddapi.dto.TransferReport;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
+import com.openclassrooms.mddapi.models.Article;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Service d'export et d'import en masse des thèmes, articles, commentaires et abonnements au format NDJSON.
+ *
+ * L'export lit chaque table avec un curseur JDBC en lecture seule (fetch size borné, useCursorFetch=true côté MySQL)
+ * et écrit chaque ligne dès qu'elle est lue ; l'import lit le flux ligne par ligne et insère par lots JDBC.
+ * La mémoire utilisée ne dépend donc pas du volume de données.
+ *
+ * Les identifiants sont conservés : les utilisateurs référencés (auteurs, abonnés) doivent déjà exister
+ * dans la base cible. Les lignes dont l'identifiant existe déjà sont ignorées, un import peut donc être relancé.
+ *
+ * Utilisé seulement par AdminController : créé à la première requête d'administration (@Lazy).
+ */
+@Lazy
+@Service
+public class BulkTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkTransferService.class);
+
+    public static final String TYPE_THEME = "theme";
+    public static final String TYPE_ARTICLE = "article";
+    public static final String TYPE_COMMENT = "comment";
+    public static final String TYPE_SUBSCRIPTION = "subscription";
+
+    private static final int FETCH_SIZE = 1_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final long PROGRESS_INTERVAL = 100_000;
+
+    private static final String INSERT_THEME =
+            "INSERT IGNORE INTO themes (id, name, description) VALUES (?, ?, ?)";
+    private static final String INSERT_ARTICLE =
+            "INSERT IGNORE INTO articles (id, title, content, excerpt, created_at, author_id, theme_id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_COMMENT =
+            "INSERT IGNORE INTO comments (id, content, created_at, author_id, article_id) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_SUBSCRIPTION =
+            "INSERT IGNORE INTO user_theme (id, user_id, theme_id) VALUES (?, ?, ?)";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdAllocationService idAllocationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        // JdbcTemplate dédié : les requêtes d'export sont lues par paquets au lieu d'être chargées entièrement
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Exporte toutes les données au format NDJSON, dans l'ordre thèmes, articles, commentaires, abonnements
+     * (ordre compatible avec les contraintes de clés étrangères à l'import)
+     * @param out Flux de sortie
+     * @return Rapport de l'export
+     */
+    @Transactional(readOnly = true)
+    public TransferReport exportAll(OutputStream out) {
+        Progress progress = new Progress("Export");
+        try (SequenceWriter writer = objectMapper.writerFor(TransferRecord.class)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+
+            exportQuery("SELECT id, name, description FROM themes", (rs, rowNum) -> {
+                TransferRecord record = newRecord(TYPE_THEME, rs.getLong("id"));
+                record.setName(rs.getString("name"));
+                record.setDescription(rs.getString("description"));
+                return record;
+            }, writer, progress);
+
+            exportQuery("SELECT id, title, content, created_at, author_id, theme_id FROM articles", (rs, rowNum) -> {
+                TransferRecord record = newRecord(TYPE_ARTICLE, rs.getLong("id"));
+                record.setTitle(rs.getString("title"));
+                record.setContent(rs.getString("content"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                record.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                record.setAuthorId(rs.getLong("author_id"));
+                record.setThemeId(rs.getLong("theme_id"));
+                return record;
+            }, writer, progress);
+
+            exportQuery("SELECT id, content, created_at, author_id, article_id FROM comments", (rs, rowNum) -> {
+                TransferRecord record = newRecord(TYPE_COMMENT, rs.getLong("id"));
+                record.setContent(rs.getString("content"));
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                record.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+                record.setAuthorId(rs.getLong("author_id"));
+                record.setArticleId(rs.getLong("article_id"));
+                return record;
+            }, writer, progress);
+
+            exportQuery("SELECT id, user_id, theme_id FROM user_theme", (rs, rowNum) -> {
+                TransferRecord record = newRecord(TYPE_SUBSCRIPTION, rs.getLong("id"));
+                record.setUserId(rs.getLong("user_id"));
+                record.setThemeId(rs.getLong("theme_id"));
+                return record;
+            }, writer, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de l'écriture de l'export", e);
+        }
+        return progress.finish();
+    }
+
+    /**
+     * Importe un flux NDJSON produit par {@link #exportAll(OutputStream)}.
+     * Chaque lot est validé indépendamment : en cas d'erreur, les lots précédents restent importés.
+     * Chaque ligne est vérifiée à la lecture (JSON lisible, type connu, champs obligatoires du type présents) :
+     * une ligne invalide interrompt l'import avant l'écriture du lot qui la contient.
+     * @param in Flux d'entrée
+     * @return Rapport de l'import
+     * @throws IllegalArgumentException si une ligne est illisible, n'a pas de type, a un type inconnu
+     * ou n'a pas un champ obligatoire de son type (le message indique son numéro)
+     */
+    public TransferReport importAll(InputStream in) {
+        Progress progress = new Progress("Import");
+        List<TransferRecord> batch = new ArrayList<>(BATCH_SIZE);
+        String batchType = null;
+
+        try (MappingIterator<TransferRecord> records = objectMapper.readerFor(TransferRecord.class).readValues(in)) {
+            while (records.hasNextValue()) {
+                TransferRecord record = records.nextValue();
+                if (record.getType() == null) {
+                    throw new IllegalArgumentException("Type d'enregistrement manquant après "
+                            + progress.total() + " enregistrement(s)");
+                }
+                validate(record, progress.total() + 1);
+                // Un lot ne contient qu'un seul type : il est écrit dès que le type change
+                if (!batch.isEmpty() && (!record.getType().equals(batchType) || batch.size() == BATCH_SIZE)) {
+                    insertBatch(batchType, batch);
+                    batch.clear();
+                }
+                batchType = record.getType();
+                batch.add(record);
+                progress.record(batchType);
+            }
+            if (!batch.isEmpty()) {
+                insertBatch(batchType, batch);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Enregistrement n°" + (progress.total() + 1) + " illisible : "
+                    + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erreur lors de la lecture de l'import", e);
+        } finally {
+            // Les identifiants importés doivent rester hors des blocs réservés par la suite
+            idAllocationService.synchronizeWithTables();
+            eventPublisher.publishEvent(new ArticlesBulkChangedEvent());
+        }
+        return progress.finish();
+    }
+
+    /**
+     * Vérifie les champs obligatoires d'un enregistrement selon son type : identifiant et clés étrangères,
+     * ainsi que le nom d'un thème (colonne NOT NULL)
+     * @param index Numéro de l'enregistrement dans le flux (à partir de 1)
+     */
+    private static void validate(TransferRecord record, long index) {
+        switch (record.getType()) {
+            case TYPE_THEME -> {
+                require(record.getId(), "id", record, index);
+                require(record.getName(), "name", record, index);
+            }
+            case TYPE_ARTICLE -> {
+                require(record.getId(), "id", record, index);
+                require(record.getAuthorId(), "authorId", record, index);
+                require(record.getThemeId(), "themeId", record, index);
+            }
+            case TYPE_COMMENT -> {
+                require(record.getId(), "id", record, index);
+                require(record.getAuthorId(), "authorId", record, index);
+                require(record.getArticleId(), "articleId", record, index);
+            }
+            case TYPE_SUBSCRIPTION -> {
+                require(record.getId(), "id", record, index);
+                require(record.getUserId(), "userId", record, index);
+                require(record.getThemeId(), "themeId", record, index);
+            }
+            default -> throw new IllegalArgumentException("Type d'enregistrement inconnu : " + record.getType()
+                    + " (enregistrement n°" + index + ")");
+        }
+    }
+
+    private static void require(Object value, String field, TransferRecord record, long index) {
+        if (value == null) {
+            throw new IllegalArgumentException("Champ " + field + " manquant dans l'enregistrement n°" + index
+                    + " (" + record.getType() + ")");
+        }
+    }
+
+    private void exportQuery(String sql, RowMapper<TransferRecord> rowMapper, SequenceWriter writer, Progress progress) {
+        try (Stream<TransferRecord> rows = jdbcTemplate.queryForStream(sql, rowMapper)) {
+            rows.forEach(record -> {
+                try {
+                    writer.write(record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                progress.record(record.getType());
+            });
+        }
+    }
+
+    private void insertBatch(String type, List<TransferRecord> batch) {
+        switch (type) {
+            case TYPE_THEME -> executeBatch(INSERT_THEME, batch, (ps, r) -> {
+                ps.setLong(1, r.getId());
+                ps.setString(2, r.getName());
+                ps.setString(3, r.getDescription());
+            });
+            case TYPE_ARTICLE -> executeBatch(INSERT_ARTICLE, batch, (ps, r) -> {
+                ps.setLong(1, r.getId());
+                ps.setString(2, r.getTitle());
+                ps.setString(3, r.getContent());
+                ps.setString(4, Article.excerptOf(r.getContent()));
+                setTimestamp(ps, 5, r);
+                ps.setLong(6, r.getAuthorId());
+                ps.setLong(7, r.getThemeId());
+            });
+            case TYPE_COMMENT -> executeBatch(INSERT_COMMENT, batch, (ps, r) -> {
+                ps.setLong(1, r.getId());
+                ps.setString(2, r.getContent());
+                setTimestamp(ps, 3, r);
+                ps.setLong(4, r.getAuthorId());
+                ps.setLong(5, r.getArticleId());
+            });
+            case TYPE_SUBSCRIPTION -> executeBatch(INSERT_SUBSCRIPTION, batch, (ps, r) -> {
+                ps.setLong(1, r.getId());
+                ps.setLong(2, r.getUserId());
+                ps.setLong(3, r.getThemeId());
+            });
+            default -> throw new IllegalArgumentException("Type d'enregistrement inconnu : " + type);
+        }
+    }
+
+    private void executeBatch(String sql, List<TransferRecord> batch, ParameterizedPreparedStatementSetter<TransferRecord> setter) {
+        jdbcTemplate.batchUpdate(sql, batch, batch.size(), setter);
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, TransferRecord record) throws SQLException {
+        if (record.getCreatedAt() != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(record.getCreatedAt()));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+
+    private static TransferRecord newRecord(String type, long id) {
+        TransferRecord record = new TransferRecord();
+        record.setType(type);
+        record.setId(id);
+        return record;
+    }
+
+    /**
+     * Compteurs d'avancement d'un transfert, journalisés à intervalle régulier
+     */
+    private static final class Progress {
+        private final String operation;
+        private final long start = System.nanoTime();
+        private long themes;
+        private long articles;
+        private long comments;
+        private long subscriptions;
+
+        private Progress(String operation) {
+            this.operation = operation;
+        }
+
+        private void record(String type) {
+            switch (type) {
+                case TYPE_THEME -> themes++;
+                case TYPE_ARTICLE -> articles++;
+                case TYPE_COMMENT -> comments++;
+                case TYPE_SUBSCRIPTION -> subscriptions++;
+                default -> throw new IllegalArgumentException("Type d'enregistrement inconnu : " + type);
+            }
+            long total = total();
+            if (total % PROGRESS_INTERVAL == 0) {
+                logger.info("{} en cours : {} enregistrement(s), {} enregistrements/s", operation, total, rate(total));
+            }
+        }
+
+        private long total() {
+            return themes + articles + comments + subscriptions;
+        }
+
+        private long elapsedMs() {
+            return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        }
+
+        private long rate(long total) {
+            return total * 1000 / elapsedMs();
+        }
+
+        private TransferReport finish() {
+            long total = total();
+            TransferReport report = TransferReport.builder()
+                    .themes(themes)
+                    .articles(articles)
+                    .comments(comments)
+                    .subscriptions(subscriptions)
+                    .durationMs(elapsedMs())
+                    .recordsPerSecond(rate(total))
+                    .build();
+            logger.info("{} terminé : {}", operation, report);
+            return report;
+        }
+    }
+}
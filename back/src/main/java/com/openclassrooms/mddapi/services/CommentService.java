@@ -1,18 +1,26 @@
 package com.openclassrooms.mddapi.services;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.openclassrooms.mddapi.dto.CommentRequest;
 import com.openclassrooms.mddapi.dto.CommentResponse;
+import com.openclassrooms.mddapi.events.CommentsAddedEvent;
 import com.openclassrooms.mddapi.models.Article;
 import com.openclassrooms.mddapi.models.Comment;
 import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.repositories.ArticleRepository;
 import com.openclassrooms.mddapi.repositories.CommentRepository;
 import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.exceptions.NotFoundException;
+import com.openclassrooms.mddapi.exceptions.ForbiddenException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -31,11 +39,18 @@ public class CommentService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Récupère tous les commentaires d'un article
      * @param articleId Identifiant de l'article
      * @return Liste des commentaires transformés en DTO de réponse
      */
+    @Transactional(readOnly = true)
     public List<CommentResponse> getCommentsByArticle(Long articleId) {
         return commentRepository.findByArticleIdOrderByCreatedAtDesc(articleId)
                 .stream()
@@ -44,18 +59,19 @@ public class CommentService {
     }
 
     /**
-     * Récupère tous les commentaires d'un utilisateur
+     * Écrit les commentaires d'un utilisateur dans le format négocié, sans les charger tous en mémoire
      * @param userId Identifiant de l'utilisateur
-     * @return Liste des commentaires transformés en DTO de réponse
+     * @param writer ObjectWriter du format de la réponse (voir ResponseFormats)
+     * @param out Flux de sortie de la réponse (rien n'y est écrit si l'utilisateur n'existe pas)
+     * @throws EntityNotFoundException si l'utilisateur n'existe pas
+     * @throws IOException En cas d'erreur d'écriture
      */
-    public List<CommentResponse> getCommentsByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
-        
-        return commentRepository.findByAuthor(user)
-                .stream()
-                .map(this::mapToCommentResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void streamCommentsByUser(Long userId, ObjectWriter writer, OutputStream out) throws IOException {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Utilisateur non trouvé avec l'id : " + userId);
+        }
+        jsonStreamWriter.writeArray(commentRepository.streamByAuthorId(userId), this::mapToCommentResponse, writer, out);
     }
 
     /**
@@ -64,9 +80,10 @@ public class CommentService {
      * @return DTO de réponse contenant les données du commentaire
      * @throws EntityNotFoundException si le commentaire n'existe pas
      */
+    @Transactional(readOnly = true)
     public CommentResponse getCommentById(Long id) {
-        Comment comment = commentRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Commentaire non trouvé avec l'id : " + id));
+        Comment comment = commentRepository.findDetailById(id)
+                .orElseThrow(() -> new NotFoundException("Commentaire non trouvé avec l'id : " + id));
         return mapToCommentResponse(comment);
     }
 
@@ -80,10 +97,10 @@ public class CommentService {
     @Transactional
     public CommentResponse createComment(CommentRequest commentRequest, Long userId) {
         User author = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + userId));
         
         Article article = articleRepository.findById(commentRequest.getArticleId())
-                .orElseThrow(() -> new EntityNotFoundException("Article non trouvé avec l'id : " + commentRequest.getArticleId()));
+                .orElseThrow(() -> new NotFoundException("Article non trouvé avec l'id : " + commentRequest.getArticleId()));
         
         Comment comment = new Comment();
         comment.setContent(commentRequest.getContent());
@@ -91,6 +108,7 @@ public class CommentService {
         comment.setArticle(article);
         
         Comment savedComment = commentRepository.save(comment);
+        eventPublisher.publishEvent(new CommentsAddedEvent(article.getId(), 1));
         return mapToCommentResponse(savedComment);
     }
 
@@ -105,24 +123,44 @@ public class CommentService {
      */
     @Transactional
     public CommentResponse updateComment(Long id, CommentRequest commentRequest, Long userId) {
-        Comment comment = commentRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Commentaire non trouvé avec l'id : " + id));
-        
-        // Vérifier que l'utilisateur est bien l'auteur du commentaire
-        if (!comment.getAuthor().getId().equals(userId)) {
-            throw new IllegalStateException("Seul l'auteur peut modifier ce commentaire");
+        return updateComment(id, commentRequest, userId, null);
+    }
+
+    /**
+     * Met à jour un commentaire existant, si sa version n'a pas changé depuis sa lecture par le client
+     * @param id Identifiant du commentaire à mettre à jour
+     * @param commentRequest DTO contenant les données mises à jour
+     * @param userId Identifiant de l'utilisateur effectuant la mise à jour
+     * @param expectedVersion Version lue par le client (en-tête If-Match), ou null pour ne pas la vérifier
+     * @return DTO de réponse contenant les données du commentaire mis à jour
+     * @throws EntityNotFoundException si le commentaire, l'article ou l'utilisateur n'existe pas
+     * @throws IllegalStateException si l'utilisateur n'est pas l'auteur du commentaire
+     * @throws OptimisticLockingFailureException si le commentaire a été modifié depuis
+     */
+    @Transactional
+    public CommentResponse updateComment(Long id, CommentRequest commentRequest, Long userId, Long expectedVersion) {
+        if (!articleRepository.existsById(commentRequest.getArticleId())) {
+            throw new NotFoundException("Article non trouvé avec l'id : " + commentRequest.getArticleId());
         }
         
-        // Vérifier si l'article a changé
-        if (!comment.getArticle().getId().equals(commentRequest.getArticleId())) {
-            Article article = articleRepository.findById(commentRequest.getArticleId())
-                    .orElseThrow(() -> new EntityNotFoundException("Article non trouvé avec l'id : " + commentRequest.getArticleId()));
-            comment.setArticle(article);
+        // Article d'avant la mise à jour : le commentaire peut changer d'article
+        Long previousArticleId = commentRepository.findArticleIdByIdAndAuthorId(id, userId)
+                .orElseThrow(() -> updateFailure(id, userId));
+
+        // La mise à jour ne s'applique que si l'utilisateur est bien l'auteur du commentaire
+        // et que le commentaire est encore dans la version attendue
+        int updated = commentRepository.updateByIdAndAuthorId(id, userId, expectedVersion, commentRequest.getContent(),
+                articleRepository.getReferenceById(commentRequest.getArticleId()));
+        if (updated == 0) {
+            throw updateFailure(id, userId);
+        }
+        if (!commentRequest.getArticleId().equals(previousArticleId)) {
+            eventPublisher.publishEvent(new CommentsAddedEvent(previousArticleId, -1));
+            eventPublisher.publishEvent(new CommentsAddedEvent(commentRequest.getArticleId(), 1));
         }
         
-        comment.setContent(commentRequest.getContent());
-        
-        Comment updatedComment = commentRepository.save(comment);
+        Comment updatedComment = commentRepository.findDetailById(id)
+                .orElseThrow(() -> new NotFoundException("Commentaire non trouvé avec l'id : " + id));
         return mapToCommentResponse(updatedComment);
     }
 
@@ -135,15 +173,41 @@ public class CommentService {
      */
     @Transactional
     public void deleteComment(Long id, Long userId) {
-        Comment comment = commentRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Commentaire non trouvé avec l'id : " + id));
-        
-        // Vérifier que l'utilisateur est bien l'auteur du commentaire
-        if (!comment.getAuthor().getId().equals(userId)) {
-            throw new IllegalStateException("Seul l'auteur peut supprimer ce commentaire");
+        Long articleId = commentRepository.findArticleIdByIdAndAuthorId(id, userId)
+                .orElseThrow(() -> ownershipFailure(id, "supprimer"));
+        // La suppression ne s'applique que si l'utilisateur est bien l'auteur du commentaire
+        if (commentRepository.deleteByIdAndAuthorId(id, userId) == 0) {
+            throw ownershipFailure(id, "supprimer");
         }
-        
-        commentRepository.delete(comment);
+        eventPublisher.publishEvent(new CommentsAddedEvent(articleId, -1));
+    }
+
+    /**
+     * Construit l'exception à lever quand une modification ou suppression n'a touché aucune ligne
+     * @param id Identifiant du commentaire
+     * @param action Action refusée ("modifier", "supprimer")
+     * @return EntityNotFoundException si le commentaire n'existe pas, IllegalStateException sinon
+     */
+    private RuntimeException ownershipFailure(Long id, String action) {
+        if (commentRepository.findAuthorIdById(id).isEmpty()) {
+            return new NotFoundException("Commentaire non trouvé avec l'id : " + id);
+        }
+        return new ForbiddenException("Seul l'auteur peut " + action + " ce commentaire");
+    }
+
+    /**
+     * Construit l'exception à lever quand une mise à jour n'a touché aucune ligne
+     * @param id Identifiant du commentaire
+     * @param userId Identifiant de l'utilisateur effectuant la mise à jour
+     * @return EntityNotFoundException si le commentaire n'existe pas, IllegalStateException si l'utilisateur
+     * n'en est pas l'auteur, OptimisticLockingFailureException si sa version a changé
+     */
+    private RuntimeException updateFailure(Long id, Long userId) {
+        return commentRepository.findAuthorIdById(id)
+                .<RuntimeException>map(authorId -> authorId.equals(userId)
+                        ? new OptimisticLockingFailureException("Le commentaire a été modifié depuis sa lecture")
+                        : new ForbiddenException("Seul l'auteur peut modifier ce commentaire"))
+                .orElseGet(() -> new NotFoundException("Commentaire non trouvé avec l'id : " + id));
     }
 
     /**
@@ -160,6 +224,7 @@ public class CommentService {
                 .authorUsername(comment.getAuthor().getUsername())
                 .articleId(comment.getArticle().getId())
                 .articleTitle(comment.getArticle().getTitle())
+                .version(comment.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,534 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.dto.CommentRequest;
+import com.openclassrooms.mddapi.dto.CommentResponse;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
+import com.openclassrooms.mddapi.events.CommentsAddedEvent;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.exceptions.NotFoundException;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * File d'écriture différée (write-behind) pour la création de commentaires.
+ *
+ * Lorsque le mode est activé (comments.write-behind.enabled=true), un commentaire validé reçoit
+ * immédiatement un identifiant, est ajouté à un journal local puis placé dans une file bornée. Le journal est
+ * synchronisé sur disque (fsync) par groupes : les requêtes arrivées pendant un fsync partagent le suivant,
+ * et chacune n'est acquittée qu'une fois sa ligne synchronisée.
+ *
+ * Un unique thread d'écriture vide la file par lots JDBC, ce qui conserve l'ordre d'acceptation des
+ * commentaires de chaque article. Seules les erreurs passagères (base indisponible, verrou, délai dépassé)
+ * font réessayer le lot ; pour toute autre erreur, le lot est repris ligne par ligne et les commentaires refusés
+ * par la base (article supprimé entre-temps...) sont journalisés en erreur et copiés dans le fichier
+ * comments.write-behind.dead-letter-file. Au redémarrage, le journal est rejoué : un identifiant déjà présent
+ * en base signifie que le commentaire avait été écrit, il n'est donc jamais écrit deux fois.
+ *
+ * Les clés d'idempotence sont propres à chaque utilisateur : la même clé envoyée par deux utilisateurs
+ * crée deux commentaires.
+ *
+ * Les identifiants sont réservés dans le compteur "comments" de la table id_generators,
+ * comme ceux attribués par Hibernate : les deux chemins d'écriture peuvent coexister.
+ */
+@Service
+public class CommentWriteBehindService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentWriteBehindService.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO comments (id, content, created_at, author_id, article_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final int IDEMPOTENCY_KEYS_LIMIT = 10_000;
+
+    @Value("${comments.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${comments.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${comments.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${comments.write-behind.spool-file:comments-spool.ndjson}")
+    private String spoolFile;
+
+    @Value("${comments.write-behind.spool-compaction-bytes:8388608}")
+    private long spoolCompactionBytes;
+
+    @Value("${comments.write-behind.dead-letter-file:comments-dead-letter.ndjson}")
+    private String deadLetterFile;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private IdAllocationService idAllocationService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Clés d'idempotence récentes (utilisateur, clé) -> réponse déjà renvoyée au client (LRU borné)
+    private final Map<IdempotencyKey, CommentResponse> idempotencyKeys = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<IdempotencyKey, CommentResponse> eldest) {
+                    return size() > IDEMPOTENCY_KEYS_LIMIT;
+                }
+            });
+
+    // Protège l'ajout au journal + à la file, ainsi que la troncature du journal
+    private final Object spoolLock = new Object();
+
+    // Protège le fsync du journal ; pris après spoolLock (compaction), jamais l'inverse
+    private final Object syncLock = new Object();
+
+    // Nombre de lignes ajoutées au journal (écrit sous spoolLock) et nombre de lignes synchronisées sur disque
+    private volatile long appendedCount;
+    private volatile long durableCount;
+
+    private BlockingQueue<PendingComment> queue;
+    private Path spoolPath;
+    private Path deadLetterPath;
+    private volatile FileChannel spool;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    /**
+     * Commentaire accepté mais pas encore écrit en base, tel qu'il est journalisé dans le fichier local
+     */
+    public record PendingComment(Long id, String idempotencyKey, String content, LocalDateTime createdAt,
+                                 Long authorId, String authorUsername, Long articleId) {
+    }
+
+    /**
+     * Commentaire refusé par la base, tel qu'il est copié dans le fichier des rejets
+     */
+    public record RejectedComment(PendingComment comment, String reason, LocalDateTime rejectedAt) {
+    }
+
+    private record IdempotencyKey(Long userId, String key) {
+    }
+
+    /**
+     * Indique si le mode d'écriture différée est activé
+     * @return true si les commentaires sont acceptés puis écrits en arrière-plan
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accepte un commentaire : lui attribue un identifiant, le journalise puis le place dans la file d'écriture
+     * @param commentRequest DTO contenant les données du commentaire
+     * @param userId Identifiant de l'auteur
+     * @param username Nom de l'auteur
+     * @param idempotencyKey Clé d'idempotence fournie par le client (optionnelle)
+     * @return DTO de réponse contenant l'identifiant attribué
+     * @throws EntityNotFoundException si l'article n'existe pas
+     * @throws ResponseStatusException (503) si la file d'écriture est pleine
+     */
+    public CommentResponse enqueue(CommentRequest commentRequest, Long userId, String username, String idempotencyKey) {
+        IdempotencyKey key = idempotencyKey != null ? new IdempotencyKey(userId, idempotencyKey) : null;
+        if (key != null) {
+            CommentResponse previous = idempotencyKeys.get(key);
+            if (previous != null) {
+                // La première requête n'a peut-être pas encore été acquittée
+                awaitDurable(appendedCount);
+                return previous;
+            }
+        }
+
+        if (!articleRepository.existsById(commentRequest.getArticleId())) {
+            throw new NotFoundException("Article non trouvé avec l'id : " + commentRequest.getArticleId());
+        }
+
+        CommentResponse response;
+        long position;
+        synchronized (spoolLock) {
+            CommentResponse previous = key != null ? idempotencyKeys.get(key) : null;
+            if (previous != null) {
+                response = previous;
+            } else {
+                if (queue.remainingCapacity() == 0) {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                            "Trop de commentaires en attente, veuillez réessayer dans quelques instants");
+                }
+
+                PendingComment pending = new PendingComment(idAllocationService.nextId("comments"), idempotencyKey,
+                        commentRequest.getContent(), LocalDateTime.now(), userId, username, commentRequest.getArticleId());
+                appendToSpool(pending);
+                queue.add(pending);
+
+                response = mapToCommentResponse(pending);
+                if (key != null) {
+                    idempotencyKeys.put(key, response);
+                }
+            }
+            position = appendedCount;
+        }
+
+        // Hors de spoolLock : les requêtes suivantes s'ajoutent au journal pendant le fsync et partagent le prochain
+        awaitDurable(position);
+        return response;
+    }
+
+    /**
+     * Nombre de commentaires acceptés en attente d'écriture
+     * @return Taille courante de la file
+     */
+    public int getPendingCount() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(capacity);
+        spoolPath = Path.of(spoolFile);
+        deadLetterPath = Path.of(deadLetterFile);
+        try {
+            replaySpool();
+            spool = FileChannel.open(spoolPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible d'ouvrir le journal des commentaires " + spoolPath, e);
+        }
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "comment-write-behind");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Écriture différée des commentaires activée (capacité: {}, lots de {})", capacity, batchSize);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // Le thread d'écriture vide la file avant de s'arrêter
+        running = false;
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            spool.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.warn("Erreur lors de la fermeture du journal des commentaires: {}", e.getMessage());
+        }
+        logger.info("Écriture différée des commentaires arrêtée ({} commentaire(s) restant dans le journal)", queue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Démarre avant le serveur web et s'arrête après lui
+        return 0;
+    }
+
+    /**
+     * Boucle du thread d'écriture : vide la file par lots jusqu'à l'arrêt
+     */
+    private void writeLoop() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingComment first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                if (!flushWithRetry(batch)) {
+                    // Arrêt demandé pendant une panne : les commentaires restent dans le journal
+                    return;
+                }
+                batch.clear();
+                compactSpool();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Écrit un lot en base, en réessayant tant que l'erreur est passagère et que le service tourne
+     * @return true si le lot a été traité (commentaires écrits ou rejetés)
+     */
+    private boolean flushWithRetry(List<PendingComment> batch) throws InterruptedException {
+        while (true) {
+            try {
+                publishAdded(flush(batch));
+                return true;
+            } catch (DataAccessException e) {
+                logger.error("Échec de l'écriture d'un lot de {} commentaire(s), nouvel essai: {}", batch.size(), e.getMessage());
+                if (!running) {
+                    return false;
+                }
+                TimeUnit.SECONDS.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * Écrit un lot en une requête groupée ; si la base le refuse, reprend le lot ligne par ligne
+     * @return Commentaires présents en base (les commentaires rejetés en sont exclus)
+     * @throws DataAccessException si l'erreur est passagère : le lot entier doit être réessayé
+     */
+    private List<PendingComment> flush(List<PendingComment> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, pending) -> {
+                ps.setLong(1, pending.id());
+                ps.setString(2, pending.content());
+                ps.setTimestamp(3, Timestamp.valueOf(pending.createdAt()));
+                ps.setLong(4, pending.authorId());
+                ps.setLong(5, pending.articleId());
+            });
+            return batch;
+        } catch (DataAccessException e) {
+            if (isRetryable(e)) {
+                throw e;
+            }
+            logger.warn("Lot de {} commentaire(s) refusé ({}), reprise ligne par ligne", batch.size(), e.getMessage());
+        }
+
+        // Une partie du lot a pu être écrite avant l'erreur : l'identifiant déjà présent le signale
+        List<PendingComment> written = new ArrayList<>(batch.size());
+        for (PendingComment pending : batch) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, pending.id(), pending.content(), Timestamp.valueOf(pending.createdAt()),
+                        pending.authorId(), pending.articleId());
+                written.add(pending);
+            } catch (DuplicateKeyException e) {
+                written.add(pending);
+            } catch (DataAccessException e) {
+                if (isRetryable(e)) {
+                    throw e;
+                }
+                reject(pending, e);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Erreurs pour lesquelles le lot est réessayé plus tard. Outre les erreurs passagères, une base injoignable
+     * (CannotGetJdbcConnectionException est une DataAccessResourceFailureException) est réessayée :
+     * une panne de la base ne doit pas rejeter tous les commentaires en attente.
+     */
+    private static boolean isRetryable(DataAccessException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException;
+    }
+
+    /**
+     * Commentaire refusé par la base : journalisé en erreur, copié dans le fichier des rejets,
+     * et sa clé d'idempotence est oubliée pour qu'un nouvel envoi soit de nouveau traité
+     */
+    private void reject(PendingComment pending, DataAccessException cause) {
+        String reason = cause.getMostSpecificCause().getMessage();
+        logger.error("Commentaire {} rejeté par la base (article {}, auteur {}): {}",
+                pending.id(), pending.articleId(), pending.authorId(), reason);
+        if (pending.idempotencyKey() != null) {
+            idempotencyKeys.remove(new IdempotencyKey(pending.authorId(), pending.idempotencyKey()));
+        }
+
+        try (FileChannel deadLetter = FileChannel.open(deadLetterPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            String line = objectMapper.writeValueAsString(new RejectedComment(pending, reason, LocalDateTime.now()));
+            writeFully(deadLetter, line + "\n");
+            deadLetter.force(false);
+        } catch (IOException e) {
+            logger.error("Impossible de copier le commentaire {} dans {}: {} - contenu: {}",
+                    pending.id(), deadLetterPath, e.getMessage(), pending);
+        }
+    }
+
+    /**
+     * Signale les commentaires écrits, par article
+     */
+    private void publishAdded(List<PendingComment> batch) {
+        batch.stream()
+                .collect(Collectors.groupingBy(PendingComment::articleId, Collectors.summingInt(pending -> 1)))
+                .forEach((articleId, count) -> eventPublisher.publishEvent(new CommentsAddedEvent(articleId, count)));
+    }
+
+    /**
+     * Ajoute un commentaire au journal, sans fsync (appelé sous spoolLock)
+     */
+    private void appendToSpool(PendingComment pending) {
+        try {
+            writeFully(spool, objectMapper.writeValueAsString(pending) + "\n");
+            appendedCount++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de journaliser le commentaire", e);
+        }
+    }
+
+    /**
+     * Attend que les lignes du journal jusqu'à la position donnée soient synchronisées sur disque.
+     * Le premier appelant fait le fsync pour toutes les lignes déjà ajoutées ; les autres attendent le verrou,
+     * puis repartent sans nouveau fsync si leur ligne a été couverte.
+     */
+    private void awaitDurable(long position) {
+        if (durableCount >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableCount >= position) {
+                return;
+            }
+            long target = appendedCount;
+            try {
+                spool.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible de synchroniser le journal des commentaires", e);
+            }
+            durableCount = target;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, String text) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Après l'écriture d'un lot, vide le journal si tout a été écrit,
+     * ou le réécrit avec les seuls commentaires en attente s'il est devenu trop gros
+     */
+    private void compactSpool() {
+        synchronized (spoolLock) {
+            synchronized (syncLock) {
+                try {
+                    if (queue.isEmpty()) {
+                        // Tout ce qui a été journalisé est en base
+                        spool.truncate(0);
+                        durableCount = appendedCount;
+                    } else if (spool.size() > spoolCompactionBytes) {
+                        Path tmp = spoolPath.resolveSibling(spoolPath.getFileName() + ".tmp");
+                        try (FileChannel compacted = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                            for (PendingComment pending : queue) {
+                                writeFully(compacted, objectMapper.writeValueAsString(pending) + "\n");
+                            }
+                            compacted.force(false);
+                        }
+                        spool.close();
+                        Files.move(tmp, spoolPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        spool = FileChannel.open(spoolPath, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                        // Les commentaires en attente sont tous dans le journal réécrit, synchronisé avant le renommage
+                        durableCount = appendedCount;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Impossible de compacter le journal des commentaires: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejoue les commentaires journalisés lors d'une exécution précédente
+     */
+    private void replaySpool() throws IOException {
+        List<PendingComment> replayed = new ArrayList<>();
+
+        if (Files.exists(spoolPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(spoolPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        replayed.add(objectMapper.readValue(line, PendingComment.class));
+                    } catch (IOException e) {
+                        // Dernière ligne tronquée par un arrêt brutal : elle n'a jamais été acquittée
+                        logger.warn("Ligne illisible ignorée dans le journal des commentaires");
+                    }
+                }
+            }
+        }
+
+        for (int from = 0; from < replayed.size(); from += batchSize) {
+            for (PendingComment pending : flush(replayed.subList(from, Math.min(from + batchSize, replayed.size())))) {
+                if (pending.idempotencyKey() != null) {
+                    idempotencyKeys.put(new IdempotencyKey(pending.authorId(), pending.idempotencyKey()),
+                            mapToCommentResponse(pending));
+                }
+            }
+        }
+        Files.deleteIfExists(spoolPath);
+
+        if (!replayed.isEmpty()) {
+            // Certains commentaires rejoués avaient peut-être déjà été écrits : les compteurs sont recalculés
+            eventPublisher.publishEvent(new ArticlesBulkChangedEvent());
+            logger.info("{} commentaire(s) rejoué(s) depuis le journal {}", replayed.size(), spoolPath);
+        }
+    }
+
+    private CommentResponse mapToCommentResponse(PendingComment pending) {
+        return CommentResponse.builder()
+                .id(pending.id())
+                .content(pending.content())
+                .createdAt(pending.createdAt())
+                .authorId(pending.authorId())
+                .authorUsername(pending.authorUsername())
+                .articleId(pending.articleId())
+                .build();
+    }
+}
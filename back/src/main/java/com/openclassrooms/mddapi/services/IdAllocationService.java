@@ -0,0 +1,119 @@
+package com.openclassrooms.mddapi.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gestion de la table id_generators utilisée par les @TableGenerator des entités.
+ *
+ * Les entités réservent leurs identifiants par blocs de {@link #ALLOCATION_SIZE} (optimiseur "pooled" d'Hibernate) :
+ * la table stocke la dernière valeur utilisée (hibernate.id.generator.stored_last_used, actif par défaut), une valeur V
+ * lue dans la table réserve donc les identifiants ]V + 1 - ALLOCATION_SIZE, V + 1]. Ce service
+ * - recale au démarrage chaque compteur au-dessus du plus grand identifiant déjà présent dans sa table
+ *   (bases créées avec des colonnes AUTO_INCREMENT, imports avec identifiants explicites) ;
+ * - permet aux écritures JDBC directes de réserver des identifiants selon le même protocole qu'Hibernate.
+ */
+@Service
+public class IdAllocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdAllocationService.class);
+
+    /**
+     * Taille des blocs réservés : doit correspondre à l'allocationSize des @TableGenerator des entités
+     */
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Compteur (sequence_name) -> table des entités correspondantes
+    private static final Map<String, String> SEQUENCE_TABLES = Map.of(
+            "users", "users",
+            "themes", "themes",
+            "articles", "articles",
+            "comments", "comments",
+            "user_theme", "user_theme");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Garantit que le schéma a été créé/mis à jour par Hibernate avant la synchronisation
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final Map<String, IdBlock> blocks = new ConcurrentHashMap<>();
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        synchronizeWithTables();
+    }
+
+    /**
+     * Place chaque compteur au-dessus du plus grand identifiant de sa table.
+     * À appeler après toute insertion d'identifiants explicites (import de données).
+     */
+    public void synchronizeWithTables() {
+        SEQUENCE_TABLES.forEach((sequence, table) -> newTransaction.executeWithoutResult(status -> {
+            long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+            long minNextVal = maxId + ALLOCATION_SIZE;
+
+            List<Long> current = jdbcTemplate.queryForList(
+                    "SELECT next_val FROM id_generators WHERE sequence_name = ? FOR UPDATE", Long.class, sequence);
+            if (current.isEmpty()) {
+                jdbcTemplate.update("INSERT INTO id_generators (sequence_name, next_val) VALUES (?, ?)",
+                        sequence, minNextVal);
+            } else if (current.get(0) < minNextVal) {
+                jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ?",
+                        minNextVal, sequence);
+                logger.info("Compteur d'identifiants '{}' recalé de {} à {}", sequence, current.get(0), minNextVal);
+            }
+        }));
+    }
+
+    /**
+     * Réserve un identifiant pour une insertion JDBC directe, sans collision avec ceux attribués par Hibernate
+     * @param sequence Nom du compteur (ex: "comments")
+     * @return Identifiant libre
+     */
+    public long nextId(String sequence) {
+        IdBlock block = blocks.computeIfAbsent(sequence, key -> new IdBlock());
+        synchronized (block) {
+            if (block.next > block.hi) {
+                block.hi = reserveBlock(sequence) + 1;
+                block.next = block.hi - ALLOCATION_SIZE + 1;
+            }
+            return block.next++;
+        }
+    }
+
+    private long reserveBlock(String sequence) {
+        return newTransaction.execute(status -> {
+            long value = jdbcTemplate.queryForObject(
+                    "SELECT next_val FROM id_generators WHERE sequence_name = ? FOR UPDATE", Long.class, sequence);
+            jdbcTemplate.update("UPDATE id_generators SET next_val = ? WHERE sequence_name = ?",
+                    value + ALLOCATION_SIZE, sequence);
+            return value;
+        });
+    }
+
+    private static final class IdBlock {
+        private long next = 1;
+        private long hi = 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Écrit un flux d'entités sous forme de tableau JSON (ou CBOR/Smile), directement dans le flux de sortie de la réponse.
+ *
+ * Chaque élément est transformé en DTO, écrit puis, s'il s'agit d'une entité, détaché du contexte de persistance ;
+ * le contexte est vidé et la sortie envoyée au client tous les {@link #CHUNK_SIZE} éléments, et à la fin.
+ * La mémoire utilisée ne dépend donc pas du nombre de lignes. Doit être appelé dans une transaction (lecture seule) qui garde le curseur ouvert.
+ */
+@Component
+public class JsonStreamWriter {
+
+    /**
+     * Nombre d'éléments écrits entre deux envois au client (aligné sur le fetch size des requêtes en flux)
+     */
+    public static final int CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Set<Class<?>> entityClasses;
+
+    @PostConstruct
+    void init() {
+        entityClasses = entityManager.getMetamodel().getEntities().stream()
+                .map(EntityType::getJavaType)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Écrit les éléments du flux sous forme de tableau, dans le format de l'ObjectWriter donné
+     * (JSON, CBOR ou Smile, avec une éventuelle sélection de champs)
+     * @param elements Flux d'entités ou de projections (fermé à la fin de l'écriture)
+     * @param mapper Transformation d'un élément en DTO de réponse
+     * @param writer ObjectWriter du format de la réponse
+     * @param out Flux de sortie
+     * @return Nombre d'éléments écrits
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public <E, D> long writeArray(Stream<E> elements, Function<E, D> mapper, ObjectWriter writer, OutputStream out)
+            throws IOException {
+        // Pas de flush après chaque élément : l'envoi au client se fait par paquets
+        ObjectWriter elementWriter = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long count = 0;
+        try (elements; JsonGenerator generator = elementWriter.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            // Le flux de la réponse est fermé par le conteneur de servlets
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<E> iterator = elements.iterator();
+            while (iterator.hasNext()) {
+                E element = iterator.next();
+                elementWriter.writeValue(generator, mapper.apply(element));
+                if (entityClasses.contains(element.getClass())) {
+                    entityManager.detach(element);
+                }
+                if (++count % CHUNK_SIZE == 0) {
+                    // Libère aussi les entités associées (auteurs, thèmes...) et celles portées par les projections
+                    entityManager.clear();
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+        // Entités du dernier paquet, incomplet
+        entityManager.clear();
+        return count;
+    }
+}
@@ -0,0 +1,318 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.openclassrooms.mddapi.dto.ArticleSummaryResponse;
+import com.openclassrooms.mddapi.events.ArticleDeletedEvent;
+import com.openclassrooms.mddapi.events.ArticleSavedEvent;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
+import com.openclassrooms.mddapi.events.CommentsAddedEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Instantané en mémoire des articles les plus récents, servi sans requête SQL par GET /api/articles.
+ *
+ * L'instantané est un tableau immuable des résumés des articles.latest.size derniers articles, chacun déjà
+ * sérialisé en JSON. Une lecture se contente de lire la référence volatile puis d'écrire les octets ; chaque modification
+ * construit un nouveau tableau sous verrou et remplace la référence.
+ *
+ * Il est mis à jour après la validation des transactions par les événements des articles (création,
+ * modification, suppression) et des commentaires (ajout, suppression, déplacement vers un autre article),
+ * et rechargé entièrement après une modification en masse. Le rechargement périodique
+ * (articles.latest.reload-interval) rattrape les écritures d'une autre instance de l'application.
+ */
+@Service
+public class LatestArticlesSnapshot implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestArticlesSnapshot.class);
+
+    // Même ordre que ArticleRepository.findLatest : du plus récent au plus ancien
+    private static final Comparator<ArticleSummaryResponse> ORDER = Comparator
+            .comparing(ArticleSummaryResponse::getCreatedAt)
+            .thenComparing(ArticleSummaryResponse::getId)
+            .reversed();
+
+    @Value("${articles.latest.size:100}")
+    private int size;
+
+    @Value("${articles.latest.reload-interval:60s}")
+    private Duration reloadInterval;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Object refreshLock = new Object();
+
+    // null tant que l'instantané n'est pas chargé, ou après un échec : les lectures passent alors par la base
+    private volatile Snapshot snapshot;
+
+    private TransactionTemplate transactionTemplate;
+    // Sérialiseur des articles résolu une fois pour toutes
+    private ObjectWriter articleWriter;
+    private ScheduledExecutorService executor;
+    private volatile boolean running;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        articleWriter = objectMapper.writerFor(ArticleSummaryResponse.class);
+        // Appelé après la validation d'une autre transaction : il en faut une nouvelle, en lecture-écriture
+        // pour lire sur le primaire (le réplica peut ne pas encore voir la modification)
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Écrit les articles les plus récents sous forme de tableau JSON, si l'instantané suffit à y répondre
+     * @param limit Nombre maximal d'articles, ou null pour tous les articles
+     * @param out Flux de sortie de la réponse
+     * @return false si rien n'a été écrit : l'instantané n'est pas chargé ou ne contient pas assez d'articles
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public boolean writeTo(Integer limit, OutputStream out) throws IOException {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return false;
+        }
+        Entry[] entries = current.entries();
+        // Au-delà des articles retenus, la liste n'est exacte que si la table n'en contient pas d'autres
+        if (!current.complete() && (limit == null || limit > entries.length)) {
+            return false;
+        }
+
+        int count = limit == null ? entries.length : Math.min(limit, entries.length);
+        out.write('[');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(entries[i].json());
+        }
+        out.write(']');
+        return true;
+    }
+
+    /**
+     * Ajoute un article créé, ou remplace un article retenu qui a été modifié
+     * @param event Article enregistré
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleSaved(ArticleSavedEvent event) {
+        ArticleSummaryResponse article = ArticleService.summaryOf(event.article());
+        update(current -> {
+            int index = current.indexOf(article.getId());
+            if (index >= 0) {
+                // La date de création ne change pas : l'article garde sa place
+                return current.replace(index, entry(article));
+            }
+            return event.created() ? current.insert(entry(article), size) : current;
+        });
+    }
+
+    /**
+     * Retire un article supprimé. L'instantané peut alors contenir moins de articles.latest.size articles :
+     * il reste exact pour les limites qu'il couvre, les autres lectures passent par la base jusqu'au rechargement
+     * @param event Article supprimé
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleDeleted(ArticleDeletedEvent event) {
+        update(current -> {
+            int index = current.indexOf(event.articleId());
+            return index < 0 ? current : current.remove(index);
+        });
+    }
+
+    /**
+     * Met à jour le nombre de commentaires d'un article retenu. L'article est relu en base plutôt que de
+     * lui ajouter event.count() : un rechargement terminé entre la validation et cet appel compte déjà
+     * ces commentaires. La lecture a lieu sous le verrou des rechargements, après la validation.
+     * @param event Commentaires ajoutés ou retirés
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentsAdded(CommentsAddedEvent event) {
+        update(current -> {
+            int index = current.indexOf(event.articleId());
+            if (index < 0) {
+                return current;
+            }
+            return transactionTemplate.execute(status -> articleService.findArticleSummary(event.articleId()))
+                    .map(article -> current.replace(index, entry(article)))
+                    // Supprimé entre-temps : son événement de suppression suit
+                    .orElseGet(() -> current.remove(index));
+        });
+    }
+
+    /**
+     * Recharge l'instantané après une modification en masse
+     * @param event Modification en masse
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlesBulkChanged(ArticlesBulkChangedEvent event) {
+        reload();
+    }
+
+    /**
+     * Recharge l'instantané depuis la base. En cas d'échec, l'instantané est abandonné
+     * et les lectures passent par la base jusqu'au prochain rechargement réussi.
+     */
+    public void reload() {
+        synchronized (refreshLock) {
+            try {
+                // Un article de plus que la taille retenue indique si la table en contient d'autres
+                List<ArticleSummaryResponse> latest = transactionTemplate.execute(status -> articleService.getLatestArticles(size + 1));
+                boolean complete = latest.size() <= size;
+                snapshot = new Snapshot(latest.stream()
+                        .limit(size)
+                        .map(this::entry)
+                        .toArray(Entry[]::new), complete);
+            } catch (RuntimeException e) {
+                snapshot = null;
+                logger.error("Impossible de charger les derniers articles: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void update(SnapshotChange change) {
+        synchronized (refreshLock) {
+            Snapshot current = snapshot;
+            if (current == null) {
+                // Pas encore chargé : le chargement lira la modification en base
+                return;
+            }
+            try {
+                snapshot = change.apply(current);
+            } catch (RuntimeException e) {
+                snapshot = null;
+                logger.error("Impossible de mettre à jour les derniers articles: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Entry entry(ArticleSummaryResponse article) {
+        try {
+            return new Entry(article, articleWriter.writeValueAsBytes(article));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void start() {
+        reload();
+        if (snapshot != null) {
+            logger.info("{} article(s) récent(s) chargé(s) en mémoire", snapshot.entries().length);
+        }
+        if (reloadInterval.isPositive()) {
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "latest-articles-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMillis = reloadInterval.toMillis();
+            executor.scheduleWithFixedDelay(this::reload, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Chargé avant le démarrage du serveur web
+        return 0;
+    }
+
+    @FunctionalInterface
+    private interface SnapshotChange {
+        Snapshot apply(Snapshot current);
+    }
+
+    /**
+     * Article retenu et sa représentation JSON
+     */
+    private record Entry(ArticleSummaryResponse article, byte[] json) {
+    }
+
+    /**
+     * Tableau immuable des articles retenus, du plus récent au plus ancien
+     * @param entries Articles retenus (le tableau n'est jamais modifié après sa construction)
+     * @param complete true si la table ne contient pas d'autre article
+     */
+    private record Snapshot(Entry[] entries, boolean complete) {
+
+        int indexOf(Long articleId) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i].article().getId().equals(articleId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Snapshot replace(int index, Entry entry) {
+            Entry[] next = entries.clone();
+            next[index] = entry;
+            return new Snapshot(next, complete);
+        }
+
+        Snapshot remove(int index) {
+            Entry[] next = new Entry[entries.length - 1];
+            System.arraycopy(entries, 0, next, 0, index);
+            System.arraycopy(entries, index + 1, next, index, entries.length - index - 1);
+            return new Snapshot(next, complete);
+        }
+
+        Snapshot insert(Entry entry, int maxSize) {
+            int position = 0;
+            while (position < entries.length && ORDER.compare(entries[position].article(), entry.article()) < 0) {
+                position++;
+            }
+            // Plus ancien que tous les articles retenus alors que d'autres ne le sont pas : sa place est inconnue
+            if (position == maxSize || (position == entries.length && !complete)) {
+                return this;
+            }
+            Entry[] next = new Entry[Math.min(entries.length + 1, maxSize)];
+            System.arraycopy(entries, 0, next, 0, position);
+            next[position] = entry;
+            System.arraycopy(entries, position, next, position + 1, next.length - position - 1);
+            return new Snapshot(next, complete && entries.length < maxSize);
+        }
+    }
+}
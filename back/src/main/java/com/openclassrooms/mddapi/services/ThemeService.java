@@ -2,10 +2,15 @@ package com.openclassrooms.mddapi.services;
 
 import com.openclassrooms.mddapi.dto.ThemeRequest;
 import com.openclassrooms.mddapi.dto.ThemeResponse;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
 import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
 import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.exceptions.NotFoundException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,15 +22,22 @@ public class ThemeService {
     
     @Autowired
     private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
     
     /**
      * Récupère tous les thèmes
      * @return Liste de tous les thèmes transformés en DTO de réponse
      */
+    @Transactional(readOnly = true)
     public List<ThemeResponse> getAllThemes() {
-        return themeRepository.findAll()
+        return themeRepository.findAllWithArticleCount()
                 .stream()
-                .map(this::mapToThemeResponse)
+                .map(row -> mapToThemeResponse(row.getTheme(), row.getArticleCount()))
                 .collect(Collectors.toList());
     }
     
@@ -35,9 +47,10 @@ public class ThemeService {
      * @return DTO de réponse contenant les données du thème
      * @throws EntityNotFoundException si le thème n'existe pas
      */
+    @Transactional(readOnly = true)
     public ThemeResponse getThemeById(Long id) {
         Theme theme = themeRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + id));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + id));
         return mapToThemeResponse(theme);
     }
     
@@ -47,9 +60,10 @@ public class ThemeService {
      * @return DTO de réponse contenant les données du thème
      * @throws EntityNotFoundException si le thème n'existe pas
      */
+    @Transactional(readOnly = true)
     public ThemeResponse getThemeByName(String name) {
         Theme theme = themeRepository.findByName(name)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec le nom : " + name));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec le nom : " + name));
         return mapToThemeResponse(theme);
     }
     
@@ -77,13 +91,36 @@ public class ThemeService {
      */
     @Transactional
     public ThemeResponse updateTheme(Long id, ThemeRequest themeRequest) {
+        return updateTheme(id, themeRequest, null);
+    }
+
+    /**
+     * Met à jour un thème existant, si sa version n'a pas changé depuis sa lecture par le client
+     * @param id Identifiant du thème à mettre à jour
+     * @param themeRequest DTO contenant les données mises à jour
+     * @param expectedVersion Version lue par le client (en-tête If-Match), ou null pour ne pas la vérifier
+     * @return DTO de réponse contenant les données du thème mis à jour
+     * @throws EntityNotFoundException si le thème n'existe pas
+     * @throws OptimisticLockingFailureException si le thème a été modifié depuis
+     */
+    @Transactional
+    public ThemeResponse updateTheme(Long id, ThemeRequest themeRequest, Long expectedVersion) {
         Theme theme = themeRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + id));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + id));
+        if (expectedVersion != null && !expectedVersion.equals(theme.getVersion())) {
+            throw new OptimisticLockingFailureException("Le thème a été modifié depuis sa lecture");
+        }
         
+        if (!theme.getName().equals(themeRequest.getName())) {
+            // Le nom du thème est affiché avec chacun de ses articles
+            eventPublisher.publishEvent(new ArticlesBulkChangedEvent());
+        }
         theme.setName(themeRequest.getName());
         theme.setDescription(themeRequest.getDescription());
         
-        Theme updatedTheme = themeRepository.save(theme);
+        // Écrit immédiatement pour renvoyer la nouvelle version (une écriture concurrente lève une
+        // OptimisticLockingFailureException)
+        Theme updatedTheme = themeRepository.saveAndFlush(theme);
         return mapToThemeResponse(updatedTheme);
     }
     
@@ -95,9 +132,11 @@ public class ThemeService {
     @Transactional
     public void deleteTheme(Long id) {
         Theme theme = themeRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + id));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + id));
         
         themeRepository.delete(theme);
+        // Les articles du thème sont supprimés avec lui
+        eventPublisher.publishEvent(new ArticlesBulkChangedEvent());
     }
     
     /**
@@ -105,21 +144,33 @@ public class ThemeService {
      * @param id Identifiant du thème
      * @return true si le thème existe, false sinon
      */
+    @Transactional(readOnly = true)
     public boolean existsById(Long id) {
         return themeRepository.existsById(id);
     }
     
     /**
-     * Transforme une entité Theme en DTO de réponse
+     * Transforme une entité Theme en DTO de réponse (le nombre d'articles est obtenu par une requête COUNT)
      * @param theme Entité Theme à transformer
      * @return DTO de réponse contenant les données du thème
      */
     private ThemeResponse mapToThemeResponse(Theme theme) {
+        return mapToThemeResponse(theme, articleRepository.countByThemeId(theme.getId()));
+    }
+
+    /**
+     * Transforme une entité Theme et son nombre d'articles en DTO de réponse
+     * @param theme Entité Theme à transformer
+     * @param articleCount Nombre d'articles du thème
+     * @return DTO de réponse contenant les données du thème
+     */
+    private ThemeResponse mapToThemeResponse(Theme theme, long articleCount) {
         return ThemeResponse.builder()
                 .id(theme.getId())
                 .name(theme.getName())
                 .description(theme.getDescription())
-                .articleCount(theme.getArticles() != null ? theme.getArticles().size() : 0)
+                .articleCount((int) articleCount)
+                .version(theme.getVersion())
                 .build();
     }
 }
\ No newline at end of file
@@ -1,20 +1,31 @@
 package com.openclassrooms.mddapi.services;
 
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.openclassrooms.mddapi.dto.UserRequest;
 import com.openclassrooms.mddapi.dto.UserResponse;
+import com.openclassrooms.mddapi.events.AccountDeletionRequestedEvent;
+import com.openclassrooms.mddapi.events.ArticlesBulkChangedEvent;
 import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
 import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.exceptions.NotFoundException;
+import com.openclassrooms.mddapi.exceptions.InvalidRequestException;
 import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Service pour la gestion des utilisateurs
@@ -22,21 +33,36 @@ import java.util.stream.Collectors;
 @Service
 public class UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
-     * Récupère tous les utilisateurs
-     * @return Liste de tous les utilisateurs transformés en DTO de réponse
+     * Écrit tous les utilisateurs dans le format négocié, sans les charger tous en mémoire
+     * @param writer ObjectWriter du format de la réponse (voir ResponseFormats)
+     * @param out Flux de sortie de la réponse
+     * @throws IOException En cas d'erreur d'écriture
      */
-    public List<UserResponse> getAllUsers() {
-        return userRepository.findAll()
-                .stream()
-                .map(this::mapToUserResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public void streamAllUsers(ObjectWriter writer, OutputStream out) throws IOException {
+        jsonStreamWriter.writeArray(userRepository.streamAllWithCounts(),
+                row -> mapToUserResponse(row.getUser(), row.getArticleCount(), row.getCommentCount()), writer, out);
     }
 
     /**
@@ -45,9 +71,11 @@ public class UserService {
      * @return DTO de réponse contenant les données de l'utilisateur
      * @throws EntityNotFoundException si l'utilisateur n'existe pas
      */
+    @Transactional(readOnly = true)
     public UserResponse getUserById(Long id) {
         User user = userRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + id));
+                .filter(found -> found.getDeletedAt() == null)
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + id));
         return mapToUserResponse(user);
     }
 
@@ -57,9 +85,11 @@ public class UserService {
      * @return DTO de réponse contenant les données de l'utilisateur
      * @throws EntityNotFoundException si l'utilisateur n'existe pas
      */
+    @Transactional(readOnly = true)
     public UserResponse getUserByUsername(String username) {
         User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec le nom d'utilisateur : " + username));
+                .filter(found -> found.getDeletedAt() == null)
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec le nom d'utilisateur : " + username));
         return mapToUserResponse(user);
     }
 
@@ -69,9 +99,11 @@ public class UserService {
      * @return DTO de réponse contenant les données de l'utilisateur
      * @throws EntityNotFoundException si l'utilisateur n'existe pas
      */
+    @Transactional(readOnly = true)
     public UserResponse getUserByEmail(String email) {
         User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'email : " + email));
+                .filter(found -> found.getDeletedAt() == null)
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'email : " + email));
         return mapToUserResponse(user);
     }
 
@@ -86,70 +118,79 @@ public class UserService {
      */
     @Transactional
     public UserResponse updateUser(Long id, UserRequest userRequest, Long currentUserId) {
-        System.out.println("Tentative de mise à jour de l'utilisateur - ID: " + id + ", currentUserId: " + currentUserId);
-        System.out.println("Données reçues: username=" + userRequest.getUsername() + ", email=" + userRequest.getEmail() + ", password présent: " + (userRequest.getPassword() != null && !userRequest.getPassword().isEmpty()));
-        
-        try {
-            // Vérifier si l'utilisateur essaie de modifier un autre compte que le sien
-            if (!id.equals(currentUserId)) {
-                System.out.println("Erreur: Tentative de modification d'un autre compte");
-                throw new AccessDeniedException("Vous n'êtes pas autorisé à modifier cet utilisateur");
-            }
+        return updateUser(id, userRequest, currentUserId, null);
+    }
 
-            System.out.println("Recherche de l'utilisateur dans la base de données");
-            User user = userRepository.findById(id)
-                    .orElseThrow(() -> {
-                        System.out.println("Erreur: Utilisateur non trouvé avec l'id: " + id);
-                        return new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + id);
-                    });
-            System.out.println("Utilisateur trouvé: " + user.getUsername() + " (" + user.getEmail() + ")");
-
-            // Mettre à jour les champs modifiables
-            if (userRequest.getUsername() != null && !userRequest.getUsername().isEmpty()) {
-                System.out.println("Vérification si le nom d'utilisateur " + userRequest.getUsername() + " existe déjà");
-                // Vérifier si le nouveau nom d'utilisateur existe déjà (sauf s'il s'agit du même utilisateur)
-                Optional<User> existingUser = userRepository.findByUsername(userRequest.getUsername());
-                if (existingUser.isPresent() && !existingUser.get().getId().equals(id)) {
-                    System.out.println("Erreur: Nom d'utilisateur déjà utilisé par un autre utilisateur");
-                    throw new IllegalArgumentException("Ce nom d'utilisateur est déjà utilisé");
-                }
-                System.out.println("Mise à jour du nom d'utilisateur: " + user.getUsername() + " -> " + userRequest.getUsername());
-                user.setUsername(userRequest.getUsername());
-            }
+    /**
+     * Met à jour les informations d'un utilisateur, si son compte n'a pas changé depuis sa lecture par le client
+     * @param id Identifiant de l'utilisateur à mettre à jour
+     * @param userRequest DTO contenant les données mises à jour
+     * @param currentUserId Identifiant de l'utilisateur effectuant la mise à jour
+     * @param expectedVersion Version lue par le client (en-tête If-Match), ou null pour ne pas la vérifier
+     * @return DTO de réponse contenant les données de l'utilisateur mis à jour
+     * @throws EntityNotFoundException si l'utilisateur n'existe pas
+     * @throws AccessDeniedException si l'utilisateur essaie de modifier un autre utilisateur
+     * @throws OptimisticLockingFailureException si le compte a été modifié depuis
+     */
+    @Transactional
+    public UserResponse updateUser(Long id, UserRequest userRequest, Long currentUserId, Long expectedVersion) {
+        // Identifiants uniquement : le nom d'utilisateur et l'email ne sont pas journalisés
+        logger.debug("Mise à jour de l'utilisateur {} par {}", id, currentUserId);
+
+        // Vérifier si l'utilisateur essaie de modifier un autre compte que le sien
+        if (!id.equals(currentUserId)) {
+            logger.warn("Tentative de modification du compte {} par l'utilisateur {}", id, currentUserId);
+            throw new AccessDeniedException("Vous n'êtes pas autorisé à modifier cet utilisateur");
+        }
+
+        // Un compte supprimé (purge en cours) n'est plus modifiable, même avec un jeton encore valide
+        User user = userRepository.findActiveById(id)
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + id));
+        if (expectedVersion != null && !expectedVersion.equals(user.getVersion())) {
+            throw new OptimisticLockingFailureException("Le compte a été modifié depuis sa lecture");
+        }
 
-            if (userRequest.getEmail() != null && !userRequest.getEmail().isEmpty()) {
-                System.out.println("Vérification si l'email " + userRequest.getEmail() + " existe déjà");
-                // Vérifier si le nouvel email existe déjà (sauf s'il s'agit du même utilisateur)
-                Optional<User> existingUser = userRepository.findByEmail(userRequest.getEmail());
-                if (existingUser.isPresent() && !existingUser.get().getId().equals(id)) {
-                    System.out.println("Erreur: Email déjà utilisé par un autre utilisateur");
-                    throw new IllegalArgumentException("Cet email est déjà utilisé");
-                }
-                System.out.println("Mise à jour de l'email: " + user.getEmail() + " -> " + userRequest.getEmail());
-                user.setEmail(userRequest.getEmail());
+        // Mettre à jour les champs modifiables
+        if (userRequest.getUsername() != null && !userRequest.getUsername().isEmpty()) {
+            // Vérifier si le nouveau nom d'utilisateur existe déjà (sauf s'il s'agit du même utilisateur)
+            Optional<User> existingUser = userRepository.findByUsername(userRequest.getUsername());
+            if (existingUser.isPresent() && !existingUser.get().getId().equals(id)) {
+                throw new InvalidRequestException("Ce nom d'utilisateur est déjà utilisé");
+            }
+            if (!userRequest.getUsername().equals(user.getUsername())) {
+                // Le nom de l'auteur est affiché avec chacun de ses articles
+                eventPublisher.publishEvent(new ArticlesBulkChangedEvent());
             }
+            user.setUsername(userRequest.getUsername());
+        }
 
-            // Si un nouveau mot de passe est fourni, le hasher
-            if (userRequest.getPassword() != null && !userRequest.getPassword().isEmpty()) {
-                System.out.println("Mise à jour du mot de passe");
-                user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        if (userRequest.getEmail() != null && !userRequest.getEmail().isEmpty()) {
+            // Vérifier si le nouvel email existe déjà (sauf s'il s'agit du même utilisateur)
+            Optional<User> existingUser = userRepository.findByEmail(userRequest.getEmail());
+            if (existingUser.isPresent() && !existingUser.get().getId().equals(id)) {
+                throw new InvalidRequestException("Cet email est déjà utilisé");
             }
+            user.setEmail(userRequest.getEmail());
+        }
 
-            user.setUpdatedAt(LocalDateTime.now());
-            
-            System.out.println("Sauvegarde des modifications dans la base de données");
-            User updatedUser = userRepository.save(user);
-            System.out.println("Utilisateur mis à jour avec succès");
-            return mapToUserResponse(updatedUser);
-        } catch (Exception e) {
-            System.out.println("Une exception s'est produite lors de la mise à jour du profil: " + e.getClass().getName() + ": " + e.getMessage());
-            e.printStackTrace();
-            throw e; // Relancer l'exception pour la gestion standard
+        // Si un nouveau mot de passe est fourni, le hasher
+        boolean passwordChanged = userRequest.getPassword() != null && !userRequest.getPassword().isEmpty();
+        if (passwordChanged) {
+            user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
         }
+
+        user.setUpdatedAt(LocalDateTime.now());
+
+        // Écrit immédiatement pour renvoyer la nouvelle version (une écriture concurrente lève une
+        // OptimisticLockingFailureException)
+        User updatedUser = userRepository.saveAndFlush(user);
+        logger.info("Utilisateur {} mis à jour (version {}, mot de passe modifié : {})",
+                id, updatedUser.getVersion(), passwordChanged);
+        return mapToUserResponse(updatedUser);
     }
 
     /**
-     * Supprime un utilisateur
+     * Supprime un utilisateur : le compte est marqué supprimé puis purgé en arrière-plan (AccountPurgeService)
      * @param id Identifiant de l'utilisateur à supprimer
      * @param currentUserId Identifiant de l'utilisateur effectuant la suppression
      * @throws EntityNotFoundException si l'utilisateur n'existe pas
@@ -162,10 +203,12 @@ public class UserService {
             throw new AccessDeniedException("Vous n'êtes pas autorisé à supprimer cet utilisateur");
         }
 
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + id));
-
-        userRepository.delete(user);
+        // Le compte est désactivé immédiatement ; ses articles, commentaires et abonnements
+        // sont purgés par lots en arrière-plan une fois la transaction validée
+        if (userRepository.markDeleted(id, LocalDateTime.now()) == 0) {
+            throw new NotFoundException("Utilisateur non trouvé avec l'id : " + id);
+        }
+        eventPublisher.publishEvent(new AccountDeletionRequestedEvent(id));
     }
 
     /**
@@ -173,6 +216,7 @@ public class UserService {
      * @param email Email à vérifier
      * @return true si l'email existe, false sinon
      */
+    @Transactional(readOnly = true)
     public boolean existsByEmail(String email) {
         return userRepository.existsByEmail(email);
     }
@@ -182,6 +226,7 @@ public class UserService {
      * @param username Nom d'utilisateur à vérifier
      * @return true si le nom d'utilisateur existe, false sinon
      */
+    @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
@@ -191,24 +236,39 @@ public class UserService {
      * @param id Identifiant de l'utilisateur à vérifier
      * @return true si l'utilisateur existe, false sinon
      */
+    @Transactional(readOnly = true)
     public boolean existsById(Long id) {
         return userRepository.existsById(id);
     }
     
     /**
-     * Transforme une entité User en DTO de réponse
+     * Transforme une entité User en DTO de réponse (les compteurs sont obtenus par des requêtes COUNT)
      * @param user Entité User à transformer
      * @return DTO de réponse contenant les données de l'utilisateur
      */
     private UserResponse mapToUserResponse(User user) {
+        return mapToUserResponse(user,
+                articleRepository.countByAuthorId(user.getId()),
+                commentRepository.countByAuthorId(user.getId()));
+    }
+
+    /**
+     * Transforme une entité User et ses compteurs en DTO de réponse
+     * @param user Entité User à transformer
+     * @param articleCount Nombre d'articles de l'utilisateur
+     * @param commentCount Nombre de commentaires de l'utilisateur
+     * @return DTO de réponse contenant les données de l'utilisateur
+     */
+    private UserResponse mapToUserResponse(User user, long articleCount, long commentCount) {
         return UserResponse.builder()
                 .id(user.getId())
                 .username(user.getUsername())
                 .email(user.getEmail())
                 .createdAt(user.getCreatedAt())
                 .updatedAt(user.getUpdatedAt())
-                .articleCount(user.getArticles() != null ? user.getArticles().size() : 0)
-                .commentCount(user.getComments() != null ? user.getComments().size() : 0)
+                .articleCount((int) articleCount)
+                .commentCount((int) commentCount)
+                .version(user.getVersion())
                 .build();
     }
 }
@@ -6,13 +6,18 @@ import com.openclassrooms.mddapi.models.UserTheme;
 import com.openclassrooms.mddapi.repositories.ThemeRepository;
 import com.openclassrooms.mddapi.repositories.UserRepository;
 import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import com.openclassrooms.mddapi.exceptions.NotFoundException;
+import com.openclassrooms.mddapi.exceptions.InvalidRequestException;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 public class UserThemeService {
@@ -32,11 +37,12 @@ public class UserThemeService {
      * @param themeId ID du thème
      * @return true si l'utilisateur est abonné au thème, false sinon
      */
+    @Transactional(readOnly = true)
     public boolean isUserSubscribedToTheme(Long userId, Long themeId) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + userId));
         Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + themeId));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + themeId));
 
         return userThemeRepository.findByUserAndTheme(user, theme).isPresent();
     }
@@ -50,9 +56,9 @@ public class UserThemeService {
     @Transactional
     public boolean subscribeUserToTheme(Long userId, Long themeId) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + userId));
         Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + themeId));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + themeId));
 
         // Vérifier si l'abonnement existe déjà
         if (userThemeRepository.findByUserAndTheme(user, theme).isPresent()) {
@@ -76,9 +82,9 @@ public class UserThemeService {
     @Transactional
     public boolean unsubscribeUserFromTheme(Long userId, Long themeId) {
         User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+                .orElseThrow(() -> new NotFoundException("Utilisateur non trouvé avec l'id : " + userId));
         Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new EntityNotFoundException("Thème non trouvé avec l'id : " + themeId));
+                .orElseThrow(() -> new NotFoundException("Thème non trouvé avec l'id : " + themeId));
 
         // Vérifier si l'abonnement existe
         if (userThemeRepository.findByUserAndTheme(user, theme).isEmpty()) {
@@ -90,17 +96,68 @@ public class UserThemeService {
         return true;
     }
 
+    /**
+     * Ajoute et retire plusieurs abonnements en une seule transaction.
+     * Les thèmes sont validés en une requête, puis les retraits sont appliqués par une suppression groupée
+     * et les ajouts par un lot JDBC unique (réécrit en insertion multi-lignes par le driver MySQL) ;
+     * les abonnements existants sont ignorés. Un abonnement inséré en même temps par une autre transaction
+     * viole la clé unique (user_id, theme_id) : DataIntegrityViolationException, la mise à jour peut être rejouée.
+     * @param userId ID de l'utilisateur
+     * @param subscribe IDs des thèmes auxquels abonner l'utilisateur
+     * @param unsubscribe IDs des thèmes dont désabonner l'utilisateur
+     * @return Liste des IDs des thèmes auxquels l'utilisateur est abonné après la mise à jour
+     * @throws EntityNotFoundException si l'un des thèmes n'existe pas
+     * @throws IllegalArgumentException si un même thème est à la fois ajouté et retiré
+     */
+    @Transactional
+    public List<Long> updateSubscriptions(Long userId, Set<Long> subscribe, Set<Long> unsubscribe) {
+        Set<Long> requestedThemeIds = new HashSet<>(subscribe);
+        requestedThemeIds.addAll(unsubscribe);
+        if (requestedThemeIds.size() < subscribe.size() + unsubscribe.size()) {
+            throw new InvalidRequestException("Un thème ne peut pas être à la fois ajouté et retiré");
+        }
+
+        if (!requestedThemeIds.isEmpty()) {
+            // Vérifier en une seule requête que tous les thèmes existent
+            requestedThemeIds.removeAll(themeRepository.findExistingIds(requestedThemeIds));
+            if (!requestedThemeIds.isEmpty()) {
+                throw new NotFoundException("Thème non trouvé avec l'id : " + requestedThemeIds.iterator().next());
+            }
+        }
+
+        Set<Long> subscribedThemeIds = new LinkedHashSet<>(userThemeRepository.findThemeIdsByUserId(userId));
+
+        if (!unsubscribe.isEmpty()) {
+            userThemeRepository.deleteByUserIdAndThemeIdIn(userId, unsubscribe);
+            subscribedThemeIds.removeAll(unsubscribe);
+        }
+
+        List<UserTheme> newSubscriptions = new ArrayList<>();
+        for (Long themeId : subscribe) {
+            if (subscribedThemeIds.add(themeId)) {
+                // Références sans chargement : seules les clés étrangères sont écrites
+                UserTheme userTheme = new UserTheme();
+                userTheme.setUser(userRepository.getReferenceById(userId));
+                userTheme.setTheme(themeRepository.getReferenceById(themeId));
+                newSubscriptions.add(userTheme);
+            }
+        }
+        userThemeRepository.saveAll(newSubscriptions);
+
+        return new ArrayList<>(subscribedThemeIds);
+    }
+
     /**
      * Récupère tous les thèmes auxquels un utilisateur est abonné
      * @param userId ID de l'utilisateur
      * @return Liste des IDs des thèmes auxquels l'utilisateur est abonné
      */
+    @Transactional(readOnly = true)
     public List<Long> getSubscribedThemeIds(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("Utilisateur non trouvé avec l'id : " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Utilisateur non trouvé avec l'id : " + userId);
+        }
 
-        return userThemeRepository.findByUser(user).stream()
-                .map(userTheme -> userTheme.getTheme().getId())
-                .collect(Collectors.toList());
+        return userThemeRepository.findThemeIdsByUserId(userId);
     }
 }
@@ -0,0 +1,79 @@
+-- Schéma complet d'une nouvelle base MySQL, à appliquer avant le premier démarrage avec le profil prod
+-- (spring.jpa.hibernate.ddl-auto=validate) :
+--   mysql -u <utilisateur> -p <base> < schema.sql
+-- Une base existante est mise à jour par les scripts du dossier upgrade, dans l'ordre de leur numéro.
+-- Noms des contraintes : ceux générés par Hibernate, pour qu'un démarrage avec ddl-auto=update ne les duplique pas.
+-- Les compteurs de id_generators sont créés au démarrage par IdAllocationService.
+
+CREATE TABLE users (
+    id BIGINT NOT NULL,
+    username VARCHAR(255),
+    email VARCHAR(255),
+    password VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    deleted_at DATETIME(6),
+    version BIGINT DEFAULT 0,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE themes (
+    id BIGINT NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    version BIGINT DEFAULT 0,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE articles (
+    id BIGINT NOT NULL,
+    title VARCHAR(255),
+    content LONGTEXT,
+    excerpt VARCHAR(200),
+    created_at DATETIME(6),
+    author_id BIGINT,
+    theme_id BIGINT,
+    version BIGINT DEFAULT 0,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE comments (
+    id BIGINT NOT NULL,
+    content VARCHAR(500),
+    created_at DATETIME(6),
+    author_id BIGINT,
+    article_id BIGINT,
+    version BIGINT DEFAULT 0,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE user_theme (
+    id BIGINT NOT NULL,
+    user_id BIGINT,
+    theme_id BIGINT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+-- Blocs d'identifiants des @TableGenerator des entités
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE=InnoDB;
+
+-- Battement de cœur écrit sur le primaire par ReplicaLagMonitor (datasource.replica.enabled=true)
+CREATE TABLE replica_heartbeat (
+    id INT NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+ALTER TABLE users ADD CONSTRAINT UK_sx468g52bpetvlad2j9y0lptc UNIQUE (email);
+ALTER TABLE themes ADD CONSTRAINT UK_3estny12ybh85k7y8j6gyyrep UNIQUE (name);
+ALTER TABLE user_theme ADD CONSTRAINT UK_user_theme_user_id_theme_id UNIQUE (user_id, theme_id);
+ALTER TABLE articles ADD CONSTRAINT FKe02fs2ut6qqoabfhj325wcjul FOREIGN KEY (author_id) REFERENCES users (id);
+ALTER TABLE articles ADD CONSTRAINT FKlml0ejjetiyeebfkn3cidwnob FOREIGN KEY (theme_id) REFERENCES themes (id);
+ALTER TABLE comments ADD CONSTRAINT FKk4ib6syde10dalk7r7xdl0m5p FOREIGN KEY (article_id) REFERENCES articles (id);
+ALTER TABLE comments ADD CONSTRAINT FKn2na60ukhs76ibtpt9burkm27 FOREIGN KEY (author_id) REFERENCES users (id);
+ALTER TABLE user_theme ADD CONSTRAINT FKn5sjpumvhnv4ipc8nm9h1mu21 FOREIGN KEY (theme_id) REFERENCES themes (id);
+ALTER TABLE user_theme ADD CONSTRAINT FKndmtnw0t1e6jdtk0h0xegcwjq FOREIGN KEY (user_id) REFERENCES users (id);
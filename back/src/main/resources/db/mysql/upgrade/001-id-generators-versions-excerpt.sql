@@ -0,0 +1,29 @@
+-- Mise à jour d'une base créée par ddl-auto=update avec la version précédente (identifiants AUTO_INCREMENT),
+-- à appliquer avant le déploiement :
+--   mysql -u <utilisateur> -p <base> < 001-id-generators-versions-excerpt.sql
+-- Ne pas appliquer à une base déjà mise à jour par un démarrage avec ddl-auto=update (colonnes déjà présentes).
+--
+-- - table id_generators des @TableGenerator (compteurs créés au-dessus de MAX(id) par IdAllocationService) ;
+--   les colonnes AUTO_INCREMENT existantes restent en place, les identifiants étant désormais fournis à l'insertion
+-- - colonnes version du verrouillage optimiste (0 pour les lignes existantes)
+-- - contenu des articles en LONGTEXT et extrait stocké (calculé au démarrage par ArticleExcerptBackfill)
+-- - date de demande de suppression des comptes
+-- - email unique (@NaturalId) : les doublons éventuels doivent être résolus avant ce script
+
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL,
+    next_val BIGINT,
+    PRIMARY KEY (sequence_name)
+) ENGINE=InnoDB;
+
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0;
+ALTER TABLE themes ADD COLUMN version BIGINT DEFAULT 0;
+ALTER TABLE articles ADD COLUMN version BIGINT DEFAULT 0;
+ALTER TABLE comments ADD COLUMN version BIGINT DEFAULT 0;
+
+ALTER TABLE articles MODIFY COLUMN content LONGTEXT;
+ALTER TABLE articles ADD COLUMN excerpt VARCHAR(200);
+
+ALTER TABLE users ADD COLUMN deleted_at DATETIME(6);
+
+ALTER TABLE users ADD CONSTRAINT UK_sx468g52bpetvlad2j9y0lptc UNIQUE (email);
@@ -0,0 +1,8 @@
+-- Un seul abonnement par utilisateur et par thème : les mises à jour groupées concurrentes pouvaient insérer
+-- deux fois le même couple (user_id, theme_id). Les doublons existants sont supprimés (le plus ancien est gardé)
+-- avant l'ajout de la clé unique.
+
+DELETE FROM user_theme
+WHERE id NOT IN (SELECT id FROM (SELECT MIN(id) AS id FROM user_theme GROUP BY user_id, theme_id) kept);
+
+ALTER TABLE user_theme ADD CONSTRAINT UK_user_theme_user_id_theme_id UNIQUE (user_id, theme_id);
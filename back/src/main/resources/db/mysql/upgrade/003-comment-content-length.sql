@@ -0,0 +1,4 @@
+-- Contenu des commentaires porté à 500 caractères, la longueur acceptée par l'API : au-delà de 255,
+-- l'insertion échouait (ou tronquait le texte hors du mode strict de MySQL).
+
+ALTER TABLE comments MODIFY COLUMN content VARCHAR(500);
@@ -0,0 +1,8 @@
+-- Table de battements de cœur du réplica en lecture (datasource.replica.enabled=true) : ReplicaLagMonitor
+-- y écrit sur le primaire et la relit sur le réplica pour mesurer le retard de réplication.
+
+CREATE TABLE replica_heartbeat (
+    id INT NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
@@ -0,0 +1,100 @@
+package com.openclassrooms.mddapi;
+
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scripts SQL de db/mysql appliqués à une base H2 (mode MySQL), puis démarrage avec le profil prod
+ * (ddl-auto=validate) : nouvelle base créée par schema.sql, et base de la version précédente mise à jour
+ * par les scripts de db/mysql/upgrade dans l'ordre de leur numéro.
+ * H2 lit LONGTEXT comme un VARCHAR en mode MySQL : le type est remplacé par son équivalent H2 (CLOB).
+ */
+class SchemaScriptsTest {
+
+    @Test
+    void newDatabaseFromSchemaScriptPassesValidation() {
+        try (ConfigurableApplicationContext context = startProd(List.of("db/mysql/schema.sql"))) {
+            User user = TestData.user(context.getBean(UserRepository.class), "schema");
+
+            assertEquals(0L, user.getVersion());
+            assertHeartbeatTable(context);
+        }
+    }
+
+    @Test
+    void previousDatabaseUpgradedByScriptsPassesValidation() throws IOException {
+        List<String> scripts = new ArrayList<>();
+        scripts.add("db/mysql/baseline-schema.sql");
+        scripts.addAll(upgradeScripts());
+
+        try (ConfigurableApplicationContext context = startProd(scripts)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            Map<String, Object> article = jdbcTemplate.queryForMap("SELECT version, excerpt FROM articles WHERE id = 1");
+            assertEquals(0L, ((Number) article.get("version")).longValue());
+            assertEquals("Contenu d'avant", article.get("excerpt"));
+            assertEquals(1, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM user_theme WHERE user_id = 1 AND theme_id = 1", Integer.class));
+
+            // Compteurs placés au-dessus des identifiants AUTO_INCREMENT existants
+            User user = TestData.user(context.getBean(UserRepository.class), "upgrade");
+            assertTrue(user.getId() > 1);
+            assertHeartbeatTable(context);
+        }
+    }
+
+    private static void assertHeartbeatTable(ConfigurableApplicationContext context) {
+        assertEquals(0, context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT COUNT(*) FROM replica_heartbeat", Integer.class));
+    }
+
+    private static List<String> upgradeScripts() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources("classpath:db/mysql/upgrade/*.sql");
+        assertFalse(resources.length == 0);
+        return Arrays.stream(resources)
+                .map(Resource::getFilename)
+                .sorted(Comparator.naturalOrder())
+                .map(name -> "db/mysql/upgrade/" + name)
+                .toList();
+    }
+
+    private static ConfigurableApplicationContext startProd(List<String> scripts) {
+        String url = "jdbc:h2:mem:schema-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            for (String script : scripts) {
+                String sql = new ClassPathResource(script).getContentAsString(StandardCharsets.UTF_8)
+                        .replace("LONGTEXT", "CLOB");
+                ScriptUtils.executeSqlScript(connection, new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8)));
+            }
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return new SpringApplicationBuilder(MddApiApplication.class)
+                .profiles("prod")
+                .run("--server.port=0", "--spring.datasource.url=" + url);
+    }
+}
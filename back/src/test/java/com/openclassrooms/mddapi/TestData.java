@@ -0,0 +1,60 @@
+package com.openclassrooms.mddapi;
+
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+
+import java.util.UUID;
+
+/**
+ * Données enregistrées par les tests. Les noms reçoivent un suffixe aléatoire : les contextes Spring
+ * (et leur base H2) sont partagés entre les classes de test
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    /**
+     * @return Suffixe aléatoire de 8 caractères
+     */
+    public static String uniqueSuffix() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Enregistre un utilisateur "prefix-suffixe" (email "prefix-suffixe@mdd.test", mot de passe "x")
+     */
+    public static User user(UserRepository userRepository, String prefix) {
+        String name = prefix + "-" + uniqueSuffix();
+        User user = new User();
+        user.setUsername(name);
+        user.setEmail(name + "@mdd.test");
+        user.setPassword("x");
+        return userRepository.save(user);
+    }
+
+    /**
+     * Enregistre un thème "prefix suffixe"
+     */
+    public static Theme theme(ThemeRepository themeRepository, String prefix) {
+        Theme theme = new Theme();
+        theme.setName(prefix + " " + uniqueSuffix());
+        return themeRepository.save(theme);
+    }
+
+    /**
+     * Enregistre un article "Article suffixe" de l'auteur dans le thème
+     */
+    public static Article article(ArticleRepository articleRepository, User author, Theme theme, String content) {
+        Article article = new Article();
+        article.setTitle("Article " + uniqueSuffix());
+        article.setContent(content);
+        article.setAuthor(author);
+        article.setTheme(theme);
+        return articleRepository.save(article);
+    }
+}
@@ -0,0 +1,104 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mesure l'insertion de 100 000 commentaires avec les lots JDBC et la réservation d'identifiants par blocs.
+ * Lancer avec : mvn test -Dbenchmarks=true -Dtest=CommentBatchInsertBenchmarkTest
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class CommentBatchInsertBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentBatchInsertBenchmarkTest.class);
+
+    private static final int COMMENT_COUNT = 100_000;
+    private static final int CHUNK_SIZE = 1_000;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void insert100kComments() {
+        User savedAuthor = TestData.user(userRepository, "benchmark");
+        Theme savedTheme = TestData.theme(themeRepository, "Benchmark");
+
+        Article article = new Article();
+        article.setTitle("Article de benchmark");
+        article.setContent("Contenu de l'article de benchmark");
+        article.setAuthor(savedAuthor);
+        article.setTheme(savedTheme);
+        Article savedArticle = articleRepository.save(article);
+
+        long countBefore = commentRepository.count();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        for (int inserted = 0; inserted < COMMENT_COUNT; inserted += CHUNK_SIZE) {
+            final int offset = inserted;
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Comment> comments = new ArrayList<>(CHUNK_SIZE);
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    Comment comment = new Comment();
+                    comment.setContent("Commentaire " + (offset + i));
+                    comment.setAuthor(savedAuthor);
+                    comment.setArticle(savedArticle);
+                    comments.add(comment);
+                }
+                commentRepository.saveAll(comments);
+            });
+        }
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("{} commentaires insérés en {} ms ({} commentaires/s), {} requêtes préparées",
+                COMMENT_COUNT, elapsedMs, COMMENT_COUNT * 1000L / Math.max(1, elapsedMs),
+                statistics.getPrepareStatementCount());
+
+        assertEquals(countBefore + COMMENT_COUNT, commentRepository.count());
+        // Sans lots JDBC ni réservation par blocs, chaque commentaire coûterait au moins une requête
+        assertTrue(statistics.getPrepareStatementCount() < COMMENT_COUNT / 10);
+    }
+}
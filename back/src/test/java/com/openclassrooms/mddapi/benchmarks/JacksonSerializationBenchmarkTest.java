@@ -0,0 +1,193 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.openclassrooms.mddapi.config.JacksonConfig;
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.dto.CommentResponse;
+import com.openclassrooms.mddapi.services.ArticleJsonCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Compare la sérialisation des réponses avec l'ObjectMapper standard et en mode performance
+ * (Blackbird, dates rapides, null omis, ObjectWriter préparé), sans cache d'articles.
+ * Lancer avec : mvn test -Dbenchmarks=true -Dtest=JacksonSerializationBenchmarkTest
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JacksonSerializationBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(JacksonSerializationBenchmarkTest.class);
+
+    private static final int ELEMENT_COUNT = 100;
+
+    @Param({"false", "true"})
+    public boolean performanceMode;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter articlesWriter;
+    private ObjectWriter commentsWriter;
+    private List<ArticleResponse> articles;
+    private List<CommentResponse> comments;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JacksonConfig.buildObjectMapper(performanceMode, noArticleJsonCache());
+        articlesWriter = objectMapper.writerFor(new TypeReference<List<ArticleResponse>>() { });
+        commentsWriter = objectMapper.writerFor(new TypeReference<List<CommentResponse>>() { });
+        articles = articles();
+        comments = comments();
+    }
+
+    @Benchmark
+    public byte[] articleList() throws Exception {
+        // Le mode standard reconstruit son ObjectWriter à chaque réponse, comme le convertisseur de Spring
+        return performanceMode ? articlesWriter.writeValueAsBytes(articles) : objectMapper.writeValueAsBytes(articles);
+    }
+
+    @Benchmark
+    public byte[] commentList() throws Exception {
+        return performanceMode ? commentsWriter.writeValueAsBytes(comments) : objectMapper.writeValueAsBytes(comments);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void comparePerformanceMode() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(JacksonSerializationBenchmarkTest.class.getName() + ".*")
+                .build())
+                .run();
+
+        assertFalse(results.isEmpty());
+        for (RunResult result : results) {
+            logger.info("{} performanceMode={} : {} {}",
+                    result.getParams().getBenchmark(),
+                    result.getParams().getParam("performanceMode"),
+                    Math.round(result.getPrimaryResult().getScore()),
+                    result.getPrimaryResult().getScoreUnit());
+        }
+    }
+
+    @Test
+    void performanceModeWritesTheSameJsonWithoutNulls() throws Exception {
+        ObjectMapper standard = JacksonConfig.buildObjectMapper(false, noArticleJsonCache());
+        ObjectMapper performance = JacksonConfig.buildObjectMapper(true, noArticleJsonCache());
+        List<Object> values = new ArrayList<>(articles());
+        values.addAll(comments());
+        values.add(CommentResponse.builder().id(1L).content("Sans date").build());
+
+        for (Object value : values) {
+            JsonNode expected = withoutNulls(standard.readTree(standard.writeValueAsBytes(value)));
+            assertEquals(expected, performance.readTree(performance.writeValueAsBytes(value)));
+        }
+    }
+
+    @Test
+    void datesAreWrittenAsIsoLocalDateTime() throws Exception {
+        ObjectMapper performance = JacksonConfig.buildObjectMapper(true, noArticleJsonCache());
+        List<LocalDateTime> dates = List.of(
+                LocalDateTime.of(2024, 1, 2, 3, 4),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 59),
+                LocalDateTime.of(2024, 5, 6, 7, 8, 9, 100_000_000),
+                LocalDateTime.of(2024, 5, 6, 7, 8, 9, 123_456_789),
+                LocalDateTime.of(2024, 5, 6, 7, 8, 9, 1_000),
+                LocalDateTime.of(987, 5, 6, 7, 8, 9, 1),
+                LocalDateTime.of(12345, 5, 6, 7, 8, 9));
+
+        for (LocalDateTime date : dates) {
+            assertEquals('"' + date.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + '"',
+                    performance.writeValueAsString(date));
+        }
+    }
+
+    private static ObjectProvider<ArticleJsonCache> noArticleJsonCache() {
+        return new StaticListableBeanFactory().getBeanProvider(ArticleJsonCache.class);
+    }
+
+    private static JsonNode withoutNulls(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            Iterator<JsonNode> fields = object.elements();
+            while (fields.hasNext()) {
+                if (fields.next().isNull()) {
+                    fields.remove();
+                }
+            }
+        }
+        node.forEach(JacksonSerializationBenchmarkTest::withoutNulls);
+        return node;
+    }
+
+    private static List<ArticleResponse> articles() {
+        String content = "Contenu de l'article de benchmark, assez long pour ressembler à un vrai article. ".repeat(12);
+        List<ArticleResponse> articles = new ArrayList<>(ELEMENT_COUNT);
+        for (long i = 1; i <= ELEMENT_COUNT; i++) {
+            articles.add(ArticleResponse.builder()
+                    .id(i)
+                    .title("Article " + i)
+                    .content(content)
+                    .createdAt(LocalDateTime.of(2024, 3, 1, 12, 0).plusSeconds(i * 61).plusNanos(i * 1_000_000))
+                    .authorId(i % 10)
+                    .authorUsername("auteur" + i % 10)
+                    .themeId(i % 5)
+                    .themeName("Thème " + i % 5)
+                    .commentCount((int) (i % 7))
+                    .version(i % 3 == 0 ? null : 1L)
+                    .build());
+        }
+        return articles;
+    }
+
+    private static List<CommentResponse> comments() {
+        List<CommentResponse> comments = new ArrayList<>(ELEMENT_COUNT);
+        for (long i = 1; i <= ELEMENT_COUNT; i++) {
+            comments.add(CommentResponse.builder()
+                    .id(i)
+                    .content("Commentaire " + i)
+                    .createdAt(LocalDateTime.of(2024, 3, 1, 12, 0).plusMinutes(i))
+                    .authorId(i % 10)
+                    .authorUsername("auteur" + i % 10)
+                    .articleId(1L)
+                    .articleTitle(i % 2 == 0 ? null : "Article 1")
+                    .version(0L)
+                    .build());
+        }
+        return comments;
+    }
+}
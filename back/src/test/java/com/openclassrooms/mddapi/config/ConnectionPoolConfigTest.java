@@ -0,0 +1,91 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.ConnectionHoldReport;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.services.ThemeService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie le réglage du pool Hikari, ses métriques et le suivi de la détention des connexions par méthode de service
+ */
+@SpringBootTest
+class ConnectionPoolConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ConnectionHoldEndpoint connectionHoldEndpoint;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Test
+    void poolIsSizedFromTheCpuCountWithLeakDetection() throws SQLException {
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        int expected = Math.min(2 * Runtime.getRuntime().availableProcessors() + 1, 200);
+        assertEquals(expected, pool.getMaximumPoolSize());
+        assertEquals(expected, pool.getMinimumIdle());
+        assertEquals(30_000, pool.getLeakDetectionThreshold());
+        assertEquals(5_000, pool.getConnectionTimeout());
+
+        for (String state : new String[]{"active", "idle", "pending"}) {
+            assertNotNull(meterRegistry.find("hikaricp.connections." + state).gauge(), state);
+        }
+    }
+
+    @Test
+    void connectionHoldsAreReportedPerServiceMethod() {
+        Long id = TestData.theme(themeRepository, "Pool").getId();
+        connectionHoldEndpoint.reset();
+
+        themeService.getThemeById(id);
+        themeService.getThemeById(id);
+        themeService.getAllThemes();
+
+        ConnectionHoldReport report = connectionHoldEndpoint.holds(null);
+        ConnectionHoldReport.MethodStats byId = report.getMethods().stream()
+                .filter(stats -> stats.getMethod().equals("ThemeService.getThemeById"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(2, byId.getCount());
+        assertTrue(report.getMethods().stream().anyMatch(stats -> stats.getMethod().equals("ThemeService.getAllThemes")));
+        assertTrue(report.getOpen().isEmpty());
+    }
+
+    @Test
+    void statementsReturnTheTrackedConnection() throws SQLException {
+        DataSource tracked = new ConnectionHoldTracker().wrap(dataSource.unwrap(HikariDataSource.class));
+        try (Connection connection = tracked.getConnection();
+             Statement statement = connection.createStatement();
+             PreparedStatement prepared = connection.prepareStatement("SELECT 1");
+             CallableStatement callable = connection.prepareCall("SELECT 1")) {
+            assertSame(connection, statement.getConnection());
+            assertSame(connection, prepared.getConnection());
+            assertSame(connection, callable.getConnection());
+        }
+    }
+}
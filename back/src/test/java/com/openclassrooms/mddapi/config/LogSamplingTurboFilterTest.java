@@ -0,0 +1,60 @@
+package com.openclassrooms.mddapi.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que l'échantillonnage ne garde qu'un événement sur rate pour la catégorie visée,
+ * sans toucher aux WARN/ERROR ni aux autres loggers
+ */
+class LogSamplingTurboFilterTest {
+
+    @Test
+    void keepsOneEventOutOfRateForTheSampledCategory() {
+        LoggerContext context = new LoggerContext();
+        LogSamplingTurboFilter filter = new LogSamplingTurboFilter();
+        filter.setPrefix("com.openclassrooms.mddapi.controllers.");
+        filter.setLevel("INFO");
+        filter.setRate(10);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+
+        Logger sampled = context.getLogger("com.openclassrooms.mddapi.controllers.ArticleController");
+        Logger other = context.getLogger("com.openclassrooms.mddapi.services.ArticleService");
+        for (int i = 0; i < 100; i++) {
+            // isInfoEnabled ne consomme pas l'échantillon et reste vrai
+            assertTrue(sampled.isInfoEnabled());
+            sampled.info("Lecture {}", i);
+            sampled.debug("Niveau désactivé {}", i);
+            sampled.warn("Avertissement {}", i);
+            other.info("Service {}", i);
+        }
+
+        assertEquals(10, count(appender, sampled, Level.INFO));
+        assertEquals("Lecture 0", appender.list.stream()
+                .filter(event -> event.getLevel() == Level.INFO && event.getLoggerName().equals(sampled.getName()))
+                .findFirst().orElseThrow().getFormattedMessage());
+        assertEquals(100, count(appender, sampled, Level.WARN));
+        assertEquals(100, count(appender, other, Level.INFO));
+    }
+
+    private static long count(ListAppender<ILoggingEvent> appender, Logger logger, Level level) {
+        return appender.list.stream()
+                .filter(event -> event.getLoggerName().equals(logger.getName()) && event.getLevel() == level)
+                .count();
+    }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.dto.ArticleSummaryResponse;
+import com.openclassrooms.mddapi.dto.StartupTimeReport;
+import com.openclassrooms.mddapi.exceptions.ErrorResponse;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.services.CommentWriteBehindService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.SpringProxy;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.DecoratingProxy;
+import org.springframework.data.projection.TargetAware;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Métadonnées de l'image native enregistrées par NativeRuntimeHints, vérifiées sur la JVM
+ */
+class NativeRuntimeHintsTest {
+
+    @Test
+    void hintsCoverDtosEntitiesProxiesJjwtAndResources() {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(NativeRuntimeHints.dtoClasses(getClass().getClassLoader()).contains(StartupTimeReport.Phase.class));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ArticleSummaryResponse.class, "getExcerpt").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(ErrorResponse.class, "getStatus").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Article.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+                .test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtBuilder"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(CommentWriteBehindService.RejectedComment.class).test(hints));
+        assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(ArticleRepository.ArticleContent.class,
+                TargetAware.class, SpringProxy.class, Advised.class, DecoratingProxy.class).test(hints));
+        for (Class<?> jdbcInterface : List.of(Connection.class, Statement.class, PreparedStatement.class,
+                CallableStatement.class, ResultSet.class)) {
+            assertTrue(RuntimeHintsPredicates.proxies().forInterfaces(jdbcInterface).test(hints), jdbcInterface.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.resource().forResource("ehcache.xml").test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("logback-spring.xml").test(hints));
+    }
+}
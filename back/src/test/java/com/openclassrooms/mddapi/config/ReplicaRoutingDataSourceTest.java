@@ -0,0 +1,166 @@
+package com.openclassrooms.mddapi.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie le routage primaire/réplica avec deux bases H2 en mémoire, la réplication étant simulée
+ * par la copie du battement de cœur du primaire vers le réplica
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final Duration MAX_LAG = Duration.ofMillis(100);
+    private static final Duration STICKY_WINDOW = Duration.ofMillis(300);
+    // Créée par les scripts de db/mysql
+    private static final String HEARTBEAT_TABLE =
+            "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+    private ReplicaLagMonitor lagMonitor;
+    private JdbcTemplate routed;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primaryDataSource = database("primary");
+        DataSource replicaDataSource = database("replica");
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        primary.execute(HEARTBEAT_TABLE);
+        primary.execute("CREATE TABLE origin (name VARCHAR(16))");
+        primary.update("INSERT INTO origin VALUES ('primary')");
+        replica.execute("CREATE TABLE origin (name VARCHAR(16))");
+        replica.update("INSERT INTO origin VALUES ('replica')");
+
+        lagMonitor = new ReplicaLagMonitor(primaryDataSource, replicaDataSource, MAX_LAG, Duration.ofHours(1));
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                lagMonitor, new ReadYourWritesTracker(STICKY_WINDOW));
+        routing.afterPropertiesSet();
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        routed = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplicaOnlyWhenItIsUpToDate() throws InterruptedException {
+        // Aucune mesure du retard : le réplica n'est pas utilisé
+        lagMonitor.probe();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals("primary", readOnlyOrigin());
+
+        replicate();
+        lagMonitor.probe();
+        assertTrue(lagMonitor.isReplicaUsable());
+        assertEquals("replica", readOnlyOrigin());
+        assertEquals("primary", readWriteOrigin());
+
+        // Le réplica n'applique plus les battements : retard croissant, retour sur le primaire
+        replicate();
+        lagMonitor.probe();
+        Thread.sleep(MAX_LAG.toMillis() * 2);
+        lagMonitor.probe();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertTrue(lagMonitor.getLagMillis() > MAX_LAG.toMillis());
+        assertEquals("primary", readOnlyOrigin());
+
+        replicate();
+        lagMonitor.probe();
+        assertEquals("replica", readOnlyOrigin());
+
+        // Réplica injoignable : retour sur le primaire
+        replica.execute("DROP TABLE replica_heartbeat");
+        lagMonitor.probe();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals("primary", readOnlyOrigin());
+    }
+
+    @Test
+    void userReadsTheirOwnWritesFromThePrimary() throws InterruptedException {
+        lagMonitor.probe();
+        replicate();
+        lagMonitor.probe();
+
+        authenticate("auteur@mdd.test");
+        assertEquals("replica", readOnlyOrigin());
+
+        // Écriture annulée : l'utilisateur reste sur le réplica
+        readWrite.executeWithoutResult(status -> {
+            routed.update("INSERT INTO origin VALUES ('rollback')");
+            status.setRollbackOnly();
+        });
+        assertEquals("replica", readOnlyOrigin());
+
+        readWrite.executeWithoutResult(status -> routed.update("INSERT INTO origin VALUES ('written')"));
+        assertEquals("primary", readOnlyOrigin());
+
+        // Les autres utilisateurs continuent de lire sur le réplica
+        authenticate("lecteur@mdd.test");
+        assertEquals("replica", readOnlyOrigin());
+
+        authenticate("auteur@mdd.test");
+        Thread.sleep(STICKY_WINDOW.toMillis() + 100);
+        assertEquals("replica", readOnlyOrigin());
+    }
+
+    private String readOnlyOrigin() {
+        return origin(readOnly);
+    }
+
+    private String readWriteOrigin() {
+        return origin(readWrite);
+    }
+
+    /**
+     * Base ayant servi la lecture ('primary' reste le plus petit nom inséré sur le primaire)
+     */
+    private String origin(TransactionTemplate transaction) {
+        return transaction.execute(status -> routed.queryForObject("SELECT MIN(name) FROM origin", String.class));
+    }
+
+    /**
+     * Simule la réplication du battement de cœur
+     */
+    private void replicate() {
+        Long beat = primary.queryForObject("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+        replica.execute(HEARTBEAT_TABLE);
+        replica.update("MERGE INTO replica_heartbeat (id, beat_millis) KEY (id) VALUES (1, ?)", beat);
+    }
+
+    private static void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,147 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.SlowQueryReport;
+import com.openclassrooms.mddapi.dto.ThemeRequest;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.services.ThemeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que les requêtes au-delà du seuil (ici toutes) sont rapportées avec leurs paramètres,
+ * la méthode de service appelante et leur nombre de lignes, dans la limite du top-N, et que
+ * les emails et mots de passe n'y figurent jamais
+ */
+@SpringBootTest(properties = {
+        "datasource.slow-query.threshold=0ms",
+        "datasource.slow-query.top-size=5",
+        "datasource.slow-query.log-parameter-values=true"
+})
+class SlowQueryTrackerTest {
+
+    @Autowired
+    private SlowQueryEndpoint slowQueryEndpoint;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void slowQueriesAreReportedWithParametersCallerAndRows() {
+        String name = "Lent " + TestData.uniqueSuffix();
+        int themes = themeService.getAllThemes().size();
+        slowQueryEndpoint.reset();
+
+        themeService.createTheme(request(name));
+        themeService.getAllThemes();
+        SlowQueryReport report = slowQueryEndpoint.slowQueries(100);
+        assertEquals(0, report.getThresholdMs());
+        assertTrue(report.getSlowest().size() <= 5);
+
+        SlowQueryReport.SlowQuery insert = find(report, "insert into themes");
+        assertEquals("ThemeService.createTheme", insert.getMethod());
+        assertTrue(insert.getParameters().contains("'" + name + "'"), insert.getParameters().toString());
+        assertEquals(1, insert.getRows());
+        assertEquals(1, insert.getBatchSize());
+
+        SlowQueryReport.SlowQuery select = find(report, "from themes");
+        assertEquals("ThemeService.getAllThemes", select.getMethod());
+        assertEquals(themes + 1, select.getRows());
+
+        slowQueryEndpoint.reset();
+        assertEquals(0, slowQueryEndpoint.slowQueries(null).getSlowCount());
+    }
+
+    @Test
+    void emailsAndPasswordsAreNeverReported() {
+        slowQueryEndpoint.reset();
+        User user = TestData.user(userRepository, "masque");
+
+        SlowQueryReport.SlowQuery insert = find(slowQueryEndpoint.slowQueries(100), "insert into users");
+        String parameters = insert.getParameters().toString();
+        assertFalse(parameters.contains(user.getEmail()), parameters);
+        assertTrue(insert.getParameters().contains("<" + user.getEmail().length() + " caractères>"), parameters);
+    }
+
+    @Test
+    void parameterValuesAreOnlyReportedWhenEnabled() {
+        SlowQueryTracker tracker = new SlowQueryTracker(Duration.ZERO, 5, false);
+        String name = "Masqué " + TestData.uniqueSuffix();
+
+        new JdbcTemplate(tracker.wrap(dataSource)).queryForList("SELECT id FROM themes WHERE name = ? AND id > ?",
+                name, 0L);
+
+        SlowQueryReport.SlowQuery select = find(tracker.report(5), "from themes");
+        assertEquals(List.of("<" + name.length() + " caractères>", "<Long>"), select.getParameters());
+    }
+
+    @Test
+    void statementsReturnTheTrackedConnection() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             PreparedStatement prepared = connection.prepareStatement("SELECT 1")) {
+            assertSame(connection, statement.getConnection());
+            assertSame(connection, prepared.getConnection());
+        }
+    }
+
+    @Test
+    void streamedQueriesKeepTheTransactionConnection() {
+        // queryForStream rend la connexion de Statement.getConnection() à la fermeture du flux :
+        // une connexion non suivie n'était pas reconnue comme celle de la transaction et était fermée
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> {
+            for (int i = 0; i < 2; i++) {
+                try (Stream<Long> ids = jdbcTemplate.queryForStream("SELECT id FROM themes", (rs, rowNum) -> rs.getLong(1))) {
+                    ids.forEach(id -> { });
+                }
+            }
+        });
+    }
+
+    private static ThemeRequest request(String name) {
+        ThemeRequest request = new ThemeRequest();
+        request.setName(name);
+        request.setDescription("Requêtes lentes");
+        return request;
+    }
+
+    private static SlowQueryReport.SlowQuery find(SlowQueryReport report, String sql) {
+        return report.getSlowest().stream()
+                .filter(query -> query.getSql().toLowerCase().contains(sql))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(sql + " absent de " + report.getSlowest()));
+    }
+}
@@ -0,0 +1,49 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+import com.openclassrooms.mddapi.dto.StartupTimeReport;
+import io.swagger.v3.oas.models.OpenAPI;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Démarre l'application comme MddApiApplication.main avec le profil prod : répartition du temps de démarrage,
+ * beans d'administration non créés et springdoc absent
+ */
+class StartupTimeReporterTest {
+
+    @Test
+    void prodStartupIsReportedWithoutAdminBeansNorSpringdoc() {
+        // ddl-auto=validate du profil prod remplacé : la base H2 des tests est vide
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(MddApiApplication.class)
+                .applicationStartup(new BufferingApplicationStartup(10_000))
+                .profiles("prod")
+                .run("--server.port=0", "--spring.jpa.hibernate.ddl-auto=create-drop")) {
+
+            StartupTimeReport report = context.getBean(StartupTimeEndpoint.class).startupTime();
+            assertNotNull(report);
+            List<String> phases = report.getPhases().stream().map(StartupTimeReport.Phase::getName).toList();
+            assertEquals("JVM jusqu'à main", phases.get(0));
+            assertTrue(phases.contains("Définitions des beans (configuration, scan, conditions)"));
+            assertTrue(report.getAreas().stream().anyMatch(area -> area.getName().equals("JPA / Hibernate")));
+            assertFalse(report.getSlowestBeans().isEmpty());
+            assertTrue(report.getSlowestBeans().get(0).getDurationMs()
+                    >= report.getSlowestBeans().get(report.getSlowestBeans().size() - 1).getDurationMs());
+
+            assertFalse(context.getBeanFactory().containsSingleton("adminController"));
+            assertFalse(context.getBeanFactory().containsSingleton("bulkTransferService"));
+            assertEquals(0, context.getBeanNamesForType(OpenAPI.class).length);
+            assertEquals("JPA / Hibernate", StartupTimeReporter.areaOf("articleRepository",
+                    "com.openclassrooms.mddapi.repositories.ArticleRepository"));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.mddapi.config;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.TraceReport;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.security.jwt.JwtUtils;
+import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Vérifie qu'une requête authentifiée produit une trace, renvoyée dans X-Trace-Id, avec un span par couche
+ * imbriqué sous celui de la requête HTTP
+ */
+@SpringBootTest(properties = "management.tracing.sampling.probability=1.0")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class TracingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private TraceEndpoint traceEndpoint;
+
+    @Test
+    void requestTraceHasOneSpanPerLayer() throws Exception {
+        User user = TestData.user(userRepository, "trace");
+        Theme theme = TestData.theme(themeRepository, "Traces");
+        String token = "Bearer " + jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                UserDetailsImpl.build(user), null, List.of()));
+
+        String traceId = mockMvc.perform(get("/api/themes/" + theme.getId()).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(TraceResponseHeaderFilter.TRACE_ID_HEADER);
+        assertNotNull(traceId);
+
+        TraceReport trace = traceEndpoint.trace(traceId);
+        assertNotNull(trace);
+        assertEquals(traceId, trace.getTraceId());
+        for (String layer : List.of("http", "security", "controller", "service", "repository", "serialization")) {
+            assertTrue(trace.getLayers().containsKey(layer), layer + " absent de " + trace.getLayers());
+        }
+        TraceReport.SpanNode service = trace.getSpans().stream()
+                .filter(span -> span.getName().equals("theme-service.get-theme-by-id"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError(trace.getSpans().toString()));
+        assertTrue(service.getDepth() > 0);
+        assertTrue(trace.getSpans().stream().anyMatch(span -> "repository".equals(span.getLayer())
+                && span.getDepth() > service.getDepth()));
+        assertTrue(traceEndpoint.traces(null).stream().anyMatch(summary -> summary.getTraceId().equals(traceId)));
+    }
+}
@@ -0,0 +1,141 @@
+package com.openclassrooms.mddapi.controllers;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.models.UserTheme;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import com.openclassrooms.mddapi.security.jwt.JwtUtils;
+import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
+import org.hibernate.LazyInitializationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Appelle toutes les routes GET des contrôleurs sans session ouverte sur la requête (open-in-view désactivé) :
+ * un chargement LAZY déclenché hors transaction par un contrôleur ou par la sérialisation fait échouer le test.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class LazyLoadingOutsideTransactionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserThemeRepository userThemeRepository;
+
+    @Test
+    void getEndpointsDoNotLoadLazyAssociationsOutsideATransaction() throws Exception {
+        User user = TestData.user(userRepository, "lecteur");
+        Theme theme = TestData.theme(themeRepository, "Thème");
+
+        UserTheme subscription = new UserTheme();
+        subscription.setUser(user);
+        subscription.setTheme(theme);
+        userThemeRepository.save(subscription);
+
+        Article article = TestData.article(articleRepository, user, theme, "Contenu");
+
+        Comment comment = new Comment();
+        comment.setContent("Commentaire");
+        comment.setAuthor(user);
+        comment.setArticle(article);
+        comment = commentRepository.save(comment);
+
+        // Identifiant à utiliser pour {id} selon le contrôleur
+        Map<String, Long> idsByPrefix = Map.of(
+                "/api/articles/", article.getId(),
+                "/api/comments/", comment.getId(),
+                "/api/themes/", theme.getId(),
+                "/api/users/", user.getId());
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                UserDetailsImpl.build(user), null, List.of()));
+
+        List<String> uris = new ArrayList<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            if (!entry.getValue().getBeanType().getPackageName().equals(getClass().getPackageName())
+                    || !info.getMethodsCondition().getMethods().contains(RequestMethod.GET)) {
+                continue;
+            }
+            for (String pattern : info.getPatternValues()) {
+                uris.add(pattern
+                        .replace("{id}", String.valueOf(idFor(pattern, idsByPrefix)))
+                        .replace("{themeId}", String.valueOf(theme.getId()))
+                        .replace("{userId}", String.valueOf(user.getId()))
+                        .replace("{articleId}", String.valueOf(article.getId()))
+                        .replace("{username}", user.getUsername())
+                        .replace("{email}", user.getEmail()));
+            }
+        }
+        assertFalse(uris.isEmpty());
+
+        for (String uri : uris) {
+            MvcResult result = mockMvc.perform(get(uri)
+                            .param("title", "Article")
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token))
+                    .andReturn();
+            for (Throwable cause = result.getResolvedException(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof LazyInitializationException) {
+                    fail("Chargement LAZY hors transaction sur GET " + uri + " : " + cause.getMessage());
+                }
+            }
+            // Les contrôleurs qui interceptent toutes les exceptions renvoient le message de Hibernate
+            String body = result.getResponse().getContentAsString();
+            assertFalse(body.contains("no Session"), "Chargement LAZY hors transaction sur GET " + uri + " : " + body);
+        }
+    }
+
+    private static Long idFor(String pattern, Map<String, Long> idsByPrefix) {
+        return idsByPrefix.entrySet().stream()
+                .filter(prefix -> pattern.startsWith(prefix.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(-1L);
+    }
+}
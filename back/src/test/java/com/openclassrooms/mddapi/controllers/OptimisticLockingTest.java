@@ -0,0 +1,125 @@
+package com.openclassrooms.mddapi.controllers;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.security.jwt.JwtUtils;
+import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Vérifie les modifications conditionnelles (If-Match) et les lectures conditionnelles (If-None-Match)
+ * à partir de la version des entités
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OptimisticLockingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    void staleIfMatchIsRejectedWithConflict() throws Exception {
+        User user = TestData.user(userRepository, "version");
+        Theme theme = TestData.theme(themeRepository, "Versions");
+        Article article = TestData.article(articleRepository, user, theme, "Contenu");
+        String token = "Bearer " + jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                UserDetailsImpl.build(user), null, List.of()));
+        String uri = "/api/articles/" + article.getId();
+        String body = "{\"title\":\"Titre modifié\",\"content\":\"Contenu modifié\",\"themeId\":" + theme.getId() + "}";
+
+        String etag = mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        // Faible : le même ETag vaut pour les représentations JSON, CBOR et Smile
+        assertTrue(etag.startsWith("W/\"0-"), etag);
+        mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        String updatedEtag = mockMvc.perform(put(uri)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, updatedEtag);
+
+        // Second client qui modifie à partir de l'ancienne version
+        mockMvc.perform(put(uri)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isConflict());
+        // Liste d'ETags : la version retenue est celle du premier
+        mockMvc.perform(put(uri)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, updatedEtag + ", " + etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2));
+        mockMvc.perform(put(uri)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, "\"2-0\", 3")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, token).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Titre modifié"));
+
+        // Même contrôle sur les entités modifiées par le contexte de persistance
+        String userUri = "/api/users/" + user.getId();
+        String userEtag = mockMvc.perform(get(userUri).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String userBody = "{\"username\":\"" + user.getUsername() + "\",\"email\":\"nouveau-" + user.getEmail() + "\"}";
+        mockMvc.perform(put(userUri)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, userEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userBody))
+                .andExpect(status().isOk());
+        mockMvc.perform(put(userUri)
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .header(HttpHeaders.IF_MATCH, userEtag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(userBody))
+                .andExpect(status().isConflict());
+    }
+}
@@ -0,0 +1,156 @@
+package com.openclassrooms.mddapi.controllers;
+
+import com.openclassrooms.mddapi.TestData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.security.jwt.JwtUtils;
+import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Vérifie la négociation CBOR/Smile par l'en-tête Accept et la sélection de champs (fields=),
+ * sur une réponse écrite par Spring MVC et sur une liste écrite en flux
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ResponseFormatTest {
+
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private String token;
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        User user = TestData.user(userRepository, "format");
+        Theme theme = TestData.theme(themeRepository, "Formats");
+        article = TestData.article(articleRepository, user, theme,
+                "Contenu qui ne doit pas être écrit quand fields ne le demande pas");
+
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                UserDetailsImpl.build(user), null, List.of()));
+    }
+
+    @Test
+    void articleIsWrittenInCborWhenAcceptPrefersIt() throws Exception {
+        byte[] body = mockMvc.perform(authenticated(get("/api/articles/{id}", article.getId()))
+                        .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode json = new CBORMapper().readTree(body);
+        assertEquals(article.getTitle(), json.get("title").asText());
+        assertEquals(article.getContent(), json.get("content").asText());
+    }
+
+    @Test
+    void fieldsSkipsUnrequestedPropertiesOfACachedArticle() throws Exception {
+        // Premier appel : la représentation complète entre dans le cache des articles
+        mockMvc.perform(authenticated(get("/api/articles/{id}", article.getId()))).andExpect(status().isOk());
+
+        byte[] body = mockMvc.perform(authenticated(get("/api/articles/{id}", article.getId()))
+                        .param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(Set.of("id", "title"), fieldNames(new ObjectMapper().readTree(body)));
+    }
+
+    @Test
+    void streamedListHonoursFormatAndFields() throws Exception {
+        byte[] body = mockMvc.perform(authenticated(get("/api/articles"))
+                        .param("fields", "id,title,createdAt")
+                        .accept(APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, APPLICATION_SMILE.toString()))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode articles = new SmileMapper().readTree(body);
+        assertTrue(articles.isArray());
+        assertFalse(articles.isEmpty());
+        for (JsonNode element : articles) {
+            assertEquals(Set.of("id", "title", "createdAt"), fieldNames(element));
+        }
+    }
+
+    @Test
+    void streamedUsersHonourFormatAndFields() throws Exception {
+        byte[] body = mockMvc.perform(authenticated(get("/api/users"))
+                        .param("fields", "id,username")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode users = new CBORMapper().readTree(body);
+        assertTrue(users.isArray());
+        assertFalse(users.isEmpty());
+        for (JsonNode element : users) {
+            assertEquals(Set.of("id", "username"), fieldNames(element));
+        }
+    }
+
+    @Test
+    void invalidFieldNameIsRejected() throws Exception {
+        mockMvc.perform(authenticated(get("/api/articles/{id}", article.getId()))
+                        .param("fields", "id,content;drop"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    private static Set<String> fieldNames(JsonNode node) {
+        Set<String> names = new HashSet<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
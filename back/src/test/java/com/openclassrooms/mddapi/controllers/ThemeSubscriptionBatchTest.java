@@ -0,0 +1,128 @@
+package com.openclassrooms.mddapi.controllers;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.models.UserTheme;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import com.openclassrooms.mddapi.security.jwt.JwtUtils;
+import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Mise à jour groupée des abonnements (POST /api/themes/subscriptions/batch)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ThemeSubscriptionBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private UserThemeRepository userThemeRepository;
+
+    private User user;
+    private Theme java;
+    private Theme angular;
+    private Theme sql;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        user = TestData.user(userRepository, "abonne");
+        java = TestData.theme(themeRepository, "Java");
+        angular = TestData.theme(themeRepository, "Angular");
+        sql = TestData.theme(themeRepository, "SQL");
+        token = "Bearer " + jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                UserDetailsImpl.build(user), null, List.of()));
+    }
+
+    @Test
+    void subscriptionsAreAddedAndRemovedAndExistingOnesIgnored() throws Exception {
+        batch(List.of(java.getId(), angular.getId()), List.of())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", containsInAnyOrder(java.getId().intValue(), angular.getId().intValue())));
+
+        // Java déjà suivi : pas de second abonnement
+        batch(List.of(java.getId(), sql.getId()), List.of(angular.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$", containsInAnyOrder(java.getId().intValue(), sql.getId().intValue())));
+
+        List<Long> stored = userThemeRepository.findThemeIdsByUserId(user.getId());
+        assertEquals(2, stored.size());
+        assertEquals(1, stored.stream().filter(java.getId()::equals).count());
+    }
+
+    @Test
+    void themeAddedAndRemovedInTheSameBatchIsRejected() throws Exception {
+        batch(List.of(java.getId(), angular.getId()), List.of(java.getId()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+
+        assertEquals(0, userThemeRepository.findThemeIdsByUserId(user.getId()).size());
+    }
+
+    @Test
+    void unknownThemeIsRejectedWithoutApplyingTheBatch() throws Exception {
+        batch(List.of(java.getId(), -1L), List.of())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.status").value(404));
+
+        assertEquals(0, userThemeRepository.findThemeIdsByUserId(user.getId()).size());
+    }
+
+    @Test
+    void sameSubscriptionCannotBeStoredTwice() {
+        userThemeRepository.saveAndFlush(subscription(user, java));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userThemeRepository.saveAndFlush(subscription(user, java)));
+    }
+
+    private ResultActions batch(List<Long> subscribe, List<Long> unsubscribe) throws Exception {
+        return mockMvc.perform(post("/api/themes/subscriptions/batch")
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"subscribe\":" + subscribe + ",\"unsubscribe\":" + unsubscribe + "}"));
+    }
+
+    private static UserTheme subscription(User user, Theme theme) {
+        UserTheme userTheme = new UserTheme();
+        userTheme.setUser(user);
+        userTheme.setTheme(theme);
+        return userTheme;
+    }
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.mddapi.exceptions;
+
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Vérifie que les exceptions métier ne capturent pas de pile d'appels et restent converties
+ * dans le statut HTTP de l'exception standard qu'elles étendent
+ */
+class DomainExceptionsTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void domainExceptionsAreStacklessAndKeepTheirStatus() {
+        RuntimeException notFound = new NotFoundException("Thème non trouvé avec l'id : 42");
+        RuntimeException resourceNotFound = new ResourceNotFoundException("Utilisateur", "id", 42);
+        RuntimeException forbidden = new ForbiddenException("Seul l'auteur peut modifier cet article");
+        RuntimeException invalid = new InvalidRequestException("Cet email est déjà utilisé");
+        for (RuntimeException exception : new RuntimeException[]{notFound, resourceNotFound, forbidden, invalid}) {
+            assertEquals(0, exception.getStackTrace().length, exception.getClass().getSimpleName());
+        }
+
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/themes/42"));
+        assertStatus(HttpStatus.NOT_FOUND, handler.handleEntityNotFoundException((EntityNotFoundException) notFound, request));
+        assertStatus(HttpStatus.NOT_FOUND,
+                handler.handleEntityNotFoundException(assertInstanceOf(EntityNotFoundException.class, resourceNotFound), request));
+        assertStatus(HttpStatus.FORBIDDEN, handler.handleIllegalStateException((IllegalStateException) forbidden, request));
+        ResponseEntity<ErrorResponse> badRequest = handler.handleIllegalArgumentException((IllegalArgumentException) invalid, request);
+        assertStatus(HttpStatus.BAD_REQUEST, badRequest);
+        assertEquals("Cette adresse email est déjà associée à un autre compte.", badRequest.getBody().getMessage());
+    }
+
+    private static void assertStatus(HttpStatus expected, ResponseEntity<ErrorResponse> response) {
+        assertEquals(expected, response.getStatusCode());
+        assertEquals(expected.value(), response.getBody().getStatus());
+    }
+}
@@ -0,0 +1,60 @@
+package com.openclassrooms.mddapi.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Vérifie que les requêtes non authentifiées reçoivent la même réponse 401 JSON, rejetées sans token
+ * par MissingTokenFilter ou avec un token invalide par AuthEntryPointJwt, et que les routes publiques
+ * ne sont pas concernées
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class UnauthorizedResponseTest {
+
+    private static final String MESSAGE = "Non autorisé: Full authentication is required to access this resource";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void unauthenticatedRequestsGetTheSameJsonError() throws Exception {
+        MockHttpServletResponse withoutToken = mockMvc.perform(get("/api/themes")).andReturn().getResponse();
+        MockHttpServletResponse invalidToken = mockMvc.perform(get("/api/themes")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer invalide")).andReturn().getResponse();
+
+        for (MockHttpServletResponse response : List.of(withoutToken, invalidToken)) {
+            assertEquals(401, response.getStatus());
+            assertTrue(MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+            JsonNode body = objectMapper.readTree(response.getContentAsByteArray());
+            assertEquals(401, body.get("status").asInt());
+            assertEquals(MESSAGE, body.get("message").asText());
+            assertEquals("/api/themes", body.get("path").asText());
+            assertTrue(body.get("timestamp").asText().matches("\\d{2}-\\d{2}-\\d{4} \\d{2}:\\d{2}:\\d{2}"));
+        }
+
+        // Route publique : traitée par le contrôleur (identifiants incorrects), pas rejetée faute de token
+        MockHttpServletResponse login = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}")).andReturn().getResponse();
+        assertTrue(!login.getContentAsString().contains(MESSAGE), login.getContentAsString());
+    }
+}
@@ -0,0 +1,142 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.AccountPurgeProgress;
+import com.openclassrooms.mddapi.dto.UserRequest;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.models.UserTheme;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import com.openclassrooms.mddapi.security.services.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie la suppression différée d'un compte : désactivation immédiate puis purge par lots en arrière-plan
+ */
+@SpringBootTest(properties = {
+        "accounts.purge.batch-size=7",
+        "accounts.purge.pause-ms=0"
+})
+class AccountPurgeServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private AccountPurgeService accountPurgeService;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserThemeRepository userThemeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void deletedAccountIsDisabledThenPurgedInBatches() throws InterruptedException {
+        User author = TestData.user(userRepository, "auteur");
+        User reader = TestData.user(userRepository, "lecteur");
+        Theme theme = TestData.theme(themeRepository, "Purge");
+
+        UserTheme subscription = new UserTheme();
+        subscription.setUser(author);
+        subscription.setTheme(theme);
+        userThemeRepository.save(subscription);
+
+        List<Article> articles = new ArrayList<>();
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Article article = new Article();
+            article.setTitle("Article " + i);
+            article.setContent("Contenu");
+            article.setAuthor(author);
+            article.setTheme(theme);
+            articles.add(article);
+            // Un commentaire de l'auteur et un commentaire d'un autre utilisateur sur chaque article
+            comments.add(newComment(author, article));
+            comments.add(newComment(reader, article));
+        }
+        articleRepository.saveAll(articles);
+        commentRepository.saveAll(comments);
+        double commentsBefore = meterRegistry.counter("mdd.accounts.purge.rows", "type", "comments").count();
+
+        userService.deleteUser(author.getId(), author.getId());
+
+        // Désactivation immédiate : connexion et lecture du profil impossibles
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(author.getEmail()));
+        assertThrows(EntityNotFoundException.class, () -> userService.getUserById(author.getId()));
+        // Ni modification du compte avec un jeton encore valide
+        UserRequest rename = new UserRequest();
+        rename.setUsername("renomme-" + TestData.uniqueSuffix());
+        assertThrows(EntityNotFoundException.class, () -> userService.updateUser(author.getId(), rename, author.getId()));
+
+        AccountPurgeProgress progress = awaitPurge(author.getId());
+        assertEquals(AccountPurgeProgress.Status.DONE, progress.getStatus());
+        assertEquals(1, progress.getSubscriptionsDeleted());
+        assertEquals(40, progress.getCommentsDeleted());
+        assertEquals(20, progress.getArticlesDeleted());
+        assertEquals(40, meterRegistry.counter("mdd.accounts.purge.rows", "type", "comments").count() - commentsBefore);
+
+        assertFalse(userRepository.existsById(author.getId()));
+        assertEquals(0, articleRepository.countByAuthorId(author.getId()));
+        assertEquals(0, commentRepository.countByAuthorId(reader.getId()));
+        assertTrue(userRepository.existsById(reader.getId()));
+    }
+
+    private AccountPurgeProgress awaitPurge(Long userId) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<AccountPurgeProgress> progress = accountPurgeService.getProgress().stream()
+                    .filter(candidate -> candidate.getUserId().equals(userId))
+                    .filter(candidate -> candidate.getStatus() == AccountPurgeProgress.Status.DONE
+                            || candidate.getStatus() == AccountPurgeProgress.Status.FAILED)
+                    .findFirst();
+            if (progress.isPresent()) {
+                return progress.get();
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Purge du compte " + userId + " non terminée");
+    }
+
+    private static Comment newComment(User author, Article article) {
+        Comment comment = new Comment();
+        comment.setContent("Commentaire");
+        comment.setAuthor(author);
+        comment.setArticle(article);
+        return comment;
+    }
+}
@@ -0,0 +1,94 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.openclassrooms.mddapi.dto.ArticleRequest;
+import com.openclassrooms.mddapi.dto.ArticleResponse;
+import com.openclassrooms.mddapi.dto.CommentRequest;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Vérifie que les articles sérialisés depuis ArticleJsonCache sont identiques à une sérialisation Jackson
+ * et suivent les modifications de l'article
+ */
+@SpringBootTest
+class ArticleJsonCacheTest {
+
+    // Sérialisation de référence, sans le cache
+    private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void cachedJsonMatchesJacksonAndFollowsChanges() throws Exception {
+        String suffix = TestData.uniqueSuffix();
+        User author = TestData.user(userRepository, "json");
+        Theme theme = TestData.theme(themeRepository, "JSON");
+
+        ArticleRequest request = new ArticleRequest();
+        request.setTitle("Titre \"échappé\" " + suffix);
+        request.setContent("Ligne 1\nLigne 2 — é");
+        request.setThemeId(theme.getId());
+        Long id = articleService.createArticle(request, author.getId()).getId();
+
+        List<ArticleResponse> articles = List.of(articleService.getArticleById(id));
+        objectMapper.writeValueAsBytes(articles);
+        double hits = hits();
+        assertEquals(PLAIN_MAPPER.readTree(PLAIN_MAPPER.writeValueAsBytes(articles)),
+                objectMapper.readTree(objectMapper.writeValueAsBytes(List.of(articleService.getArticleById(id)))));
+        assertEquals(hits + 1, hits());
+        // Générateur à base de Writer
+        assertEquals(PLAIN_MAPPER.writeValueAsString(articles), objectMapper.writeValueAsString(articles));
+
+        request.setTitle("Nouveau titre");
+        articleService.updateArticle(id, request, author.getId());
+        assertEquals("Nouveau titre", serialized(id).get("title").asText());
+        assertEquals(1, serialized(id).get("version").asLong());
+
+        CommentRequest comment = new CommentRequest();
+        comment.setContent("Commentaire");
+        comment.setArticleId(id);
+        commentService.createComment(comment, author.getId());
+        assertEquals(1, serialized(id).get("commentCount").asInt());
+    }
+
+    private JsonNode serialized(Long id) throws Exception {
+        return objectMapper.readTree(objectMapper.writeValueAsBytes(articleService.getArticleById(id)));
+    }
+
+    private double hits() {
+        return meterRegistry.get("mdd.articles.json-cache.requests").tag("result", "hit").counter().count();
+    }
+}
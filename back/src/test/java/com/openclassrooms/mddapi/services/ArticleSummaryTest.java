@@ -0,0 +1,112 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.ArticleSummaryResponse;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que les listes d'articles ne lisent pas le contenu (propriété LAZY, extrait enregistré)
+ * et que l'extrait des articles existants est calculé au démarrage
+ */
+@SpringBootTest
+class ArticleSummaryTest {
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private ArticleExcerptBackfill articleExcerptBackfill;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Theme theme;
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        User author = TestData.user(userRepository, "resume");
+        theme = TestData.theme(themeRepository, "Résumés");
+        article = TestData.article(articleRepository, author, theme,
+                "Un contenu   long\n\nsur plusieurs lignes. ".repeat(20));
+    }
+
+    @Test
+    void listsReadTheExcerptButNotTheContent() {
+        PersistenceUnitUtil persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        transactionTemplate.executeWithoutResult(status -> {
+            Article listed = articleRepository.findByTheme(theme).get(0);
+            assertFalse(persistenceUnitUtil.isLoaded(listed, "content"));
+            assertEquals(article.getExcerpt(), listed.getExcerpt());
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            Article detail = articleRepository.findDetailById(article.getId()).orElseThrow();
+            assertTrue(persistenceUnitUtil.isLoaded(detail, "content"));
+        });
+
+        List<ArticleSummaryResponse> summaries = articleService.getArticlesByTheme(theme.getId());
+        assertEquals(1, summaries.size());
+        assertEquals(Article.excerptOf(article.getContent()), summaries.get(0).getExcerpt());
+    }
+
+    @Test
+    void excerptCollapsesWhitespaceAndCutsOnAWordBoundary() {
+        String excerpt = Article.excerptOf(article.getContent());
+
+        assertTrue(excerpt.length() <= Article.EXCERPT_LENGTH);
+        assertTrue(excerpt.startsWith("Un contenu long sur plusieurs lignes. Un contenu"));
+        assertTrue(excerpt.endsWith("…"));
+        assertFalse(excerpt.contains("  "));
+        assertTrue(article.getContent().replaceAll("\\s+", " ")
+                .startsWith(excerpt.substring(0, excerpt.length() - 1) + " "));
+        assertEquals("Court", Article.excerptOf("  Court \n"));
+        assertNull(Article.excerptOf(null));
+        assertEquals(Article.EXCERPT_LENGTH, Article.excerptOf("x".repeat(500)).length());
+    }
+
+    @Test
+    void backfillComputesMissingExcerptsWithoutChangingTheVersion() {
+        jdbcTemplate.update("UPDATE articles SET excerpt = NULL WHERE id = ?", article.getId());
+
+        articleExcerptBackfill.backfill();
+
+        Article reloaded = articleRepository.findById(article.getId()).orElseThrow();
+        assertEquals(Article.excerptOf(article.getContent()), reloaded.getExcerpt());
+        assertEquals(article.getVersion(), reloaded.getVersion());
+    }
+}
@@ -0,0 +1,147 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.TransferReport;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.models.UserTheme;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Export puis import NDJSON : identifiants conservés, import relançable, extrait calculé,
+ * compteurs d'identifiants recalés et lignes invalides refusées avec leur numéro
+ */
+@SpringBootTest
+class BulkTransferServiceTest {
+
+    @Autowired
+    private BulkTransferService bulkTransferService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserThemeRepository userThemeRepository;
+
+    @Test
+    void exportedDataIsImportedBackWithItsIds() {
+        User author = TestData.user(userRepository, "export");
+        Theme theme = TestData.theme(themeRepository, "Export");
+        String content = "Contenu exporté. ".repeat(30);
+        Article article = TestData.article(articleRepository, author, theme, content);
+        Comment comment = new Comment();
+        comment.setContent("Commentaire exporté");
+        comment.setAuthor(author);
+        comment.setArticle(article);
+        comment = commentRepository.save(comment);
+        UserTheme subscription = new UserTheme();
+        subscription.setUser(author);
+        subscription.setTheme(theme);
+        subscription = userThemeRepository.save(subscription);
+
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        bulkTransferService.exportAll(export);
+
+        jdbcTemplate.update("DELETE FROM user_theme WHERE id = ?", subscription.getId());
+        jdbcTemplate.update("DELETE FROM comments WHERE id = ?", comment.getId());
+        jdbcTemplate.update("DELETE FROM articles WHERE id = ?", article.getId());
+        jdbcTemplate.update("DELETE FROM themes WHERE id = ?", theme.getId());
+
+        TransferReport report = bulkTransferService.importAll(new ByteArrayInputStream(export.toByteArray()));
+        assertTrue(report.getArticles() >= 1);
+
+        assertEquals(theme.getName(), jdbcTemplate.queryForObject(
+                "SELECT name FROM themes WHERE id = ?", String.class, theme.getId()));
+        Map<String, Object> importedArticle = jdbcTemplate.queryForMap(
+                "SELECT content, excerpt, author_id, theme_id FROM articles WHERE id = ?", article.getId());
+        assertEquals(content, importedArticle.get("content").toString());
+        assertEquals(Article.excerptOf(content), importedArticle.get("excerpt"));
+        assertEquals(author.getId(), ((Number) importedArticle.get("author_id")).longValue());
+        assertEquals(theme.getId(), ((Number) importedArticle.get("theme_id")).longValue());
+        assertEquals(article.getId(), jdbcTemplate.queryForObject(
+                "SELECT article_id FROM comments WHERE id = ?", Long.class, comment.getId()));
+        assertEquals(theme.getId(), jdbcTemplate.queryForObject(
+                "SELECT theme_id FROM user_theme WHERE id = ?", Long.class, subscription.getId()));
+
+        // Relancé : les lignes déjà présentes sont ignorées
+        long comments = countRows("comments");
+        long subscriptions = countRows("user_theme");
+        bulkTransferService.importAll(new ByteArrayInputStream(export.toByteArray()));
+        assertEquals(comments, countRows("comments"));
+        assertEquals(subscriptions, countRows("user_theme"));
+    }
+
+    @Test
+    void idCountersAreMovedAboveImportedIds() {
+        long importedId = 1_000_000 + (long) (Math.random() * 1_000_000);
+        importLines("{\"type\":\"theme\",\"id\":" + importedId + ",\"name\":\"Importé " + TestData.uniqueSuffix() + "\"}");
+
+        long nextVal = jdbcTemplate.queryForObject(
+                "SELECT next_val FROM id_generators WHERE sequence_name = 'themes'", Long.class);
+        assertTrue(nextVal >= importedId + IdAllocationService.ALLOCATION_SIZE);
+    }
+
+    @Test
+    void invalidLinesAreRejectedWithTheirNumber() {
+        String themeName = "Refusé " + TestData.uniqueSuffix();
+        String validTheme = "{\"type\":\"theme\",\"id\":" + (2_000_000 + (long) (Math.random() * 1_000_000))
+                + ",\"name\":\"" + themeName + "\"}";
+
+        IllegalArgumentException missingField = assertThrows(IllegalArgumentException.class, () -> importLines(
+                validTheme,
+                "{\"type\":\"article\",\"id\":1,\"title\":\"Sans auteur\",\"themeId\":1}"));
+        assertTrue(missingField.getMessage().contains("authorId"));
+        assertTrue(missingField.getMessage().contains("n°2"));
+        // Le lot contenant la ligne invalide n'a pas été écrit
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM themes WHERE name = ?", Long.class, themeName));
+
+        IllegalArgumentException malformed = assertThrows(IllegalArgumentException.class,
+                () -> importLines(validTheme, "{\"type\":\"comment\",\"id\":"));
+        assertTrue(malformed.getMessage().contains("n°2"));
+
+        IllegalArgumentException unknownType = assertThrows(IllegalArgumentException.class,
+                () -> importLines("{\"type\":\"tag\",\"id\":1}"));
+        assertTrue(unknownType.getMessage().contains("n°1"));
+    }
+
+    private void importLines(String... lines) {
+        bulkTransferService.importAll(new ByteArrayInputStream(
+                String.join("\n", lines).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long countRows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
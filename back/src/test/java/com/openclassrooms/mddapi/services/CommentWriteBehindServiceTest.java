@@ -0,0 +1,196 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.CommentRequest;
+import com.openclassrooms.mddapi.dto.CommentResponse;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Écriture différée des commentaires : acquittement après journalisation, écriture en base par le thread
+ * d'écriture, clés d'idempotence propres à chaque utilisateur et rejeu du journal au redémarrage
+ */
+@SpringBootTest(properties = "comments.write-behind.enabled=true")
+class CommentWriteBehindServiceTest {
+
+    private static final Path DIRECTORY = createDirectory();
+    private static final Path SPOOL = DIRECTORY.resolve("comments-spool.ndjson");
+    private static final Path DEAD_LETTER = DIRECTORY.resolve("comments-dead-letter.ndjson");
+
+    @DynamicPropertySource
+    static void journalFiles(DynamicPropertyRegistry registry) {
+        registry.add("comments.write-behind.spool-file", SPOOL::toString);
+        registry.add("comments.write-behind.dead-letter-file", DEAD_LETTER::toString);
+    }
+
+    @Autowired
+    private CommentWriteBehindService commentWriteBehindService;
+
+    @Autowired
+    private IdAllocationService idAllocationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private User alice;
+    private User bob;
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        alice = TestData.user(userRepository, "alice");
+        bob = TestData.user(userRepository, "bob");
+        article = TestData.article(articleRepository, alice, TestData.theme(themeRepository, "Différé"), "Contenu");
+    }
+
+    @Test
+    void acceptedCommentIsWrittenAndSpoolEmptied() throws Exception {
+        CommentResponse accepted = commentWriteBehindService.enqueue(request("Premier commentaire"),
+                alice.getId(), alice.getUsername(), null);
+
+        awaitRow(accepted.getId());
+        assertEquals("Premier commentaire", jdbcTemplate.queryForObject(
+                "SELECT content FROM comments WHERE id = ?", String.class, accepted.getId()));
+        awaitEmptySpool();
+    }
+
+    @Test
+    void idempotencyKeyIsScopedToTheUser() throws Exception {
+        CommentResponse first = commentWriteBehindService.enqueue(request("Envoyé deux fois"),
+                alice.getId(), alice.getUsername(), "cle-partagee");
+        CommentResponse retried = commentWriteBehindService.enqueue(request("Envoyé deux fois"),
+                alice.getId(), alice.getUsername(), "cle-partagee");
+        CommentResponse other = commentWriteBehindService.enqueue(request("Même clé, autre auteur"),
+                bob.getId(), bob.getUsername(), "cle-partagee");
+
+        assertEquals(first.getId(), retried.getId());
+        assertNotEquals(first.getId(), other.getId());
+        assertEquals(bob.getId(), other.getAuthorId());
+
+        awaitRow(first.getId());
+        awaitRow(other.getId());
+        assertEquals(bob.getId(), jdbcTemplate.queryForObject(
+                "SELECT author_id FROM comments WHERE id = ?", Long.class, other.getId()));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM comments WHERE article_id = ? AND author_id = ?", Integer.class,
+                article.getId(), alice.getId()));
+    }
+
+    @Test
+    void spoolIsReplayedOnRestart() throws Exception {
+        commentWriteBehindService.stop();
+
+        // Écrit en base avant l'arrêt mais encore présent dans le journal
+        CommentWriteBehindService.PendingComment alreadyWritten = pending(null, alice, article.getId());
+        jdbcTemplate.update("INSERT INTO comments (id, content, created_at, author_id, article_id) VALUES (?, ?, ?, ?, ?)",
+                alreadyWritten.id(), alreadyWritten.content(), Timestamp.valueOf(alreadyWritten.createdAt()),
+                alreadyWritten.authorId(), alreadyWritten.articleId());
+        CommentWriteBehindService.PendingComment notWritten = pending("cle-rejouee", alice, article.getId());
+        // Article supprimé avant l'écriture : refusé par la clé étrangère
+        CommentWriteBehindService.PendingComment orphan = pending(null, alice, -1L);
+        writeSpool(List.of(alreadyWritten, notWritten, orphan));
+
+        commentWriteBehindService.start();
+
+        assertEquals(1, countRows(alreadyWritten.id()));
+        assertEquals(1, countRows(notWritten.id()));
+        assertEquals(0, countRows(orphan.id()));
+        assertTrue(Files.readString(DEAD_LETTER).contains("\"id\":" + orphan.id()));
+
+        // Clé restaurée pour son auteur seulement
+        assertEquals(notWritten.id(), commentWriteBehindService.enqueue(request("Renvoi"),
+                alice.getId(), alice.getUsername(), "cle-rejouee").getId());
+        CommentResponse other = commentWriteBehindService.enqueue(request("Autre auteur"),
+                bob.getId(), bob.getUsername(), "cle-rejouee");
+        assertNotEquals(notWritten.id(), other.getId());
+        awaitRow(other.getId());
+    }
+
+    private CommentRequest request(String content) {
+        CommentRequest request = new CommentRequest();
+        request.setContent(content);
+        request.setArticleId(article.getId());
+        return request;
+    }
+
+    private CommentWriteBehindService.PendingComment pending(String idempotencyKey, User author, Long articleId) {
+        return new CommentWriteBehindService.PendingComment(idAllocationService.nextId("comments"), idempotencyKey,
+                "Journalisé", LocalDateTime.now(), author.getId(), author.getUsername(), articleId);
+    }
+
+    private void writeSpool(List<CommentWriteBehindService.PendingComment> comments) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (CommentWriteBehindService.PendingComment pending : comments) {
+            lines.append(objectMapper.writeValueAsString(pending)).append('\n');
+        }
+        Files.writeString(SPOOL, lines, StandardCharsets.UTF_8);
+    }
+
+    private int countRows(Long id) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM comments WHERE id = ?", Integer.class, id);
+    }
+
+    private void awaitRow(Long id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (countRows(id) == 1) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Commentaire " + id + " non écrit");
+    }
+
+    private void awaitEmptySpool() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            if (commentWriteBehindService.getPendingCount() == 0 && Files.size(SPOOL) == 0) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Journal des commentaires non vidé");
+    }
+
+    private static Path createDirectory() {
+        try {
+            return Files.createTempDirectory("comments-write-behind");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
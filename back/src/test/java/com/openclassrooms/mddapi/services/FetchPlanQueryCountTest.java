@@ -0,0 +1,231 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.ArticleRequest;
+import com.openclassrooms.mddapi.dto.CommentRequest;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.models.UserTheme;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.repositories.UserThemeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Vérifie que le nombre de requêtes SQL des lectures et des suppressions ne dépend pas du volume de données
+ * (associations LAZY + entity graphs, compteurs calculés en base, suppressions ensemblistes).
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+class FetchPlanQueryCountTest {
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserThemeRepository userThemeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Statistics statistics;
+
+    private User author;
+    private Theme theme;
+    private Article article;
+    private Comment comment;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        author = TestData.user(userRepository, "auteur");
+        theme = TestData.theme(themeRepository, "Thème");
+
+        UserTheme subscription = new UserTheme();
+        subscription.setUser(author);
+        subscription.setTheme(theme);
+        userThemeRepository.save(subscription);
+
+        addArticles(1, 1);
+        article = articleRepository.findByAuthor(author).get(0);
+        comment = commentRepository.findByArticle(article).get(0);
+    }
+
+    @Test
+    void articleReadsUseAFixedNumberOfQueries() {
+        assertFixedQueryCount(1, () -> articleService.getArticleById(article.getId()));
+        assertFixedQueryCount(2, () -> articleService.getArticlesByTheme(theme.getId()));
+        assertFixedQueryCount(2, () -> articleService.getArticlesByUser(author.getId()));
+        assertFixedQueryCount(1, () -> articleService.searchArticlesByTitle("Article"));
+        assertFixedQueryCount(3, () -> articleService.getArticlesByUserSubscriptions(author.getId()));
+        assertFixedQueryCount(1, () -> stream(out -> articleService.streamAllArticles(objectMapper.writer(), out)));
+    }
+
+    @Test
+    void commentReadsUseAFixedNumberOfQueries() {
+        assertFixedQueryCount(1, () -> commentService.getCommentById(comment.getId()));
+        assertFixedQueryCount(1, () -> commentService.getCommentsByArticle(article.getId()));
+        assertFixedQueryCount(2, () -> stream(
+                out -> commentService.streamCommentsByUser(author.getId(), objectMapper.writer(), out)));
+    }
+
+    @Test
+    void userAndThemeReadsUseAFixedNumberOfQueries() {
+        assertFixedQueryCount(3, () -> userService.getUserById(author.getId()));
+        assertFixedQueryCount(1, () -> stream(out -> userService.streamAllUsers(objectMapper.writer(), out)));
+        assertFixedQueryCount(2, () -> themeService.getThemeById(theme.getId()));
+        assertFixedQueryCount(1, () -> themeService.getAllThemes());
+    }
+
+    @Test
+    void ownershipChecksAndDeletesUseSetBasedStatements() {
+        Long otherId = TestData.user(userRepository, "autre").getId();
+
+        // Suppression refusée : commentaires (0 ligne), article (0 ligne), puis lecture de l'auteur pour l'erreur
+        assertEquals(3, countQueries(() -> assertThrows(IllegalStateException.class,
+                () -> articleService.deleteArticle(article.getId(), otherId))));
+        assertEquals(2, countQueries(() -> assertThrows(IllegalStateException.class,
+                () -> commentService.deleteComment(comment.getId(), otherId))));
+        assertEquals(3, countQueries(() -> assertThrows(EntityNotFoundException.class,
+                () -> articleService.deleteArticle(-1L, author.getId()))));
+
+        // Article du commentaire (pour l'instantané des derniers articles), puis suppression
+        assertEquals(2, countQueries(() -> commentService.deleteComment(comment.getId(), author.getId())));
+        assertFalse(commentRepository.existsById(comment.getId()));
+
+        // Un article et tous ses commentaires : deux requêtes, quel que soit le nombre de commentaires
+        addArticles(1, 50);
+        Article commented = articleRepository.findByAuthor(author).stream()
+                .filter(candidate -> !candidate.getId().equals(article.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(50, commented.getCommentCount());
+        assertEquals(2, countQueries(() -> articleService.deleteArticle(commented.getId(), author.getId())));
+        assertFalse(articleRepository.existsById(commented.getId()));
+    }
+
+    @Test
+    void updatesCheckTheAuthorInTheStatement() {
+        ArticleRequest articleRequest = new ArticleRequest();
+        articleRequest.setTitle("Titre modifié");
+        articleRequest.setContent("Contenu modifié");
+        articleRequest.setThemeId(theme.getId());
+        // Thème (1), mise à jour (1), relecture pour la réponse (1)
+        assertEquals(3, countQueries(() -> articleService.updateArticle(article.getId(), articleRequest, author.getId())));
+        assertEquals("Titre modifié", articleService.getArticleById(article.getId()).getTitle());
+        assertThrows(IllegalStateException.class,
+                () -> articleService.updateArticle(article.getId(), articleRequest, -1L));
+
+        CommentRequest commentRequest = new CommentRequest();
+        commentRequest.setContent("Commentaire modifié");
+        commentRequest.setArticleId(article.getId());
+        // Article (1), article d'avant la mise à jour (1), mise à jour (1), relecture pour la réponse (1)
+        assertEquals(4, countQueries(() -> commentService.updateComment(comment.getId(), commentRequest, author.getId())));
+        assertEquals("Commentaire modifié", commentService.getCommentById(comment.getId()).getContent());
+        assertThrows(EntityNotFoundException.class,
+                () -> commentService.updateComment(-1L, commentRequest, author.getId()));
+    }
+
+    /**
+     * Exécute l'action avant et après l'ajout de données et vérifie que le nombre de requêtes reste celui attendu
+     */
+    private void assertFixedQueryCount(long expected, Runnable action) {
+        assertEquals(expected, countQueries(action), "avant ajout de données");
+        addArticles(10, 3);
+        assertEquals(expected, countQueries(action), "après ajout de données");
+    }
+
+    /**
+     * Compte les requêtes exécutées par l'action, cache de second niveau vide (cas le plus défavorable)
+     */
+    private long countQueries(Runnable action) {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void addArticles(int articleCount, int commentsPerArticle) {
+        List<Article> articles = new ArrayList<>();
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < articleCount; i++) {
+            Article newArticle = new Article();
+            newArticle.setTitle("Article " + i);
+            newArticle.setContent("Contenu");
+            newArticle.setAuthor(author);
+            newArticle.setTheme(theme);
+            articles.add(newArticle);
+            for (int j = 0; j < commentsPerArticle; j++) {
+                Comment newComment = new Comment();
+                newComment.setContent("Commentaire " + j);
+                newComment.setAuthor(author);
+                newComment.setArticle(newArticle);
+                comments.add(newComment);
+            }
+        }
+        articleRepository.saveAll(articles);
+        commentRepository.saveAll(comments);
+    }
+
+    private static void stream(StreamingCall call) {
+        try {
+            call.writeTo(new ByteArrayOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamingCall {
+        void writeTo(ByteArrayOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Identifiants attribués par Hibernate (@TableGenerator "pooled") et par IdAllocationService
+ * dans le même compteur : aucune collision, y compris au passage d'un bloc au suivant
+ */
+@SpringBootTest
+class IdAllocationServiceTest {
+
+    @Autowired
+    private IdAllocationService idAllocationService;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Test
+    void entityAndJdbcIdsNeverCollide() {
+        User author = TestData.user(userRepository, "compteur");
+        Article article = TestData.article(articleRepository, author, TestData.theme(themeRepository, "Compteur"), "Contenu");
+        Set<Long> ids = new HashSet<>();
+
+        // Plus de trois blocs de part et d'autre, alternés
+        for (int i = 0; i < 3 * IdAllocationService.ALLOCATION_SIZE + 7; i++) {
+            Comment comment = new Comment();
+            comment.setContent("Commentaire " + i);
+            comment.setAuthor(author);
+            comment.setArticle(article);
+            Long entityId = commentRepository.save(comment).getId();
+            long jdbcId = idAllocationService.nextId("comments");
+
+            assertTrue(ids.add(entityId), "Identifiant " + entityId + " attribué deux fois");
+            assertTrue(ids.add(jdbcId), "Identifiant " + jdbcId + " attribué deux fois");
+            if (i == IdAllocationService.ALLOCATION_SIZE) {
+                // Recalage après un import : les blocs déjà réservés restent valables
+                idAllocationService.synchronizeWithTables();
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.openclassrooms.mddapi.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.dto.ArticleSummaryResponse;
+import com.openclassrooms.mddapi.dto.CommentResponse;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ArticleRepository;
+import com.openclassrooms.mddapi.repositories.CommentRepository;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.security.jwt.JwtUtils;
+import com.openclassrooms.mddapi.security.services.UserDetailsImpl;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listes écrites en flux sur plus d'un paquet ({@link JsonStreamWriter#CHUNK_SIZE} éléments) : même tableau JSON
+ * que la lecture en base, contexte de persistance libéré au fil de l'écriture et flux fermé en cas d'échec
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class JsonStreamWriterTest {
+
+    private static final int COMMENTS = JsonStreamWriter.CHUNK_SIZE + 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private JsonStreamWriter jsonStreamWriter;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private User author;
+    private Article article;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        author = TestData.user(userRepository, "flux");
+        article = TestData.article(articleRepository, author, TestData.theme(themeRepository, "Flux"), "Contenu");
+        List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < COMMENTS; i++) {
+            Comment comment = new Comment();
+            comment.setContent("Commentaire " + i);
+            comment.setAuthor(author);
+            comment.setArticle(article);
+            comments.add(comment);
+        }
+        commentRepository.saveAll(comments);
+        token = "Bearer " + jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                UserDetailsImpl.build(author), null, List.of()));
+    }
+
+    @Test
+    void streamedListsMatchTheDatabase() throws Exception {
+        JsonNode comments = getJson("/api/comments/user/" + author.getId());
+        assertEquals(COMMENTS, comments.size());
+        Map<Long, JsonNode> expected = new HashMap<>();
+        for (CommentResponse comment : commentService.getCommentsByArticle(article.getId())) {
+            expected.put(comment.getId(), objectMapper.readTree(objectMapper.writeValueAsBytes(comment)));
+        }
+        for (JsonNode comment : comments) {
+            assertEquals(expected.get(comment.get("id").asLong()), comment);
+        }
+
+        // fields : la liste est lue en base plutôt que dans l'instantané des derniers articles
+        JsonNode articles = getJson("/api/articles?fields=id,title,commentCount");
+        List<Long> articleIds = new ArrayList<>();
+        articles.forEach(element -> articleIds.add(element.get("id").asLong()));
+        assertEquals(articleService.getLatestArticles(Integer.MAX_VALUE).stream()
+                        .map(ArticleSummaryResponse::getId).toList(),
+                articleIds);
+        assertEquals(COMMENTS, articles.get(articleIds.indexOf(article.getId())).get("commentCount").asInt());
+
+        JsonNode users = getJson("/api/users");
+        Set<Long> userIds = new HashSet<>();
+        users.forEach(user -> userIds.add(user.get("id").asLong()));
+        assertEquals(Set.copyOf(jdbcTemplate.queryForList("SELECT id FROM users WHERE deleted_at IS NULL", Long.class)),
+                userIds);
+    }
+
+    @Test
+    void persistenceContextIsReleasedWhileStreaming() {
+        AtomicInteger maxManaged = new AtomicInteger();
+        long written = inReadOnlyTransaction(() -> {
+            long count = write(commentRepository.streamByAuthorId(author.getId()), comment -> {
+                // Commentaire courant et ses associations : les commentaires précédents sont détachés
+                maxManaged.accumulateAndGet(session().getStatistics().getEntityCount(), Math::max);
+                return comment.getId();
+            });
+            assertEquals(0, session().getStatistics().getEntityCount());
+            return count;
+        });
+
+        assertEquals(COMMENTS, written);
+        // Sans détachement, jusqu'à CHUNK_SIZE commentaires
+        assertTrue(maxManaged.get() < 10, "Entités gérées pendant l'écriture : " + maxManaged.get());
+    }
+
+    @Test
+    void streamIsClosedWhenSerializationFails() {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicInteger mapped = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> inReadOnlyTransaction(() -> write(
+                commentRepository.streamByAuthorId(author.getId()).onClose(() -> closed.set(true)),
+                comment -> {
+                    if (mapped.incrementAndGet() == JsonStreamWriter.CHUNK_SIZE + 1) {
+                        throw new IllegalStateException("Échec de sérialisation");
+                    }
+                    return comment.getId();
+                })));
+        assertTrue(closed.get());
+    }
+
+    private JsonNode getJson(String uri) throws Exception {
+        byte[] body = mockMvc.perform(get(uri).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode json = objectMapper.readTree(body);
+        assertTrue(json.isArray());
+        return json;
+    }
+
+    private long write(Stream<Comment> comments, Function<Comment, Long> mapper) {
+        try {
+            return jsonStreamWriter.writeArray(comments, mapper, objectMapper.writer(), new ByteArrayOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long inReadOnlyTransaction(LongSupplier action) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> action.getAsLong());
+    }
+
+    private Session session() {
+        return entityManager.unwrap(Session.class);
+    }
+}
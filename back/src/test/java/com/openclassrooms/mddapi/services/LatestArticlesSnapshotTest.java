@@ -0,0 +1,137 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.dto.ArticleRequest;
+import com.openclassrooms.mddapi.dto.CommentRequest;
+import com.openclassrooms.mddapi.events.CommentsAddedEvent;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que l'instantané des derniers articles suit les créations, modifications et suppressions
+ * sans requête SQL à la lecture
+ */
+@SpringBootTest(properties = "articles.latest.size=3")
+class LatestArticlesSnapshotTest {
+
+    @Autowired
+    private LatestArticlesSnapshot latestArticlesSnapshot;
+
+    @Autowired
+    private ArticleService articleService;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void snapshotFollowsArticleChanges() throws IOException {
+        User author = TestData.user(userRepository, "recent");
+        Theme theme = TestData.theme(themeRepository, "Récents");
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(articleService.createArticle(request("Article " + i, theme), author.getId()).getId());
+        }
+        assertEquals(List.of(ids.get(3), ids.get(2), ids.get(1)), latestIds(3));
+        assertEquals(List.of(ids.get(3)), latestIds(1));
+        // Plus d'articles que l'instantané n'en retient : ces lectures passent par la base
+        assertFalse(latestArticlesSnapshot.writeTo(4, new ByteArrayOutputStream()));
+        assertFalse(latestArticlesSnapshot.writeTo(null, new ByteArrayOutputStream()));
+
+        // Les lectures servies par l'instantané n'exécutent aucune requête
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        latest(3);
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        articleService.updateArticle(ids.get(2), request("Titre modifié", theme), author.getId());
+        CommentRequest comment = new CommentRequest();
+        comment.setContent("Commentaire");
+        comment.setArticleId(ids.get(2));
+        Long commentId = commentService.createComment(comment, author.getId()).getId();
+        JsonNode updated = latest(3).get(1);
+        assertEquals("Titre modifié", updated.get("title").asText());
+        assertEquals(1, updated.get("commentCount").asInt());
+
+        // Rechargement qui a déjà lu le commentaire avant que son événement ne soit traité : pas de double compte
+        latestArticlesSnapshot.reload();
+        latestArticlesSnapshot.onCommentsAdded(new CommentsAddedEvent(ids.get(2), 1));
+        assertEquals(1, latest(3).get(1).get("commentCount").asInt());
+
+        // Commentaire déplacé puis supprimé : les deux articles suivent
+        comment.setArticleId(ids.get(1));
+        commentService.updateComment(commentId, comment, author.getId());
+        assertEquals(List.of(0, 1), commentCounts(3).subList(1, 3));
+        commentService.deleteComment(commentId, author.getId());
+        assertEquals(List.of(0, 0), commentCounts(3).subList(1, 3));
+
+        // Suppression : l'instantané retient un article de moins jusqu'au rechargement
+        articleService.deleteArticle(ids.get(3), author.getId());
+        assertEquals(List.of(ids.get(2), ids.get(1)), latestIds(2));
+        assertFalse(latestArticlesSnapshot.writeTo(3, new ByteArrayOutputStream()));
+        latestArticlesSnapshot.reload();
+        assertEquals(List.of(ids.get(2), ids.get(1), ids.get(0)), latestIds(3));
+
+        // Même contenu que la lecture en base
+        ByteArrayOutputStream fromDatabase = new ByteArrayOutputStream();
+        articleService.streamLatestArticles(3, objectMapper.writer(), fromDatabase);
+        assertEquals(objectMapper.readTree(fromDatabase.toByteArray()), latest(3));
+    }
+
+    private List<Long> latestIds(int limit) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        latest(limit).forEach(article -> ids.add(article.get("id").asLong()));
+        return ids;
+    }
+
+    private List<Integer> commentCounts(int limit) throws IOException {
+        List<Integer> counts = new ArrayList<>();
+        latest(limit).forEach(article -> counts.add(article.get("commentCount").asInt()));
+        return counts;
+    }
+
+    private JsonNode latest(int limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(latestArticlesSnapshot.writeTo(limit, out));
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static ArticleRequest request(String title, Theme theme) {
+        ArticleRequest request = new ArticleRequest();
+        request.setTitle(title);
+        request.setContent("Contenu");
+        request.setThemeId(theme.getId());
+        return request;
+    }
+}
@@ -0,0 +1,118 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.TestData;
+import com.openclassrooms.mddapi.config.SecondLevelCacheEndpoint;
+import com.openclassrooms.mddapi.dto.CacheRegionReport;
+import com.openclassrooms.mddapi.dto.ThemeRequest;
+import com.openclassrooms.mddapi.dto.UserRequest;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repositories.ThemeRepository;
+import com.openclassrooms.mddapi.repositories.UserRepository;
+import com.openclassrooms.mddapi.security.services.UserDetailsServiceImpl;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vérifie que les lectures par clé primaire et par identifiant naturel de User et Theme sont servies
+ * par le cache de second niveau, et que les modifications l'invalident
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ThemeService themeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ThemeRepository themeRepository;
+
+    @Autowired
+    private SecondLevelCacheEndpoint secondLevelCacheEndpoint;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void userLookupsAreServedFromTheCache() {
+        User user = TestData.user(userRepository, "cache");
+        Long id = user.getId();
+        String email = user.getEmail();
+
+        userDetailsService.loadUserById(id);
+        assertEquals(0, countQueries(() -> userDetailsService.loadUserById(id)));
+        userDetailsService.loadUserByUsername(email);
+        assertEquals(0, countQueries(() -> userDetailsService.loadUserByUsername(email)));
+
+        // Changement d'email : l'ancien ne doit plus être résolu depuis le cache
+        UserRequest request = new UserRequest();
+        request.setEmail("nouveau-" + email);
+        userService.updateUser(id, request, id);
+        assertThrows(UsernameNotFoundException.class, () -> userDetailsService.loadUserByUsername(email));
+        assertEquals(id, userService.getUserByEmail("nouveau-" + email).getId());
+
+        assertTrue(region(User.CACHE_REGION).getHits() > 0);
+        assertTrue(region(User.NATURAL_ID_CACHE_REGION).getHits() > 0);
+    }
+
+    @Test
+    void themeLookupsAreServedFromTheCache() {
+        Theme theme = TestData.theme(themeRepository, "Cache");
+        Long id = theme.getId();
+        String name = theme.getName();
+
+        themeService.getThemeById(id);
+        // Seul le nombre d'articles est encore lu en base
+        assertEquals(1, countQueries(() -> themeService.getThemeById(id)));
+        themeService.getThemeByName(name);
+        assertEquals(1, countQueries(() -> themeService.getThemeByName(name)));
+
+        ThemeRequest request = new ThemeRequest();
+        request.setName(name + " renommé");
+        themeService.updateTheme(id, request);
+        assertThrows(EntityNotFoundException.class, () -> themeService.getThemeByName(name));
+        assertEquals(id, themeService.getThemeByName(name + " renommé").getId());
+
+        assertTrue(region(Theme.NATURAL_ID_CACHE_REGION).getHits() > 0);
+    }
+
+    private CacheRegionReport region(String name) {
+        return secondLevelCacheEndpoint.regions().stream()
+                .filter(report -> report.getRegion().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private long countQueries(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}
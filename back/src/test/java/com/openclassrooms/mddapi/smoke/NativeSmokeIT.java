@@ -0,0 +1,167 @@
+package com.openclassrooms.mddapi.smoke;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests de fumée d'une application déjà démarrée, par HTTP : exécutable natif lancé par le profil Maven native
+ * (mvn -Pnative verify), ou toute instance désignée par -Dsmoke.base-url. Chaque test passe par une partie
+ * que l'image native doit avoir conservée : JWT (jjwt), validation, entités et projections Hibernate,
+ * DTO écrits en flux, CBOR, réponses d'erreur pré-encodées et springdoc.
+ */
+@EnabledIfSystemProperty(named = "smoke.base-url", matches = ".+")
+class NativeSmokeIT {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(60);
+    private static final String PASSWORD = "Smoke-test1!";
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private static String baseUrl;
+    private static String token;
+    private static long articleId;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        baseUrl = System.getProperty("smoke.base-url").replaceAll("/+$", "");
+        awaitHealthy();
+
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String email = "smoke-" + suffix + "@mdd.test";
+        HttpResponse<String> registered = send(post("/api/auth/register",
+                Map.of("username", "smoke-" + suffix, "email", email, "password", PASSWORD)));
+        assertEquals(200, registered.statusCode(), registered.body());
+
+        HttpResponse<String> login = send(post("/api/auth/login", Map.of("email", email, "password", PASSWORD)));
+        assertEquals(200, login.statusCode(), login.body());
+        token = JSON.readTree(login.body()).get("token").asText();
+
+        HttpResponse<String> theme = send(authenticated(post("/api/themes",
+                Map.of("name", "Smoke " + suffix, "description", "Thème des tests de fumée"))));
+        assertEquals(201, theme.statusCode(), theme.body());
+
+        HttpResponse<String> article = send(authenticated(post("/api/articles", Map.of(
+                "title", "Article " + suffix,
+                "content", "Contenu   de l'article\nde fumée, lu seulement par le détail. ".repeat(10),
+                "themeId", JSON.readTree(theme.body()).get("id").asLong()))));
+        assertEquals(201, article.statusCode(), article.body());
+        articleId = JSON.readTree(article.body()).get("id").asLong();
+    }
+
+    @Test
+    void articleDetailHasTheContent() throws Exception {
+        HttpResponse<String> response = send(authenticated(get("/api/articles/" + articleId)));
+
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode article = JSON.readTree(response.body());
+        assertTrue(article.get("content").asText().startsWith("Contenu   de l'article"));
+        assertNotNull(response.headers().firstValue("ETag").orElse(null));
+    }
+
+    @Test
+    void articleListHasExcerptsOnly() throws Exception {
+        HttpResponse<String> response = send(authenticated(get("/api/articles")));
+
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode articles = JSON.readTree(response.body());
+        assertFalse(articles.isEmpty());
+        for (JsonNode article : articles) {
+            assertFalse(article.has("content"));
+        }
+    }
+
+    @Test
+    void articleIsAvailableInCbor() throws Exception {
+        HttpResponse<byte[]> response = CLIENT.send(authenticated(get("/api/articles/" + articleId))
+                .header("Accept", "application/cbor")
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals(articleId, new CBORMapper().readTree(response.body()).get("id").asLong());
+    }
+
+    @Test
+    void requestWithoutTokenIsRejectedWithJsonError() throws Exception {
+        HttpResponse<String> response = send(get("/api/articles"));
+
+        assertEquals(401, response.statusCode());
+        assertEquals(401, JSON.readTree(response.body()).get("status").asInt());
+    }
+
+    @Test
+    void invalidRegistrationIsRejected() throws Exception {
+        HttpResponse<String> response = send(post("/api/auth/register",
+                Map.of("username", "x", "email", "pas-un-email", "password", "faible")));
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void openApiDocumentDescribesTheControllers() throws Exception {
+        HttpResponse<String> response = send(get("/v3/api-docs"));
+        // Exécutable construit avec le profil prod : springdoc désactivé
+        assumeTrue(response.statusCode() != 404 && response.statusCode() != 401, "springdoc désactivé");
+
+        assertEquals(200, response.statusCode(), response.body());
+        JsonNode paths = JSON.readTree(response.body()).get("paths");
+        assertTrue(paths.has("/api/articles"));
+        assertTrue(paths.has("/api/themes"));
+    }
+
+    private static void awaitHealthy() throws InterruptedException {
+        Instant deadline = Instant.now().plus(STARTUP_TIMEOUT);
+        while (Instant.now().isBefore(deadline)) {
+            try {
+                HttpResponse<String> health = send(get("/actuator/health"));
+                if (health.statusCode() == 200 && "UP".equals(JSON.readTree(health.body()).path("status").asText())) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Pas encore à l'écoute
+            }
+            Thread.sleep(200);
+        }
+        fail("Application non disponible sur " + baseUrl + " après " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+
+    private static HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(10)).GET();
+    }
+
+    private static HttpRequest.Builder post(String path, Map<String, ?> body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(body)));
+    }
+
+    private static HttpRequest.Builder authenticated(HttpRequest.Builder request) {
+        return request.header("Authorization", "Bearer " + token);
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
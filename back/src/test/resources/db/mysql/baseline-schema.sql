@@ -0,0 +1,61 @@
+-- Schéma créé par ddl-auto=update avec la version précédente de l'application (identifiants AUTO_INCREMENT),
+-- point de départ des scripts de db/mysql/upgrade dans SchemaScriptsTest
+
+CREATE TABLE users (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    username VARCHAR(255),
+    email VARCHAR(255),
+    password VARCHAR(255),
+    created_at DATETIME(6),
+    updated_at DATETIME(6),
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE themes (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255) NOT NULL,
+    description TEXT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE articles (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    title VARCHAR(255),
+    content VARCHAR(255),
+    created_at DATETIME(6),
+    author_id BIGINT,
+    theme_id BIGINT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE comments (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    content VARCHAR(255),
+    created_at DATETIME(6),
+    author_id BIGINT,
+    article_id BIGINT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+CREATE TABLE user_theme (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    user_id BIGINT,
+    theme_id BIGINT,
+    PRIMARY KEY (id)
+) ENGINE=InnoDB;
+
+ALTER TABLE themes ADD CONSTRAINT UK_3estny12ybh85k7y8j6gyyrep UNIQUE (name);
+ALTER TABLE articles ADD CONSTRAINT FKe02fs2ut6qqoabfhj325wcjul FOREIGN KEY (author_id) REFERENCES users (id);
+ALTER TABLE articles ADD CONSTRAINT FKlml0ejjetiyeebfkn3cidwnob FOREIGN KEY (theme_id) REFERENCES themes (id);
+ALTER TABLE comments ADD CONSTRAINT FKk4ib6syde10dalk7r7xdl0m5p FOREIGN KEY (article_id) REFERENCES articles (id);
+ALTER TABLE comments ADD CONSTRAINT FKn2na60ukhs76ibtpt9burkm27 FOREIGN KEY (author_id) REFERENCES users (id);
+ALTER TABLE user_theme ADD CONSTRAINT FKn5sjpumvhnv4ipc8nm9h1mu21 FOREIGN KEY (theme_id) REFERENCES themes (id);
+ALTER TABLE user_theme ADD CONSTRAINT FKndmtnw0t1e6jdtk0h0xegcwjq FOREIGN KEY (user_id) REFERENCES users (id);
+
+-- Données de la version précédente
+INSERT INTO users (username, email, password, created_at) VALUES ('ancien', 'ancien@mdd.test', 'x', CURRENT_TIMESTAMP);
+INSERT INTO themes (name, description) VALUES ('Ancien thème', 'Créé avant la mise à jour');
+INSERT INTO articles (title, content, created_at, author_id, theme_id) VALUES ('Ancien article', 'Contenu   d''avant', CURRENT_TIMESTAMP, 1, 1);
+-- Abonnement en double, possible sans clé unique
+INSERT INTO user_theme (user_id, theme_id) VALUES (1, 1);
+INSERT INTO user_theme (user_id, theme_id) VALUES (1, 1);
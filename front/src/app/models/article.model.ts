@@ -18,3 +18,15 @@ export interface Article {
   commentCount: number;
   comments?: Comment[];
 }
+
+export interface ArticleSummary {
+  id: number;
+  title: string;
+  excerpt: string;
+  createdAt: string;
+  authorId: number;
+  authorUsername: string;
+  themeId: number;
+  themeName: string;
+  commentCount: number;
+}
@@ -2,20 +2,26 @@ import { Component, OnInit } from '@angular/core';
 import { Router } from '@angular/router';
 import { TokenStorageService } from '../../services/token-storage.service';
 import { ArticleService } from '../../services/article.service';
-import { Article } from '../../models/article.model';
+import { ArticleSummary } from '../../models/article.model';
 
 // L'interface a été déplacée dans son propre fichier modèle
 
+// Nombre d'articles chargés à chaque page pour les visiteurs non connectés
+const ARTICLES_PAGE_SIZE = 20;
+
 @Component({
   selector: 'app-articles',
   templateUrl: './articles.component.html',
   styleUrls: ['./articles.component.scss']
 })
 export class ArticlesComponent implements OnInit {
-  articles: Article[] = [];
+  articles: ArticleSummary[] = [];
   loading = false;
   error = '';
   userSubscriptions: number[] = [];
+  hasMoreArticles = false;
+  loadingMore = false;
+  private articleLimit = ARTICLES_PAGE_SIZE;
 
   sortOrder: 'newest' | 'oldest' = 'newest'; // Default sort order
   currentUser: any = null;
@@ -55,22 +61,44 @@ export class ArticlesComponent implements OnInit {
         }
       });
     } else {
-      // Pour les utilisateurs non connectés, on affiche tous les articles
-      this.articleService.getAllArticles().subscribe({
-        next: (data) => {
-          this.articles = data;
-          this.sortArticles();
-          this.loading = false;
-        },
-        error: (err) => {
-          this.articles = [];
-          this.error = 'Erreur lors du chargement des articles: ' + (err.error?.message || err.message);
-          this.loading = false;
-          console.error('Erreur lors du chargement des articles:', err);
-        }
-      });
+      // Pour les utilisateurs non connectés, on affiche les articles les plus récents, page par page
+      this.articleLimit = ARTICLES_PAGE_SIZE;
+      this.loadLatestArticles();
     }
   }
+
+  /**
+   * Charge la page suivante d'articles plus anciens
+   */
+  loadMoreArticles() {
+    this.loadingMore = true;
+    this.articleLimit += ARTICLES_PAGE_SIZE;
+    this.loadLatestArticles();
+  }
+
+  /**
+   * Charge les articles les plus récents, dans la limite des pages déjà demandées
+   */
+  private loadLatestArticles() {
+    this.articleService.getLatestArticles(this.articleLimit).subscribe({
+      next: (data) => {
+        this.articles = data;
+        // Moins d'articles que demandé : il n'y en a pas d'autres
+        this.hasMoreArticles = data.length === this.articleLimit;
+        this.sortArticles();
+        this.loading = false;
+        this.loadingMore = false;
+      },
+      error: (err) => {
+        this.articles = [];
+        this.hasMoreArticles = false;
+        this.error = 'Erreur lors du chargement des articles: ' + (err.error?.message || err.message);
+        this.loading = false;
+        this.loadingMore = false;
+        console.error('Erreur lors du chargement des articles:', err);
+      }
+    });
+  }
   
   /**
    * Trie les articles par date
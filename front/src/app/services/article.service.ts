@@ -3,7 +3,7 @@ import { HttpClient, HttpErrorResponse } from '@angular/common/http';
 import { Observable, throwError } from 'rxjs';
 import { catchError, map } from 'rxjs/operators';
 import { environment } from '../../environments/environment';
-import { Article, Comment } from '../models/article.model';
+import { Article, ArticleSummary, Comment } from '../models/article.model';
 import { TokenStorageService } from './token-storage.service';
 
 const API_URL = `${environment.apiUrl}/api/articles`;
@@ -19,10 +19,12 @@ export class ArticleService {
   ) { }
 
   /**
-   * Récupère tous les articles
+   * Récupère les articles les plus récents (servis depuis l'instantané en mémoire du serveur
+   * tant que la limite ne dépasse pas sa taille)
+   * @param limit Nombre maximal d'articles, les plus récents d'abord
    */
-  getAllArticles(): Observable<Article[]> {
-    return this.http.get<Article[]>(API_URL);
+  getLatestArticles(limit: number): Observable<ArticleSummary[]> {
+    return this.http.get<ArticleSummary[]>(API_URL, { params: { limit } });
   }
 
   /**
@@ -37,32 +39,32 @@ export class ArticleService {
    * Récupère les articles d'un thème spécifique
    * @param themeId L'identifiant du thème
    */
-  getArticlesByTheme(themeId: number): Observable<Article[]> {
-    return this.http.get<Article[]>(`${API_URL}/theme/${themeId}`);
+  getArticlesByTheme(themeId: number): Observable<ArticleSummary[]> {
+    return this.http.get<ArticleSummary[]>(`${API_URL}/theme/${themeId}`);
   }
 
   /**
    * Récupère les articles d'un utilisateur spécifique
    * @param userId L'identifiant de l'utilisateur
    */
-  getArticlesByUser(userId: number): Observable<Article[]> {
-    return this.http.get<Article[]>(`${API_URL}/user/${userId}`);
+  getArticlesByUser(userId: number): Observable<ArticleSummary[]> {
+    return this.http.get<ArticleSummary[]>(`${API_URL}/user/${userId}`);
   }
 
   /**
    * Recherche des articles par titre
    * @param title Le titre à rechercher
    */
-  searchArticlesByTitle(title: string): Observable<Article[]> {
-    return this.http.get<Article[]>(`${API_URL}/search?title=${title}`);
+  searchArticlesByTitle(title: string): Observable<ArticleSummary[]> {
+    return this.http.get<ArticleSummary[]>(`${API_URL}/search?title=${title}`);
   }
   
   /**
    * Récupère les articles des thèmes auxquels l'utilisateur est abonné
    * @returns Liste des articles filtrés par abonnement
    */
-  getArticlesFeed(): Observable<Article[]> {
-    return this.http.get<Article[]>(`${API_URL}/feed`);
+  getArticlesFeed(): Observable<ArticleSummary[]> {
+    return this.http.get<ArticleSummary[]>(`${API_URL}/feed`);
   }
 
   /**